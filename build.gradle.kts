@@ -117,7 +117,6 @@ dependencies {
     implementation("com.google.code.gson", "gson", "2.8.7")
     implementation("com.squareup.okhttp3", "okhttp", "4.9.1")
     implementation("io.github.rburgst", "okhttp-digest", "2.5")
-    implementation("commons-io", "commons-io", "2.9.0")
 
     testImplementation("org.junit.jupiter", "junit-jupiter-api", "5.7.2")
     testRuntime("org.junit.jupiter", "junit-jupiter-engine", "5.7.2")
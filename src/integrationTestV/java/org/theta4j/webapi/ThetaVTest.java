@@ -42,11 +42,7 @@ class ThetaVTest {
     private static Set<URL> beforeFiles;
 
     private static <R> CommandResponse<R> waitForDone(CommandResponse<R> res) throws Exception {
-        while (res.getState() != CommandState.DONE) {
-            res = theta.commandStatus(res);
-            Thread.sleep(100);
-        }
-        return res;
+        return theta.awaitDone(res);
     }
 
     private static Set<URL> listFiles() throws Exception {
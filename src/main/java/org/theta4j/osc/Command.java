@@ -16,7 +16,10 @@
 
 package org.theta4j.osc;
 
+import com.google.gson.TypeAdapter;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Objects;
 
 /**
@@ -45,6 +48,14 @@ public interface Command<P, R> {
     @Nonnull
     Class<R> getResultType();
 
+    /**
+     * GSON type adapter to read the result. null means the result is bound to {@link #getResultType()} by default.
+     */
+    @Nullable
+    default TypeAdapter<R> getResultAdapter() {
+        return null;
+    }
+
     /**
      * Create new command definition.
      *
@@ -61,6 +72,27 @@ public interface Command<P, R> {
         Objects.requireNonNull(parameterType, "parameterType can not be null. Consider to use java.lang.Void class instead of null.");
         Objects.requireNonNull(resultType, "resultType can not be null. Consider to use java.lang.Void class instead of null.");
 
-        return new CommandImpl<>(name, parameterType, resultType);
+        return new CommandImpl<>(name, parameterType, resultType, null);
+    }
+
+    /**
+     * Create new command definition with the type adapter of the result.
+     *
+     * @param name          Command name.
+     * @param parameterType Type of parameter.
+     * @param resultType    Type of result.
+     * @param resultAdapter GSON type adapter to read the result.
+     * @param <P>           Type of parameter.
+     * @param <R>           Type of result.
+     * @return created command definition.
+     */
+    @Nonnull
+    static <P, R> Command<P, R> create(@Nonnull final String name, @Nonnull final Class<P> parameterType, @Nonnull final Class<R> resultType, @Nonnull final TypeAdapter<R> resultAdapter) {
+        Objects.requireNonNull(name, "name can not be null.");
+        Objects.requireNonNull(parameterType, "parameterType can not be null. Consider to use java.lang.Void class instead of null.");
+        Objects.requireNonNull(resultType, "resultType can not be null. Consider to use java.lang.Void class instead of null.");
+        Objects.requireNonNull(resultAdapter, "resultAdapter can not be null.");
+
+        return new CommandImpl<>(name, parameterType, resultType, resultAdapter);
     }
 }
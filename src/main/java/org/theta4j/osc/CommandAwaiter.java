@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * CommandAwaiter polls the in-progress commands of a camera until they are done.
+ * <p>
+ * The pending commands of a camera are polled together in timed rounds.
+ * A round polls all the commands due within {@link #ROUND_WINDOW_NANOS}, and the status requests of a round are sent at once
+ * over the keep-alive connections of the HTTP client.
+ * The status requests of a camera are limited by a token bucket, and the commands over the limit are deferred to the next round
+ * in the order of their due time.
+ * The rounds of all the cameras are scheduled on a shared thread, and the status requests are sent asynchronously,
+ * so the thread is never blocked and the number of the pending commands does not need the threads.
+ * <p>
+ * The completion time of each command name is learned by the exponentially weighted moving average.
+ * The first poll of a command is scheduled a little before the expected completion,
+ * and the following polls are repeated by a tenth of the expected time.
+ * This class is thread-safe.
+ */
+final class CommandAwaiter {
+    static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 20;
+
+    private static final long DEFAULT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long MIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static final long MAX_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    // The commands due within this window are polled by the same round.
+    private static final long ROUND_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    // The token bucket holds the requests for this duration at most.
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    // Weight of the latest completion time in the average.
+    private static final double ALPHA = 0.3;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "theta4j-command-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Command name to the average completion time in nanoseconds.
+    private final Map<String, Long> estimates = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    // guarded by this
+    private final List<Poll<?>> pending = new ArrayList<>();
+
+    // guarded by this
+    private ScheduledFuture<?> round;
+
+    // guarded by this. Time of the scheduled round.
+    private long roundAt;
+
+    // guarded by this
+    private int maxRequestsPerSecond = DEFAULT_MAX_REQUESTS_PER_SECOND;
+
+    // guarded by this
+    private double tokens = maxTokens(DEFAULT_MAX_REQUESTS_PER_SECOND);
+
+    // guarded by this
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * Poll the command until it is done.
+     *
+     * @param response     Last response of the command.
+     * @param status       Sends the status request of the command.
+     * @param timeoutNanos Timeout from this call.
+     * @return Future of the done response. The future is completed with {@link InterruptedIOException} on timeout.
+     * Cancelling the future stops the polls.
+     */
+    <R> CompletableFuture<CommandResponse<R>> await(final CommandResponse<R> response,
+                                                    final Function<CommandResponse<R>, CompletableFuture<CommandResponse<R>>> status,
+                                                    final long timeoutNanos) {
+        final CompletableFuture<CommandResponse<R>> future = new CompletableFuture<>();
+        if (response.getState() != CommandState.IN_PROGRESS) {
+            future.complete(response);
+            return future;
+        }
+
+        final String name = response.getName();
+        final long start = System.nanoTime();
+        final Long estimate = estimates.get(name);
+        final long firstDelay = estimate == null ? DEFAULT_INTERVAL_NANOS : Math.max(MIN_INTERVAL_NANOS, estimate * 9 / 10);
+        final Poll<R> poll = new Poll<>(name, start, start + timeoutNanos, status, future, response);
+        poll.dueAt = start + Math.min(firstDelay, timeoutNanos);
+        synchronized (this) {
+            pending.add(poll);
+            schedule();
+        }
+        return future;
+    }
+
+    /**
+     * Set max number of the status requests per second.
+     */
+    synchronized void setMaxRequestsPerSecond(final int maxRequestsPerSecond) {
+        refill(System.nanoTime());
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        tokens = Math.min(tokens, maxTokens(maxRequestsPerSecond));
+    }
+
+    /**
+     * Returns number of the status requests sent.
+     */
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the average completion time of the command, or -1 if unknown.
+     */
+    long getEstimatedNanos(final String name) {
+        final Long estimate = estimates.get(name);
+        return estimate == null ? -1 : estimate;
+    }
+
+    /**
+     * Returns the interval of the polls after the first poll.
+     */
+    long getIntervalNanos(final String name) {
+        final Long estimate = estimates.get(name);
+        if (estimate == null) {
+            return DEFAULT_INTERVAL_NANOS;
+        }
+        return Math.min(MAX_INTERVAL_NANOS, Math.max(MIN_INTERVAL_NANOS, estimate / 10));
+    }
+
+    private void record(final String name, final long elapsedNanos) {
+        estimates.merge(name, elapsedNanos, (average, latest) -> (long) (average * (1 - ALPHA) + latest * ALPHA));
+    }
+
+    private static double maxTokens(final int maxRequestsPerSecond) {
+        return Math.max(1, maxRequestsPerSecond * (double) BURST_NANOS / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // guarded by this
+    private void refill(final long now) {
+        tokens = Math.min(maxTokens(maxRequestsPerSecond), tokens + (now - refilledAt) * maxRequestsPerSecond / 1e9);
+        refilledAt = now;
+    }
+
+    /**
+     * Schedule the round at the earliest due time, or when a token is available.
+     */
+    // guarded by this
+    private void schedule() {
+        long earliest = Long.MAX_VALUE;
+        boolean found = false;
+        for (final Poll<?> poll : pending) {
+            if (!poll.inFlight && (!found || poll.dueAt - earliest < 0)) {
+                earliest = poll.dueAt;
+                found = true;
+            }
+        }
+        if (!found) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        refill(now);
+        if (tokens < 1) {
+            final long tokenAt = now + (long) ((1 - tokens) * 1e9 / maxRequestsPerSecond);
+            if (tokenAt - earliest > 0) {
+                earliest = tokenAt;
+            }
+        }
+
+        if (round != null) {
+            if (roundAt - earliest <= 0) {
+                return; // the scheduled round is early enough.
+            }
+            round.cancel(false);
+        }
+        roundAt = earliest;
+        round = SCHEDULER.schedule(this::runRound, Math.max(0, earliest - now), TimeUnit.NANOSECONDS);
+    }
+
+    private void runRound() {
+        final List<Poll<?>> polls = new ArrayList<>();
+        synchronized (this) {
+            round = null;
+            final long now = System.nanoTime();
+            refill(now);
+
+            final List<Poll<?>> due = new ArrayList<>();
+            for (final Iterator<Poll<?>> iterator = pending.iterator(); iterator.hasNext(); ) {
+                final Poll<?> poll = iterator.next();
+                if (poll.future.isDone()) {
+                    iterator.remove(); // cancelled
+                } else if (!poll.inFlight && poll.dueAt - (now + ROUND_WINDOW_NANOS) <= 0) {
+                    due.add(poll);
+                }
+            }
+            due.sort((a, b) -> Long.signum(a.dueAt - b.dueAt));
+
+            for (final Poll<?> poll : due) {
+                if (tokens < 1) {
+                    break; // deferred to the next round
+                }
+                tokens--;
+                poll.inFlight = true;
+                polls.add(poll);
+            }
+            schedule();
+        }
+
+        for (final Poll<?> poll : polls) {
+            requestCount.incrementAndGet();
+            poll.send();
+        }
+    }
+
+    private final class Poll<R> {
+        private final String name;
+
+        private final long start;
+
+        private final long deadline;
+
+        private final Function<CommandResponse<R>, CompletableFuture<CommandResponse<R>>> status;
+
+        private final CompletableFuture<CommandResponse<R>> future;
+
+        // guarded by CommandAwaiter.this
+        private CommandResponse<R> response;
+
+        // guarded by CommandAwaiter.this
+        private long dueAt;
+
+        // guarded by CommandAwaiter.this
+        private boolean inFlight;
+
+        Poll(final String name, final long start, final long deadline,
+             final Function<CommandResponse<R>, CompletableFuture<CommandResponse<R>>> status,
+             final CompletableFuture<CommandResponse<R>> future, final CommandResponse<R> response) {
+            this.name = name;
+            this.start = start;
+            this.deadline = deadline;
+            this.status = status;
+            this.future = future;
+            this.response = response;
+        }
+
+        void send() {
+            final CommandResponse<R> last;
+            synchronized (CommandAwaiter.this) {
+                last = response;
+            }
+            status.apply(last).whenComplete((next, e) -> {
+                final long now = System.nanoTime();
+                synchronized (CommandAwaiter.this) {
+                    inFlight = false;
+                    if (e == null && next.getState() == CommandState.IN_PROGRESS && now - deadline < 0 && !future.isDone()) {
+                        response = next;
+                        dueAt = Math.min(now + getIntervalNanos(name), deadline);
+                        schedule();
+                        return;
+                    }
+                    pending.remove(this);
+                }
+
+                if (e != null) {
+                    future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else if (next.getState() != CommandState.IN_PROGRESS) {
+                    record(name, now - start);
+                    future.complete(next);
+                } else {
+                    future.completeExceptionally(new InterruptedIOException(name + " is not done in "
+                            + TimeUnit.NANOSECONDS.toMillis(deadline - start) + " milliseconds."));
+                }
+            });
+        }
+    }
+}
@@ -16,7 +16,10 @@
 
 package org.theta4j.osc;
 
+import com.google.gson.TypeAdapter;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 class CommandImpl<P, R> implements Command<P, R> {
     private final String name;
@@ -25,10 +28,13 @@ class CommandImpl<P, R> implements Command<P, R> {
 
     private final Class<R> resultType;
 
-    CommandImpl(final String name, final Class<P> parameterType, final Class<R> resultType) {
+    private final TypeAdapter<R> resultAdapter;
+
+    CommandImpl(final String name, final Class<P> parameterType, final Class<R> resultType, final TypeAdapter<R> resultAdapter) {
         this.name = name;
         this.parameterType = parameterType;
         this.resultType = resultType;
+        this.resultAdapter = resultAdapter;
     }
 
     @Nonnull
@@ -48,4 +54,10 @@ class CommandImpl<P, R> implements Command<P, R> {
     public Class<R> getResultType() {
         return resultType;
     }
+
+    @Nullable
+    @Override
+    public TypeAdapter<R> getResultAdapter() {
+        return resultAdapter;
+    }
 }
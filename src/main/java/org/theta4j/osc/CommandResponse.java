@@ -18,9 +18,13 @@ package org.theta4j.osc;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.math.BigDecimal;
 
 /**
@@ -48,6 +52,9 @@ public final class CommandResponse<R> {
 
     private final Class<R> resultType;
 
+    // reads the results of the following statuses. null means the default binding of resultType.
+    private final TypeAdapter<R> resultAdapter;
+
     private final String name;
     private final CommandState state;
     private final String id;
@@ -55,8 +62,9 @@ public final class CommandResponse<R> {
     private final OSCException error;
     private final Progress progress;
 
-    private CommandResponse(final Class<R> resultType, final String name, final CommandState state, final String id, final R result, final OSCException error, final Progress progress) {
+    private CommandResponse(final Class<R> resultType, final TypeAdapter<R> resultAdapter, final String name, final CommandState state, final String id, final R result, final OSCException error, final Progress progress) {
         this.resultType = resultType;
+        this.resultAdapter = resultAdapter;
 
         this.name = name;
         this.state = state;
@@ -78,7 +86,62 @@ public final class CommandResponse<R> {
         final CommandResponse.Progress progress = json.has("progress") ?
                 GSON.fromJson(json.get("progress"), CommandResponse.Progress.class) : null;
 
-        return new CommandResponse<>(resultsType, name, state, newID, result, error, progress);
+        return new CommandResponse<>(resultsType, null, name, state, newID, result, error, progress);
+    }
+
+    /**
+     * Read the response from the stream in a single pass.
+     * The results are bound to resultsType directly without building an intermediate JSON tree.
+     */
+    static <R> CommandResponse<R> valueOf(final JsonReader reader, Class<R> resultsType) throws IOException {
+        return valueOf(reader, resultsType, null);
+    }
+
+    /**
+     * Read the response from the stream in a single pass, with the type adapter of the results if not null.
+     */
+    static <R> CommandResponse<R> valueOf(final JsonReader reader, final Class<R> resultsType, final TypeAdapter<R> resultAdapter) throws IOException {
+        String name = null;
+        CommandState state = null;
+        String newID = null;
+        R result = null;
+        OSCException error = null;
+        CommandResponse.Progress progress = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "state":
+                    state = GSON.getAdapter(CommandState.class).read(reader);
+                    break;
+                case "id":
+                    newID = reader.nextString();
+                    break;
+                case "results":
+                    result = (resultAdapter != null ? resultAdapter : GSON.getAdapter(resultsType)).read(reader);
+                    break;
+                case "error":
+                    error = OSCException.valueOf(reader);
+                    break;
+                case "progress":
+                    progress = GSON.getAdapter(CommandResponse.Progress.class).read(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return new CommandResponse<>(resultsType, resultAdapter, name, state, newID, result, error, progress);
     }
 
     /**
@@ -122,6 +185,11 @@ public final class CommandResponse<R> {
         return result;
     }
 
+    @Nullable
+    TypeAdapter<R> getResultAdapter() {
+        return resultAdapter;
+    }
+
     @Nullable
     OSCException getError() {
         return error;
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of the file download.
+ *
+ * @see OSCClient#download(java.net.URL, java.nio.file.Path)
+ * @see OSCClient#download(java.net.URL, java.io.OutputStream)
+ */
+public final class DownloadResult {
+    private final long bytes;
+
+    private final long elapsedNanos;
+
+    DownloadResult(final long bytes, final long elapsedNanos) {
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Create DownloadResult.
+     *
+     * @param bytes       Number of bytes downloaded.
+     * @param elapsedTime Elapsed time of the download.
+     * @param unit        Unit of elapsedTime.
+     * @return Created instance.
+     * @throws NullPointerException     if unit is null.
+     * @throws IllegalArgumentException if bytes or elapsedTime is negative.
+     */
+    @Nonnull
+    public static DownloadResult create(final long bytes, final long elapsedTime, @Nonnull final TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit can not be null.");
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes can not be negative.");
+        }
+        if (elapsedTime < 0) {
+            throw new IllegalArgumentException("elapsedTime can not be negative.");
+        }
+
+        return new DownloadResult(bytes, unit.toNanos(elapsedTime));
+    }
+
+    /**
+     * Number of bytes downloaded.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Elapsed time of the download, from sending the request to receiving the last byte.
+     *
+     * @param unit Unit of the returned value.
+     * @return Elapsed time in the given unit.
+     */
+    public long getElapsedTime(@Nonnull final TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Throughput of the download in bytes per second.
+     */
+    public double getBytesPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return bytes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns String representation of this object.
+     */
+    @Override
+    @Nonnull
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DownloadResult{");
+        sb.append("bytes=").append(bytes);
+        sb.append(", elapsedNanos=").append(elapsedNanos);
+        sb.append('}');
+        return sb.toString();
+    }
+}
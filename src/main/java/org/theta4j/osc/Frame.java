@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+/**
+ * Frame data of a motion JPEG stream, which is backed by a buffer of {@link FramePool}.
+ * The frame must be closed to return the buffer to the pool.
+ * Do not use the frame and its buffer after {@link #close()}, because they are reused for another frame.
+ * <p>
+ * The frame may be shared by the subscribers of {@link LivePreviewHub}.
+ * In that case, each subscriber must close the frame exactly once, and the buffer is returned to the pool
+ * when the last subscriber closes it.
+ *
+ * @see MJpegInputStream#nextFrame(FramePool)
+ */
+public final class Frame implements Closeable {
+    private final FramePool pool;
+
+    private ByteBuffer buffer;
+
+    private int length;
+
+    // guarded by this
+    private int refCount;
+
+    // guarded by this
+    private boolean shared;
+
+    Frame(final FramePool pool, final ByteBuffer buffer) {
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Frame data. The position is 0 and the limit is {@link #getLength()}.
+     * If this frame is shared by 2 or more subscribers of {@link LivePreviewHub},
+     * the returned buffer is a read-only view which is independent of the other subscribers.
+     *
+     * @throws IllegalStateException if this frame is already closed.
+     */
+    @Nonnull
+    public ByteBuffer getBuffer() {
+        final boolean readOnly;
+        synchronized (this) {
+            if (refCount == 0) {
+                throw new IllegalStateException("frame is already closed.");
+            }
+            readOnly = shared;
+        }
+        final ByteBuffer view = readOnly ? buffer.asReadOnlyBuffer() : buffer;
+        view.clear().limit(length);
+        return view;
+    }
+
+    /**
+     * Length of the frame data in bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns this frame to the pool.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (refCount == 0 || --refCount > 0) {
+                return;
+            }
+        }
+        pool.release(this);
+    }
+
+    synchronized void retain() {
+        if (refCount == 0) {
+            throw new IllegalStateException("frame is already closed.");
+        }
+        refCount++;
+    }
+
+    synchronized void share() {
+        shared = true;
+    }
+
+    /**
+     * Prepare this frame to be filled with the data of the given length.
+     *
+     * @param newBuffer replaces the current buffer if not null.
+     */
+    void open(final int length, final ByteBuffer newBuffer) {
+        synchronized (this) {
+            refCount = 1;
+            shared = false;
+        }
+        if (newBuffer != null) {
+            buffer = newBuffer;
+        }
+        this.length = length;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of the frame buffers for {@link MJpegInputStream#nextFrame(FramePool)}.
+ * Recycling the buffers keeps the live preview free from garbage in the steady state.
+ * This class is thread-safe.
+ */
+public final class FramePool {
+    // Buffers are allocated in this granularity to absorb the variance of the frame size.
+    private static final int ALLOCATION_UNIT = 16 * 1024;
+
+    private final boolean direct;
+
+    private final int maxPooledFrames;
+
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+    private final AtomicLong allocationCount = new AtomicLong();
+
+    private FramePool(final boolean direct, final int maxPooledFrames) {
+        this.direct = direct;
+        this.maxPooledFrames = maxPooledFrames;
+    }
+
+    /**
+     * Create a pool of heap buffers.
+     *
+     * @param maxPooledFrames Max number of frames kept in the pool.
+     * @throws IllegalArgumentException if maxPooledFrames is less than 1.
+     */
+    public static FramePool create(final int maxPooledFrames) {
+        return create(false, maxPooledFrames);
+    }
+
+    /**
+     * Create a pool of direct buffers.
+     *
+     * @param maxPooledFrames Max number of frames kept in the pool.
+     * @throws IllegalArgumentException if maxPooledFrames is less than 1.
+     */
+    public static FramePool createDirect(final int maxPooledFrames) {
+        return create(true, maxPooledFrames);
+    }
+
+    private static FramePool create(final boolean direct, final int maxPooledFrames) {
+        if (maxPooledFrames < 1) {
+            throw new IllegalArgumentException("maxPooledFrames must be 1 or more.");
+        }
+
+        return new FramePool(direct, maxPooledFrames);
+    }
+
+    /**
+     * Number of buffers allocated by this pool.
+     * This stops increasing once the pool holds enough buffers for the stream.
+     */
+    public long getAllocationCount() {
+        return allocationCount.get();
+    }
+
+    /**
+     * Take a frame which can hold the data of the given length.
+     */
+    Frame acquire(final int length) {
+        Frame frame = null;
+        synchronized (frames) {
+            final Iterator<Frame> iterator = frames.iterator();
+            while (iterator.hasNext()) {
+                final Frame f = iterator.next();
+                if (f.capacity() >= length) {
+                    iterator.remove();
+                    frame = f;
+                    break;
+                }
+            }
+            if (frame == null) {
+                // grow one of them
+                frame = frames.pollFirst();
+            }
+        }
+
+        final ByteBuffer newBuffer = frame == null || frame.capacity() < length ? allocate(length) : null;
+        if (frame == null) {
+            frame = new Frame(this, newBuffer);
+        }
+        frame.open(length, newBuffer);
+        return frame;
+    }
+
+    void release(final Frame frame) {
+        synchronized (frames) {
+            if (frames.size() < maxPooledFrames) {
+                frames.addLast(frame);
+            }
+        }
+    }
+
+    private ByteBuffer allocate(final int length) {
+        allocationCount.incrementAndGet();
+        final int capacity = (length / ALLOCATION_UNIT + 1) * ALLOCATION_UNIT;
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LivePreviewHub shares the frames of one motion JPEG stream with multiple subscribers.
+ * <p>
+ * The frames are read on a dedicated thread, and passed to each subscriber by reference without copying.
+ * A frame is returned to the pool when all the subscribers close it.
+ * If a frame is passed to 2 or more subscribers, {@link Frame#getBuffer()} returns a read-only buffer.
+ * <p>
+ * Each subscriber has its own queue, delivery thread and drop policy,
+ * so a slow subscriber does not stall the stream and the other subscribers.
+ * The pool should be able to hold the sum of the queue capacities and 1 frame for each subscriber and the reader.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class LivePreviewHub implements Closeable {
+    /**
+     * Policy to apply when the queue of the subscriber is full.
+     */
+    public enum DropPolicy {
+        /**
+         * Drop the oldest frame in the queue to enqueue the new frame.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Drop the new frame.
+         */
+        DROP_NEWEST
+    }
+
+    /**
+     * Subscription of the frames. Closing this stops the delivery to the subscriber.
+     */
+    public final class Subscription implements Closeable {
+        private final int capacity;
+
+        private final DropPolicy dropPolicy;
+
+        private final LivePreviewPump.Listener listener;
+
+        // guarded by queue
+        private final ArrayDeque<Frame> queue;
+
+        // guarded by queue
+        private IOException error;
+
+        // guarded by queue
+        private boolean closed;
+
+        private final AtomicLong deliveredCount = new AtomicLong();
+
+        private final AtomicLong droppedCount = new AtomicLong();
+
+        private Subscription(final int capacity, final DropPolicy dropPolicy, final LivePreviewPump.Listener listener) {
+            this.capacity = capacity;
+            this.dropPolicy = dropPolicy;
+            this.listener = listener;
+            this.queue = new ArrayDeque<>(capacity);
+        }
+
+        /**
+         * Number of frames delivered to the subscriber.
+         */
+        public long getDeliveredCount() {
+            return deliveredCount.get();
+        }
+
+        /**
+         * Number of frames dropped by the drop policy.
+         */
+        public long getDroppedCount() {
+            return droppedCount.get();
+        }
+
+        /**
+         * Stop the delivery and return the queued frames to the pool.
+         */
+        @Override
+        public void close() {
+            synchronized (queue) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.notifyAll();
+            }
+            subscriptions.remove(this);
+            closeQueuedFrames();
+        }
+
+        private void offer(final Frame frame) {
+            final Frame dropped;
+            synchronized (queue) {
+                if (closed) {
+                    dropped = null;
+                    frame.close();
+                } else if (queue.size() < capacity) {
+                    dropped = null;
+                    queue.addLast(frame);
+                } else if (dropPolicy == DropPolicy.DROP_OLDEST) {
+                    dropped = queue.pollFirst();
+                    queue.addLast(frame);
+                } else {
+                    dropped = frame;
+                }
+                queue.notifyAll();
+            }
+            if (dropped != null) {
+                dropped.close();
+                droppedCount.incrementAndGet();
+            }
+        }
+
+        private void terminate(final IOException e) {
+            synchronized (queue) {
+                error = e;
+                queue.notifyAll();
+            }
+        }
+
+        private void deliver() {
+            for (; ; ) {
+                final Frame frame;
+                final IOException e;
+                synchronized (queue) {
+                    while (queue.isEmpty() && error == null && !closed) {
+                        try {
+                            queue.wait();
+                        } catch (final InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    frame = queue.pollFirst();
+                    e = error;
+                }
+
+                if (frame == null) {
+                    close();
+                    listener.onError(e);
+                    return;
+                }
+
+                deliveredCount.incrementAndGet();
+                try {
+                    listener.onFrame(frame);
+                } catch (final RuntimeException re) {
+                    close();
+                    throw re;
+                }
+            }
+        }
+
+        private void closeQueuedFrames() {
+            for (; ; ) {
+                final Frame frame;
+                synchronized (queue) {
+                    frame = queue.pollFirst();
+                }
+                if (frame == null) {
+                    return;
+                }
+                frame.close();
+            }
+        }
+    }
+
+    private final MJpegInputStream stream;
+
+    private final FramePool pool;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private boolean started;
+
+    // guarded by lock
+    private boolean closed;
+
+    // guarded by lock
+    private IOException error;
+
+    private final AtomicLong readCount = new AtomicLong();
+
+    private LivePreviewHub(final MJpegInputStream stream, final FramePool pool) {
+        this.stream = stream;
+        this.pool = pool;
+    }
+
+    /**
+     * Create a hub of the stream. Call {@link #start()} after subscribing to start reading the stream.
+     * The stream is closed when the hub is closed.
+     *
+     * @param stream Motion JPEG stream to read.
+     * @param pool   Pool of the frame buffers.
+     * @return Created hub.
+     * @throws NullPointerException if any argument is null.
+     */
+    @Nonnull
+    public static LivePreviewHub create(@Nonnull final MJpegInputStream stream, @Nonnull final FramePool pool) {
+        Objects.requireNonNull(stream, "stream can not be null.");
+        Objects.requireNonNull(pool, "pool can not be null.");
+
+        return new LivePreviewHub(stream, pool);
+    }
+
+    /**
+     * Subscribe the frames.
+     * The listener owns the delivered frame and must call {@link Frame#close()}.
+     *
+     * @param capacity   Max number of frames waiting for delivery.
+     * @param dropPolicy Policy to apply when the queue is full.
+     * @param listener   Listener to receive the frames on the delivery thread of this subscription.
+     * @return The subscription.
+     * @throws NullPointerException     if dropPolicy or listener is null.
+     * @throws IllegalArgumentException if capacity is less than 1.
+     * @throws IllegalStateException    if this hub is already closed.
+     */
+    @Nonnull
+    public Subscription subscribe(final int capacity, @Nonnull final DropPolicy dropPolicy, @Nonnull final LivePreviewPump.Listener listener) {
+        Objects.requireNonNull(dropPolicy, "dropPolicy can not be null.");
+        Objects.requireNonNull(listener, "listener can not be null.");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be 1 or more.");
+        }
+
+        final Subscription subscription = new Subscription(capacity, dropPolicy, listener);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("hub is already closed.");
+            }
+            if (error != null) {
+                subscription.terminate(error);
+            } else {
+                subscriptions.add(subscription);
+            }
+        }
+        newDaemonThread(subscription::deliver, "theta4j-preview-delivery").start();
+        return subscription;
+    }
+
+    /**
+     * Start reading the stream. This method does nothing if already started.
+     *
+     * @return This hub.
+     */
+    @Nonnull
+    public LivePreviewHub start() {
+        synchronized (lock) {
+            if (started || closed) {
+                return this;
+            }
+            started = true;
+        }
+        newDaemonThread(this::read, "theta4j-preview-reader").start();
+        return this;
+    }
+
+    /**
+     * Number of frames read from the stream.
+     */
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    /**
+     * Close all subscriptions and the stream.
+     *
+     * @throws IOException I/O error is occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        for (final Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        stream.close();
+    }
+
+    private void read() {
+        try {
+            for (; ; ) {
+                final Frame frame = stream.nextFrame(pool);
+                readCount.incrementAndGet();
+
+                final Object[] targets = subscriptions.toArray();
+                if (targets.length >= 2) {
+                    frame.share();
+                }
+                // retain all references before passing, so that the frame is not recycled by a fast subscriber.
+                for (int i = 0; i < targets.length; i++) {
+                    frame.retain();
+                }
+                for (final Object target : targets) {
+                    ((Subscription) target).offer(frame);
+                }
+                frame.close();
+
+                synchronized (lock) {
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            synchronized (lock) {
+                // the stream is closed by close() in usual.
+                if (closed) {
+                    return;
+                }
+                error = e;
+            }
+            for (final Subscription subscription : subscriptions) {
+                subscription.terminate(e);
+            }
+        }
+    }
+
+    private static Thread newDaemonThread(final Runnable runnable, final String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
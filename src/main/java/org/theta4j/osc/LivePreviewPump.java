@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * LivePreviewPump reads a motion JPEG stream on a dedicated thread, and delivers the latest frame to the listener
+ * on another dedicated thread.
+ * If the listener is slower than the camera, the frames which are not delivered yet are dropped in favor of the newer one.
+ * Therefore the latency of the preview is bounded regardless of the speed of the listener.
+ * <p>
+ * The pool should be able to hold at least 3 frames, the frame being read, the frame waiting for delivery
+ * and the frame held by the listener.
+ * This class is thread-safe.
+ *
+ * @see LivePreviewHub
+ */
+public final class LivePreviewPump implements Closeable {
+    /**
+     * Listener of the live preview frames.
+     */
+    public interface Listener {
+        /**
+         * Called on the delivery thread with the latest frame.
+         * The listener owns the frame and must call {@link Frame#close()} to return it to the pool.
+         *
+         * @param frame the latest frame.
+         */
+        void onFrame(@Nonnull Frame frame);
+
+        /**
+         * Called on the delivery thread when the stream is terminated by I/O error.
+         * This is not called after {@link LivePreviewPump#close()}.
+         *
+         * @param e the cause of the termination.
+         */
+        default void onError(@Nonnull IOException e) {
+        }
+    }
+
+    private final LivePreviewHub hub;
+
+    private final LivePreviewHub.Subscription subscription;
+
+    private LivePreviewPump(final LivePreviewHub hub, final LivePreviewHub.Subscription subscription) {
+        this.hub = hub;
+        this.subscription = subscription;
+    }
+
+    /**
+     * Start pumping the frames of the stream.
+     * The stream is closed when the returned pump is closed.
+     *
+     * @param stream   Motion JPEG stream to read.
+     * @param pool     Pool of the frame buffers.
+     * @param listener Listener to receive the frames.
+     * @return Started pump.
+     * @throws NullPointerException if any argument is null.
+     */
+    @Nonnull
+    public static LivePreviewPump start(@Nonnull final MJpegInputStream stream, @Nonnull final FramePool pool, @Nonnull final Listener listener) {
+        Objects.requireNonNull(stream, "stream can not be null.");
+        Objects.requireNonNull(pool, "pool can not be null.");
+        Objects.requireNonNull(listener, "listener can not be null.");
+
+        // The latest frame wins, that is a queue of 1 frame which drops the oldest frame.
+        final LivePreviewHub hub = LivePreviewHub.create(stream, pool);
+        final LivePreviewHub.Subscription subscription = hub.subscribe(1, LivePreviewHub.DropPolicy.DROP_OLDEST, new Listener() {
+            @Override
+            public void onFrame(@Nonnull final Frame frame) {
+                try {
+                    listener.onFrame(frame);
+                } catch (final RuntimeException e) {
+                    closeQuietly(hub, e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onError(@Nonnull final IOException e) {
+                listener.onError(e);
+            }
+        });
+        hub.start();
+        return new LivePreviewPump(hub, subscription);
+    }
+
+    /**
+     * Number of frames read from the stream.
+     */
+    public long getReadCount() {
+        return hub.getReadCount();
+    }
+
+    /**
+     * Number of frames delivered to the listener.
+     */
+    public long getDeliveredCount() {
+        return subscription.getDeliveredCount();
+    }
+
+    /**
+     * Number of frames dropped because newer frame arrived before the delivery.
+     */
+    public long getDroppedCount() {
+        return subscription.getDroppedCount();
+    }
+
+    /**
+     * Stop pumping and close the stream.
+     * The frame waiting for delivery is returned to the pool.
+     *
+     * @throws IOException I/O error is occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        hub.close();
+    }
+
+    private static void closeQuietly(final LivePreviewHub hub, final RuntimeException cause) {
+        try {
+            hub.close();
+        } catch (final IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
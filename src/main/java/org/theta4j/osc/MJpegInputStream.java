@@ -1,27 +1,42 @@
 package org.theta4j.osc;
 
-import okhttp3.Headers;
-import org.apache.commons.io.input.BoundedInputStream;
-
 import javax.annotation.Nonnull;
-import java.io.*;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
  * Motion JPEG stream. This class is not thread-safe.
  */
 public final class MJpegInputStream implements Closeable {
-    private static final String CHARSET = "UTF-8";
+    private static final int BUFFER_SIZE = 16 * 1024;
 
-    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+    private static final byte[] HEADER_CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.US_ASCII);
 
-    private final String boundary;
+    private final byte[] boundary;
 
     private final InputStream is;
 
+    // Bytes in buffer[position, limit) are read from the stream but not consumed yet.
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    // Remaining bytes of the current frame body.
+    private long frameRemaining;
+
+    // Incremented on each frame to invalidate the streams of the previous frames.
+    private int frameCount;
+
     private MJpegInputStream(final String boundary, final InputStream is) {
-        this.boundary = boundary;
-        this.is = new DataInputStream(new BufferedInputStream(is));
+        this.boundary = boundary.getBytes(StandardCharsets.US_ASCII);
+        this.is = is;
     }
 
     static MJpegInputStream fromHttpStream(final String boundary, final InputStream inputStream) {
@@ -35,18 +50,40 @@ public final class MJpegInputStream implements Closeable {
      * Returns next frame data.
      * Each frame's {@link InputStream#close()} will not be propagated to {@link MJpegInputStream#close()}.
      * You must call {@link MJpegInputStream#close()} to terminate stream.
+     * Unread bytes of the previous frame are skipped, and the stream of the previous frame reaches end of stream.
      *
      * @return InputStream returns next frame data.
      * @throws IOException I/O error is occurred.
      */
     @Nonnull
     public InputStream nextFrame() throws IOException {
-        skipBoundaryLines();
-        final Headers headers = readHeaders();
-        final int contentLength = Integer.parseInt(headers.get(HEADER_CONTENT_LENGTH));
-        final BoundedInputStream bis = new BoundedInputStream(is, contentLength);
-        bis.setPropagateClose(false);
-        return bis;
+        readFrameHeader();
+        return new FrameInputStream(frameCount);
+    }
+
+    /**
+     * Returns next frame data in a buffer of the given pool.
+     * Unlike {@link #nextFrame()}, the whole frame is read into the buffer before return.
+     * You must call {@link Frame#close()} to return the buffer to the pool.
+     *
+     * @param pool Pool to take the frame buffer from.
+     * @return Next frame.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if pool is null.
+     */
+    @Nonnull
+    public Frame nextFrame(@Nonnull final FramePool pool) throws IOException {
+        Objects.requireNonNull(pool, "pool can not be null.");
+
+        final int length = readFrameHeader();
+        final Frame frame = pool.acquire(length);
+        try {
+            readFrameBody(frame.getBuffer());
+        } catch (final IOException | RuntimeException e) {
+            frame.close();
+            throw e;
+        }
+        return frame;
     }
 
     /**
@@ -59,42 +96,287 @@ public final class MJpegInputStream implements Closeable {
         is.close();
     }
 
-    private void skipBoundaryLines() throws IOException {
+    /**
+     * Skip to the next frame and read its part headers.
+     *
+     * @return Content-Length of the frame.
+     */
+    int readFrameHeader() throws IOException {
+        skipFrameBody();
+        frameCount++;
+
+        // boundary line, preceded by empty lines.
         for (; ; ) {
-            final String line = readLine();
-            if (line.isEmpty()) {
+            final int length = nextLine();
+            if (length == 0) {
+                consumeLine(length);
                 continue;
-            } else if (line.equals(boundary)) {
-                return;
             }
-            throw new IOException("expect " + boundary + ", but got " + line);
+            if (regionEquals(boundary, length)) {
+                consumeLine(length);
+                break;
+            }
+            throw new IOException("expect " + new String(boundary, StandardCharsets.US_ASCII)
+                    + ", but got " + new String(buffer, position, length, StandardCharsets.UTF_8));
         }
-    }
 
-    private Headers readHeaders() throws IOException {
-        final Headers.Builder builder = new Headers.Builder();
+        // part headers, terminated by an empty line.
+        long contentLength = -1;
         for (; ; ) {
-            final String line = readLine();
-            if (line.isEmpty()) {
+            final int length = nextLine();
+            if (length == 0) {
+                consumeLine(length);
                 break;
             }
-            builder.add(line);
+            if (regionStartsWithIgnoreCase(HEADER_CONTENT_LENGTH, length)) {
+                contentLength = parseContentLength(position + HEADER_CONTENT_LENGTH.length, position + length);
+            }
+            consumeLine(length);
+        }
+
+        if (contentLength < 0) {
+            throw new IOException("Content-Length header is not found.");
         }
-        return builder.build();
+        if (contentLength > Integer.MAX_VALUE) {
+            throw new IOException("Content-Length is too large: " + contentLength);
+        }
+
+        frameRemaining = contentLength;
+        return (int) contentLength;
     }
 
-    private String readLine() throws IOException {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * Read bytes of the current frame body.
+     *
+     * @return number of bytes read, or -1 if the frame body is fully read.
+     */
+    int readFrameBody(final byte[] b, final int off, final int len) throws IOException {
+        if (frameRemaining <= 0) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        final int max = (int) Math.min(len, frameRemaining);
+
+        final int n;
+        if (position < limit) {
+            n = Math.min(max, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+        } else if (max >= buffer.length) {
+            // large read does not need to be copied through the buffer.
+            n = is.read(b, off, max);
+        } else {
+            if (fill() == -1) {
+                throw new EOFException("unexpected end of stream in frame body.");
+            }
+            n = Math.min(max, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+        }
+
+        if (n == -1) {
+            throw new EOFException("unexpected end of stream in frame body.");
+        }
+        frameRemaining -= n;
+        return n;
+    }
+
+    /**
+     * Read the rest of the current frame body into the buffer.
+     * Heap buffers are filled directly, and direct buffers are filled through the internal buffer.
+     */
+    private void readFrameBody(final ByteBuffer dst) throws IOException {
+        if (dst.hasArray()) {
+            while (dst.hasRemaining()) {
+                final int n = readFrameBody(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+                if (n == -1) {
+                    break;
+                }
+                dst.position(dst.position() + n);
+            }
+            return;
+        }
+
+        while (dst.hasRemaining() && frameRemaining > 0) {
+            if (position == limit && fill() == -1) {
+                throw new EOFException("unexpected end of stream in frame body.");
+            }
+            final int n = (int) Math.min(Math.min(dst.remaining(), frameRemaining), limit - position);
+            dst.put(buffer, position, n);
+            position += n;
+            frameRemaining -= n;
+        }
+    }
+
+    /**
+     * Read a byte of the current frame body.
+     *
+     * @return the byte read, or -1 if the frame body is fully read.
+     */
+    int readFrameBody() throws IOException {
+        if (frameRemaining <= 0) {
+            return -1;
+        }
+        if (position == limit && fill() == -1) {
+            throw new EOFException("unexpected end of stream in frame body.");
+        }
+        frameRemaining--;
+        return buffer[position++] & 0xFF;
+    }
+
+    private void skipFrameBody() throws IOException {
+        while (frameRemaining > 0) {
+            if (position == limit && fill() == -1) {
+                throw new EOFException("unexpected end of stream in frame body.");
+            }
+            final int n = (int) Math.min(frameRemaining, limit - position);
+            position += n;
+            frameRemaining -= n;
+        }
+    }
+
+    /**
+     * Make sure that a whole line is in the buffer starting at {@link #position}.
+     *
+     * @return length of the line excluding CR and LF.
+     */
+    private int nextLine() throws IOException {
+        int scanned = position;
         for (; ; ) {
-            final int c = is.read();
-            if (c == '\r') {
-                continue;
+            for (int i = scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    final int end = i > position && buffer[i - 1] == '\r' ? i - 1 : i;
+                    return end - position;
+                }
             }
-            if (c == '\n') {
-                break;
+            scanned = limit;
+
+            if (position > 0) {
+                // compact
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                scanned -= position;
+                limit -= position;
+                position = 0;
+            }
+            if (limit == buffer.length) {
+                throw new IOException("line is too long.");
+            }
+            final int n = is.read(buffer, limit, buffer.length - limit);
+            if (n == -1) {
+                throw new EOFException("unexpected end of stream in part headers.");
+            }
+            limit += n;
+        }
+    }
+
+    private void consumeLine(final int length) {
+        position += length;
+        if (buffer[position] == '\r') {
+            position++;
+        }
+        position++; // LF
+    }
+
+    private int fill() throws IOException {
+        position = 0;
+        limit = 0;
+        final int n = is.read(buffer, 0, buffer.length);
+        if (n > 0) {
+            limit = n;
+        }
+        return n;
+    }
+
+    private boolean regionEquals(final byte[] expected, final int length) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[position + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionStartsWithIgnoreCase(final byte[] lowerCasePrefix, final int length) {
+        if (length < lowerCasePrefix.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCasePrefix.length; i++) {
+            final int c = buffer[position + i];
+            final int lower = 'A' <= c && c <= 'Z' ? c + ('a' - 'A') : c;
+            if (lower != lowerCasePrefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseContentLength(final int from, final int to) throws IOException {
+        int i = from;
+        while (i < to && (buffer[i] == ' ' || buffer[i] == '\t')) {
+            i++;
+        }
+        final int digitsFrom = i;
+        long value = 0;
+        while (i < to && '0' <= buffer[i] && buffer[i] <= '9' && value <= Integer.MAX_VALUE) {
+            value = value * 10 + (buffer[i] - '0');
+            i++;
+        }
+        final int digitsTo = i;
+        while (i < to && (buffer[i] == ' ' || buffer[i] == '\t')) {
+            i++;
+        }
+        if (digitsFrom == digitsTo || i != to) {
+            throw new IOException("invalid Content-Length: " + new String(buffer, from, to - from, StandardCharsets.US_ASCII));
+        }
+        return value;
+    }
+
+    private final class FrameInputStream extends InputStream {
+        private final int frame;
+
+        private FrameInputStream(final int frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (frame != frameCount) {
+                return -1;
+            }
+            return readFrameBody();
+        }
+
+        @Override
+        public int read(@Nonnull final byte[] b, final int off, final int len) throws IOException {
+            Objects.requireNonNull(b, "b can not be null.");
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
             }
-            baos.write((char) c);
+            if (frame != frameCount) {
+                return -1;
+            }
+            return readFrameBody(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            if (frame != frameCount) {
+                return 0;
+            }
+            return (int) Math.min(frameRemaining, limit - position);
+        }
+
+        /**
+         * Does not close the underlying stream.
+         */
+        @Override
+        public void close() {
         }
-        return baos.toString(CHARSET);
     }
 }
@@ -22,22 +22,45 @@ import com.burgstaller.okhttp.digest.CachingAuthenticator;
 import com.burgstaller.okhttp.digest.Credentials;
 import com.burgstaller.okhttp.digest.DigestAuthenticator;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import okhttp3.*;
+import okio.BufferedSource;
+import okio.Okio;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_PARTIAL;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 
 /**
  * OSCClient is a client of Open Spherical Camera API.
+ * <p>
+ * Each blocking method has an asynchronous counterpart with {@code Async} suffix.
+ * The asynchronous methods return {@link CompletableFuture} without blocking the calling thread,
+ * and cancelling the future aborts the underlying HTTP request.
+ * Dependent stages of the futures are executed on the threads of the HTTP client,
+ * so do not block them.
  *
  * @see <a href="https://developers.google.com/streetview/open-spherical-camera/">Open Spherical Camera API</a>
  */
@@ -48,10 +71,27 @@ public final class OSCClient {
 
     private static final Command<OptionSet, Void> SET_OPTIONS_COMMAND = Command.create("camera.setOptions", OptionSet.class, Void.class);
 
+    private static final MediaType MEDIA_TYPE_JSON = MediaType.parse("application/json; charset=UTF-8");
+
+    /**
+     * The connection pool and the dispatcher of this client are shared by all OSCClient instances.
+     */
+    private static final OkHttpClient SHARED_HTTP_CLIENT = new OkHttpClient();
+
+    // Bytes transferred between the progress notifications.
+    private static final long PROGRESS_INTERVAL = 1024 * 1024;
+
     private final String endpoint;
 
     private final OkHttpClient httpClient;
 
+    private final CommandAwaiter awaiter = new CommandAwaiter();
+
+    private final OptionCache optionCache = new OptionCache();
+
+    private final OptionBatcher optionBatcher = new OptionBatcher(names ->
+            commandExecuteAsync(GET_OPTIONS_COMMAND, new GetOptions.Parameter(names), Function.identity()));
+
     private OSCClient(final String endpoint, final OkHttpClient httpClient) {
         this.endpoint = endpoint;
         this.httpClient = httpClient;
@@ -66,7 +106,7 @@ public final class OSCClient {
     public static OSCClient create(@Nonnull final String endpoint) {
         Objects.requireNonNull(endpoint, "endpoint can not be null.");
 
-        return new OSCClient(endpoint, new OkHttpClient());
+        return new OSCClient(endpoint, SHARED_HTTP_CLIENT);
     }
 
     /**
@@ -86,7 +126,7 @@ public final class OSCClient {
         final DigestAuthenticator authenticator = new DigestAuthenticator(credentials);
         final Map<String, CachingAuthenticator> authCache = new ConcurrentHashMap<>();
 
-        final OkHttpClient httpClient = new OkHttpClient.Builder()
+        final OkHttpClient httpClient = SHARED_HTTP_CLIENT.newBuilder()
                 .authenticator(new CachingAuthenticatorDecorator(authenticator, authCache))
                 .addInterceptor(new AuthenticationCacheInterceptor(authCache))
                 .build();
@@ -107,8 +147,22 @@ public final class OSCClient {
     public <T> T info(@Nonnull final Class<T> resultType) throws IOException {
         Objects.requireNonNull(resultType, "resultType can not be null.");
 
-        final JsonObject response = httpGet(endpoint + "/osc/info");
-        return GSON.fromJson(response, resultType);
+        return httpGet(endpoint + "/osc/info", reader -> GSON.getAdapter(resultType).read(reader));
+    }
+
+    /**
+     * GET /osc/info asynchronously.
+     *
+     * @param resultType a type of the result value.
+     * @return Future of the information object.
+     * @throws NullPointerException if resultType is null.
+     * @see OSCClient#info(Class)
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> infoAsync(@Nonnull final Class<T> resultType) {
+        Objects.requireNonNull(resultType, "resultType can not be null.");
+
+        return enqueue(newGetRequest(endpoint + "/osc/info"), reader -> GSON.getAdapter(resultType).read(reader));
     }
 
     /**
@@ -123,8 +177,22 @@ public final class OSCClient {
     public <T> OSCState<T> state(@Nonnull final Class<T> resultType) throws IOException {
         Objects.requireNonNull(resultType, "resultType can not be null.");
 
-        final JsonObject response = httpPost(endpoint + "/osc/state", null);
-        return OSCState.valueOf(response, resultType);
+        return httpPost(endpoint + "/osc/state", null, reader -> observeFingerprint(OSCState.valueOf(reader, resultType)));
+    }
+
+    /**
+     * POST /osc/state asynchronously.
+     *
+     * @param resultType a type of the state value.
+     * @return Future of the state.
+     * @throws NullPointerException if resultType is null.
+     * @see OSCClient#state(Class)
+     */
+    @Nonnull
+    public <T> CompletableFuture<OSCState<T>> stateAsync(@Nonnull final Class<T> resultType) {
+        Objects.requireNonNull(resultType, "resultType can not be null.");
+
+        return enqueue(newPostRequest(endpoint + "/osc/state", null), reader -> observeFingerprint(OSCState.valueOf(reader, resultType)));
     }
 
     /**
@@ -144,13 +212,24 @@ public final class OSCClient {
 
         final JsonObject request = new JsonObject();
         request.addProperty("stateFingerprint", fingerprint);
-        final JsonObject response = httpPost(endpoint + "/osc/checkForUpdates", request);
+        return httpPost(endpoint + "/osc/checkForUpdates", request, this::readStateFingerprint);
+    }
 
-        if (Objects.equals(response.get("state").getAsString(), "error")) {
-            throw GSON.fromJson(response, OSCException.class);
-        }
+    /**
+     * Check for the updates of the state asynchronously.
+     *
+     * @param fingerprint fingerprint of the last state.
+     * @return Future of the updated fingerprint.
+     * @throws NullPointerException if fingerprint is null.
+     * @see OSCClient#checkForUpdates(String)
+     */
+    @Nonnull
+    public CompletableFuture<String> checkForUpdatesAsync(@Nonnull final String fingerprint) {
+        Objects.requireNonNull(fingerprint, "fingerprint can not be null.");
 
-        return response.get("stateFingerprint").getAsString();
+        final JsonObject request = new JsonObject();
+        request.addProperty("stateFingerprint", fingerprint);
+        return enqueue(newPostRequest(endpoint + "/osc/checkForUpdates", request), this::readStateFingerprint);
     }
 
     /**
@@ -186,15 +265,40 @@ public final class OSCClient {
         Objects.requireNonNull(command, "command can not be null.");
 
         final CommandRequest reqBody = new CommandRequest(command.getName(), parameter);
-        final JsonObject resBody = httpPost(endpoint + "/osc/commands/execute", GSON.toJsonTree(reqBody).getAsJsonObject());
+        return httpPost(endpoint + "/osc/commands/execute", reqBody, reader -> readCommandResponse(reader, command));
+    }
 
-        final CommandResponse<R> response = CommandResponse.valueOf(resBody, command.getResultType());
+    /**
+     * Execute command asynchronously.
+     *
+     * @param command the command to execute.
+     * @param <P>     a type of the parameter.
+     * @param <R>     a type of the result.
+     * @return Future of the response of the command.
+     * @throws NullPointerException if command is null.
+     * @see OSCClient#commandExecute(Command)
+     */
+    @Nonnull
+    public <P, R> CompletableFuture<CommandResponse<R>> commandExecuteAsync(@Nonnull final Command<P, R> command) {
+        return commandExecuteAsync(command, null);
+    }
 
-        if (response.getError() != null) {
-            throw response.getError();
-        }
+    /**
+     * Execute command asynchronously.
+     *
+     * @param command   the command to execute.
+     * @param parameter the parameter of the command.
+     * @param <P>       a type of the parameter.
+     * @param <R>       a type of the result.
+     * @return Future of the response of the command.
+     * @throws NullPointerException if command is null.
+     * @see OSCClient#commandExecute(Command, Object)
+     */
+    @Nonnull
+    public <P, R> CompletableFuture<CommandResponse<R>> commandExecuteAsync(@Nonnull final Command<P, R> command, @Nullable final P parameter) {
+        Objects.requireNonNull(command, "command can not be null.");
 
-        return response;
+        return commandExecuteAsync(command, parameter, response -> response);
     }
 
     /**
@@ -214,15 +318,233 @@ public final class OSCClient {
         // request and get response
         final JsonObject reqBody = new JsonObject();
         reqBody.addProperty("id", response.getID());
-        final JsonObject resBody = httpPost(endpoint + "/osc/commands/status", reqBody);
+        return httpPost(endpoint + "/osc/commands/status", reqBody, reader -> readCommandResponse(reader, response.getResultType(), response.getResultAdapter()));
+    }
+
+    /**
+     * Check status of the executed command asynchronously.
+     *
+     * @param response The response value of last
+     * @return Future of the updated command response.
+     * @throws NullPointerException if response is null or response does not have ID.
+     * @see OSCClient#commandStatus(CommandResponse)
+     */
+    @Nonnull
+    public <R> CompletableFuture<CommandResponse<R>> commandStatusAsync(@Nonnull final CommandResponse<R> response) {
+        Objects.requireNonNull(response, "response can not be null.");
+
+        final JsonObject reqBody = new JsonObject();
+        reqBody.addProperty("id", response.getID());
+        return enqueue(newPostRequest(endpoint + "/osc/commands/status", reqBody),
+                reader -> readCommandResponse(reader, response.getResultType(), response.getResultAdapter()));
+    }
+
+    /**
+     * Wait until the command is done.
+     * The status is polled on the shared thread, and the interval adapts to the completion time of the command name.
+     * The pending commands of this client are polled together in rounds, up to the rate set by {@link #setMaxStatusRequestsPerSecond(int)}.
+     *
+     * @param response The response value of last command execution or status check.
+     * @param timeout  Max time to wait.
+     * @param unit     Unit of timeout.
+     * @param <R>      a type of the result.
+     * @return The done response.
+     * @throws IOException              I/O error is occurred.
+     * @throws OSCException             Server returned error response.
+     * @throws InterruptedIOException   if the timeout is elapsed or the current thread is interrupted.
+     * @throws NullPointerException     if response or unit is null.
+     * @throws IllegalArgumentException if timeout is not positive.
+     * @see OSCClient#awaitDoneAsync(CommandResponse, long, TimeUnit)
+     */
+    @Nonnull
+    public <R> CommandResponse<R> awaitDone(@Nonnull final CommandResponse<R> response, final long timeout, @Nonnull final TimeUnit unit) throws IOException {
+        final CompletableFuture<CommandResponse<R>> future = awaitDoneAsync(response, timeout, unit);
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for " + response.getName() + ".");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * Wait until the command is done asynchronously.
+     * The future is completed with {@link InterruptedIOException} if the timeout is elapsed,
+     * and cancelling the future stops the polls.
+     *
+     * @param response The response value of last command execution or status check.
+     * @param timeout  Max time to wait.
+     * @param unit     Unit of timeout.
+     * @param <R>      a type of the result.
+     * @return Future of the done response.
+     * @throws NullPointerException     if response or unit is null.
+     * @throws IllegalArgumentException if timeout is not positive.
+     * @see OSCClient#awaitDone(CommandResponse, long, TimeUnit)
+     */
+    @Nonnull
+    public <R> CompletableFuture<CommandResponse<R>> awaitDoneAsync(@Nonnull final CommandResponse<R> response, final long timeout, @Nonnull final TimeUnit unit) {
+        Objects.requireNonNull(response, "response can not be null.");
+        Objects.requireNonNull(unit, "unit can not be null.");
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+
+        return awaiter.await(response, this::commandStatusAsync, unit.toNanos(timeout));
+    }
+
+    /**
+     * Set max number of the status requests per second sent by {@link #awaitDone(CommandResponse, long, TimeUnit)}
+     * and {@link #awaitDoneAsync(CommandResponse, long, TimeUnit)} of this client. Default is 20.
+     * The pending commands of this client are polled together in rounds,
+     * and the commands over the limit are deferred to the next round.
+     *
+     * @param maxRequestsPerSecond max number of the status requests per second.
+     * @throws IllegalArgumentException if maxRequestsPerSecond is less than 1.
+     */
+    public void setMaxStatusRequestsPerSecond(final int maxRequestsPerSecond) {
+        if (maxRequestsPerSecond < 1) {
+            throw new IllegalArgumentException("maxRequestsPerSecond must be 1 or more.");
+        }
+        awaiter.setMaxRequestsPerSecond(maxRequestsPerSecond);
+    }
+
+    /**
+     * Returns number of the status requests sent by {@link #awaitDone(CommandResponse, long, TimeUnit)}
+     * and {@link #awaitDoneAsync(CommandResponse, long, TimeUnit)} of this client.
+     *
+     * @return Number of the status requests.
+     */
+    public long getStatusRequestCount() {
+        return awaiter.getRequestCount();
+    }
+
+    /**
+     * Set TTL of the cached option values. Default is 0, and the option values are not cached.
+     * <p>
+     * While the TTL is positive, {@link #getOptions(Collection)} and its variants request only the options not cached.
+     * The options named with {@link Option#SUPPORT} suffix are cached for the session.
+     * The other options are invalidated when this client sets the options,
+     * or when this client observes the changed fingerprint by {@link #state(Class)} or {@link #checkForUpdates(String)}.
+     * Changing the TTL clears the cache.
+     *
+     * @param ttl  TTL of the cached option values, or 0 to disable the cache.
+     * @param unit unit of ttl.
+     * @throws NullPointerException     if unit is null.
+     * @throws IllegalArgumentException if ttl is negative.
+     */
+    public void setOptionCacheTtl(final long ttl, @Nonnull final TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit can not be null.");
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must be 0 or more.");
+        }
+        optionCache.setDefaultTtl(unit.toNanos(ttl));
+    }
+
+    /**
+     * Set TTL of the cached value of the option, instead of the TTL set by {@link #setOptionCacheTtl(long, TimeUnit)}.
+     * The option is cached by this TTL even if the other options are not cached.
+     * Changing the TTL clears the cache.
+     *
+     * @param option Option to set TTL.
+     * @param ttl    TTL of the cached value, or 0 not to cache the option.
+     * @param unit   unit of ttl.
+     * @throws NullPointerException     if option or unit is null.
+     * @throws IllegalArgumentException if ttl is negative.
+     */
+    public void setOptionCacheTtl(@Nonnull final Option<?> option, final long ttl, @Nonnull final TimeUnit unit) {
+        Objects.requireNonNull(option, "option can not be null.");
+        Objects.requireNonNull(unit, "unit can not be null.");
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must be 0 or more.");
+        }
+        optionCache.setTtl(option.getName(), unit.toNanos(ttl));
+    }
 
-        final CommandResponse<R> updatedResponse = CommandResponse.valueOf(resBody, response.getResultType());
+    /**
+     * Enable or disable the batching of the getOptions calls. Default is disabled.
+     * <p>
+     * While enabled, the calls of {@link #getOptions(Collection)} and its variants arriving within the window
+     * set by {@link #setOptionBatchWindow(long, TimeUnit)}, or while a getOptions request is in flight,
+     * are merged into a single camera.getOptions request with the union of the option names.
+     * Each call receives only the options it asked for.
+     * Cancelling the future of a batched call does not abort the merged request.
+     *
+     * @param enabled true to batch the getOptions calls.
+     */
+    public void setOptionBatchingEnabled(final boolean enabled) {
+        optionBatcher.setEnabled(enabled);
+    }
 
-        if (updatedResponse.getError() != null) {
-            throw updatedResponse.getError();
+    /**
+     * Set time to wait for the other getOptions calls before sending a batch. Default is 5 milliseconds.
+     * With 0, the calls are merged only while a request is in flight.
+     *
+     * @param window time to wait for the other calls.
+     * @param unit   unit of window.
+     * @throws NullPointerException     if unit is null.
+     * @throws IllegalArgumentException if window is negative.
+     * @see #setOptionBatchingEnabled(boolean)
+     */
+    public void setOptionBatchWindow(final long window, @Nonnull final TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit can not be null.");
+        if (window < 0) {
+            throw new IllegalArgumentException("window must be 0 or more.");
         }
+        optionBatcher.setWindow(unit.toNanos(window));
+    }
+
+    /**
+     * Returns number of the camera.getOptions requests sent by the batching.
+     *
+     * @return Number of the batched requests.
+     * @see #setOptionBatchingEnabled(boolean)
+     */
+    public long getOptionBatchRequestCount() {
+        return optionBatcher.getRequestCount();
+    }
+
+    /**
+     * Clear the cached option values, including the options cached for the session.
+     */
+    public void invalidateOptionCache() {
+        optionCache.invalidateAll();
+    }
+
+    /**
+     * Returns number of the option values served from the cache.
+     *
+     * @return Number of the cache hits.
+     */
+    public long getOptionCacheHitCount() {
+        return optionCache.getHitCount();
+    }
+
+    /**
+     * Returns number of the option values requested to the camera while the cache is enabled.
+     *
+     * @return Number of the cache misses.
+     */
+    public long getOptionCacheMissCount() {
+        return optionCache.getMissCount();
+    }
 
-        return updatedResponse;
+    /**
+     * Returns number of the getOptions requests saved by the cache, which are served without the camera.
+     *
+     * @return Number of the saved requests.
+     */
+    public long getOptionCacheSavedRequestCount() {
+        return optionCache.getSavedRequestCount();
     }
 
     /**
@@ -242,6 +564,21 @@ public final class OSCClient {
         return getOptions(option).get(option);
     }
 
+    /**
+     * Get option value asynchronously.
+     *
+     * @param option Option to acquire value.
+     * @param <T>    Type of option value.
+     * @return Future of the acquired option value.
+     * @throws NullPointerException if option is null.
+     * @see OSCClient#getOption(Option)
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> getOptionAsync(@Nonnull final Option<T> option) {
+        Objects.requireNonNull(option, "options can not be null.");
+        return getOptionsAsync(Collections.singletonList(option), optionSet -> optionSet.get(option));
+    }
+
     /**
      * Get option value.
      *
@@ -259,6 +596,21 @@ public final class OSCClient {
         return getOptions(option).get(option);
     }
 
+    /**
+     * Get option value asynchronously.
+     *
+     * @param option Option to acquire value.
+     * @param <T>    Type of option value.
+     * @return Future of the acquired option values.
+     * @throws NullPointerException if option is null.
+     * @see OSCClient#getOption(ArrayOption)
+     */
+    @Nonnull
+    public <T> CompletableFuture<List<T>> getOptionAsync(@Nonnull final ArrayOption<T> option) {
+        Objects.requireNonNull(option, "options can not be null.");
+        return getOptionsAsync(Collections.singletonList(option), optionSet -> optionSet.get(option));
+    }
+
     /**
      * Get options.
      *
@@ -288,24 +640,47 @@ public final class OSCClient {
      */
     @Nonnull
     public OptionSet getOptions(@Nonnull final Collection<Option> options) throws IOException {
-        Objects.requireNonNull(options, "options can not be null.");
-        if (options.size() == 0) {
-            throw new IllegalArgumentException("options must have 1 or more entries.");
-        }
-        if (options.contains(null)) {
-            throw new NullPointerException("names can not contain null.");
-        }
-
-        final List<String> optionNames = options.stream().map(Option::getName).collect(Collectors.toList());
-        final GetOptions.Parameter parameter = new GetOptions.Parameter(optionNames);
+        final List<String> names = toOptionNames(options);
 
-        final CommandResponse<OptionSet> response = commandExecute(GET_OPTIONS_COMMAND, parameter);
+        if (!optionCache.isEnabled()) {
+            return fetchOptions(names);
+        }
 
-        if (response.getError() != null) {
-            throw response.getError();
+        final long generation = optionCache.generation();
+        final List<String> missing = new ArrayList<>();
+        final Map<String, JsonElement> values = optionCache.get(names, missing);
+        if (missing.isEmpty()) {
+            return OptionSet.valueOf(values);
         }
+        return mergeOptions(generation, values, fetchOptions(missing));
+    }
 
-        return response.getResult();
+    /**
+     * Get options asynchronously.
+     *
+     * @param options options to acquire.
+     * @return Future of the acquired options values.
+     * @throws NullPointerException     if options is null or contains null.
+     * @throws IllegalArgumentException if length of options is 0.
+     * @see OSCClient#getOptions(Option...)
+     */
+    @Nonnull
+    public CompletableFuture<OptionSet> getOptionsAsync(@Nonnull final Option... options) {
+        return getOptionsAsync(Arrays.asList(options));
+    }
+
+    /**
+     * Get options asynchronously.
+     *
+     * @param options options to acquire.
+     * @return Future of the acquired options values.
+     * @throws NullPointerException     if options is null or contains null.
+     * @throws IllegalArgumentException if length of options is 0.
+     * @see OSCClient#getOptions(Collection)
+     */
+    @Nonnull
+    public CompletableFuture<OptionSet> getOptionsAsync(@Nonnull final Collection<Option> options) {
+        return getOptionsAsync(options, optionSet -> optionSet);
     }
 
     /**
@@ -338,13 +713,61 @@ public final class OSCClient {
     public void setOptions(@Nonnull final OptionSet optionSet) throws IOException {
         Objects.requireNonNull(optionSet, "optionSet can not be null.");
 
-        final CommandResponse<Void> response = commandExecute(SET_OPTIONS_COMMAND, optionSet);
+        optionCache.invalidate();
+        final CommandResponse<Void> response;
+        try {
+            response = commandExecute(SET_OPTIONS_COMMAND, optionSet);
+        } finally {
+            optionCache.invalidate();
+        }
 
         if (response.getError() != null) {
             throw response.getError();
         }
     }
 
+    /**
+     * Set options value asynchronously.
+     *
+     * @param option Option to set value.
+     * @param value  Option value to set.
+     * @param <T>    Type of option value.
+     * @return Future which is completed when the value is set.
+     * @throws NullPointerException if option or value is null.
+     * @see OSCClient#setOption(Option, Object)
+     */
+    @Nonnull
+    public <T> CompletableFuture<Void> setOptionAsync(@Nonnull final Option<T> option, T value) {
+        final OptionSet optionSet = new OptionSet.Builder()
+                .put(option, value)
+                .build();
+        return setOptionsAsync(optionSet);
+    }
+
+    /**
+     * Set optionSet asynchronously.
+     *
+     * @param optionSet OptionSet values to set.
+     * @return Future which is completed when the values are set.
+     * @throws NullPointerException if optionSet is null.
+     * @see OSCClient#setOptions(OptionSet)
+     */
+    @Nonnull
+    public CompletableFuture<Void> setOptionsAsync(@Nonnull final OptionSet optionSet) {
+        Objects.requireNonNull(optionSet, "optionSet can not be null.");
+
+        optionCache.invalidate();
+        final CompletableFuture<Void> source = commandExecuteAsync(SET_OPTIONS_COMMAND, optionSet, response -> null);
+        // Invalidated on the error response and the I/O error too, like the finally block of setOptions.
+        final CompletableFuture<Void> future = source.whenComplete((result, e) -> optionCache.invalidate());
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return future;
+    }
+
     /**
      * camera.getLivePreview command.
      * You must call {@link MJpegInputStream#close()} of returned value to terminate stream.
@@ -359,15 +782,7 @@ public final class OSCClient {
 
         final CommandRequest reqBody = new CommandRequest(command.getName(), null);
 
-        final RequestBody requestBody = RequestBody.create(
-                MediaType.parse("application/json; charset=UTF-8"), GSON.toJson(reqBody));
-
-        final Request request = new Request.Builder()
-                .url(endpoint + "/osc/commands/execute")
-                .post(requestBody)
-                .addHeader("Accept", "application/json")
-                .addHeader("X-XSRF-Protected", "1")
-                .build();
+        final Request request = newPostRequest(endpoint + "/osc/commands/execute", reqBody);
 
         final Response response = httpClient.newCall(request).execute();
 
@@ -376,54 +791,484 @@ public final class OSCClient {
         }
 
         if (response.code() != HTTP_OK) {
-            final JsonObject json = GSON.fromJson(response.body().charStream(), JsonObject.class);
-            final CommandResponse<Void> commandRes = CommandResponse.valueOf(json, Void.class);
-            throw commandRes.getError();
+            try (final JsonReader reader = new JsonReader(response.body().charStream())) {
+                throw CommandResponse.valueOf(reader, Void.class).getError();
+            }
         }
 
         return MJpegInputStream.fromHttpStream("---osclivepreview---", response.body().byteStream());
     }
 
+    /**
+     * Download the file to the path.
+     * The authentication of this client is used for the download.
+     * The response body is passed to {@link FileChannel#transferFrom} as it is read,
+     * without an intermediate stream or buffer in this library.
+     * If the file already exists, it is overwritten.
+     *
+     * @param fileUrl URL of the file. For example {@code FileInfo#getFileUrl()}.
+     * @param path    Path to save the file.
+     * @return Byte count and elapsed time of the download.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if fileUrl or path is null.
+     */
+    @Nonnull
+    public DownloadResult download(@Nonnull final URL fileUrl, @Nonnull final Path path) throws IOException {
+        return download(fileUrl, path, null);
+    }
+
+    /**
+     * Download the file to the path with progress notification.
+     * The listener is called on the calling thread.
+     *
+     * @param fileUrl  URL of the file. For example {@code FileInfo#getFileUrl()}.
+     * @param path     Path to save the file.
+     * @param listener Listener of the progress. Set null if the progress is not need.
+     * @return Byte count and elapsed time of the download.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if fileUrl or path is null.
+     * @see OSCClient#download(URL, Path)
+     */
+    @Nonnull
+    public DownloadResult download(@Nonnull final URL fileUrl, @Nonnull final Path path, @Nullable final ProgressListener listener) throws IOException {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+        Objects.requireNonNull(path, "path can not be null.");
+
+        final long start = System.nanoTime();
+        try (final Response response = httpDownload(fileUrl);
+             final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ResponseBody body = response.body();
+            final long bytes = transfer(body.source(), body.contentLength(), channel, 0, listener);
+            return new DownloadResult(bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Download a byte range of the file into the channel at the same position.
+     * This is used to resume the download, or to download a file in parallel chunks.
+     * If the server ignores the range and sends the whole file, only the range from position 0 is downloaded,
+     * and the other ranges fail with {@link RangeNotSupportedException} instead of skipping the prefix.
+     * The channel is not closed by this method.
+     * The listener is called on the calling thread.
+     *
+     * @param fileUrl  URL of the file. For example {@code FileInfo#getFileUrl()}.
+     * @param channel  Channel to write the bytes.
+     * @param position Position of the first byte of the range.
+     * @param length   Length of the range, or -1 to download until the end of the file.
+     * @param listener Listener of the progress. Set null if the progress is not need.
+     * @return Byte count and elapsed time of the download.
+     * @throws RangeNotSupportedException if the server ignored the range not starting at 0.
+     * @throws IOException                I/O error is occurred.
+     * @throws NullPointerException       if fileUrl or channel is null.
+     * @throws IllegalArgumentException   if position is negative, or length is less than -1.
+     */
+    @Nonnull
+    public DownloadResult downloadRange(@Nonnull final URL fileUrl, @Nonnull final FileChannel channel, final long position, final long length, @Nullable final ProgressListener listener) throws IOException {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+        Objects.requireNonNull(channel, "channel can not be null.");
+        if (position < 0) {
+            throw new IllegalArgumentException("position can not be negative.");
+        }
+        if (length < -1) {
+            throw new IllegalArgumentException("length must be -1 or more.");
+        }
+
+        final long start = System.nanoTime();
+        if (length == 0) {
+            return new DownloadResult(0, System.nanoTime() - start);
+        }
+
+        final String range = length == -1 ? "bytes=" + position + "-" : "bytes=" + position + "-" + (position + length - 1);
+        try (final Response response = httpDownload(fileUrl, range)) {
+            final BufferedSource source = response.body().source();
+            if (response.code() != HTTP_PARTIAL) {
+                // The whole file is sent. Skipping to the position would transfer the prefix again for each range.
+                if (position != 0) {
+                    throw new RangeNotSupportedException("range is not supported by the server: " + fileUrl);
+                }
+            } else if (!Objects.equals(parseContentRangeStart(response.header("Content-Range")), position)) {
+                throw new IOException("unexpected Content-Range: " + response.header("Content-Range"));
+            }
+            final long expected = length != -1 ? length : response.code() == HTTP_PARTIAL ? response.body().contentLength() : -1;
+            final long bytes = transfer(source, expected, channel, position, listener);
+            return new DownloadResult(bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Download the file to the stream.
+     * The authentication of this client is used for the download.
+     * The stream is not closed by this method.
+     *
+     * @param fileUrl URL of the file. For example {@code FileInfo#getFileUrl()}.
+     * @param out     Stream to write the file.
+     * @return Byte count and elapsed time of the download.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if fileUrl or out is null.
+     */
+    @Nonnull
+    public DownloadResult download(@Nonnull final URL fileUrl, @Nonnull final OutputStream out) throws IOException {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+        Objects.requireNonNull(out, "out can not be null.");
+
+        final long start = System.nanoTime();
+        try (final Response response = httpDownload(fileUrl)) {
+            final long bytes = transfer(response.body(), out);
+            return new DownloadResult(bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Download the file from the position until the end to the stream.
+     * This is used to resume the download to a stream which already has the bytes before the position.
+     * If the server ignores the range and sends the whole file, only the position 0 is accepted,
+     * and the other positions fail with {@link RangeNotSupportedException} without writing any bytes.
+     * The stream is not closed by this method.
+     *
+     * @param fileUrl  URL of the file. For example {@code FileInfo#getFileUrl()}.
+     * @param out      Stream to write the bytes.
+     * @param position Position of the first byte to download.
+     * @return Byte count and elapsed time of the download.
+     * @throws RangeNotSupportedException if the server ignored the range not starting at 0.
+     * @throws IOException                I/O error is occurred.
+     * @throws NullPointerException       if fileUrl or out is null.
+     * @throws IllegalArgumentException   if position is negative.
+     */
+    @Nonnull
+    public DownloadResult downloadRange(@Nonnull final URL fileUrl, @Nonnull final OutputStream out, final long position) throws IOException {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+        Objects.requireNonNull(out, "out can not be null.");
+        if (position < 0) {
+            throw new IllegalArgumentException("position can not be negative.");
+        }
+
+        final long start = System.nanoTime();
+        try (final Response response = httpDownload(fileUrl, "bytes=" + position + "-")) {
+            if (response.code() != HTTP_PARTIAL) {
+                if (position != 0) {
+                    throw new RangeNotSupportedException("range is not supported by the server: " + fileUrl);
+                }
+            } else if (!Objects.equals(parseContentRangeStart(response.header("Content-Range")), position)) {
+                throw new IOException("unexpected Content-Range: " + response.header("Content-Range"));
+            }
+            final long bytes = transfer(response.body(), out);
+            return new DownloadResult(bytes, System.nanoTime() - start);
+        }
+    }
+
     // Helpers
 
-    private JsonObject httpGet(final String url) throws IOException {
-        final Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .addHeader("Accept", "application/json")
-                .addHeader("X-XSRF-Protected", "1")
-                .build();
+    private <P, R, T> CompletableFuture<T> commandExecuteAsync(final Command<P, R> command, final P parameter, final Function<CommandResponse<R>, T> mapper) {
+        final CommandRequest reqBody = new CommandRequest(command.getName(), parameter);
+        final Request request = newPostRequest(endpoint + "/osc/commands/execute", reqBody);
+        return enqueue(request, reader -> mapper.apply(readCommandResponse(reader, command)));
+    }
+
+    private <T> CompletableFuture<T> getOptionsAsync(final Collection<Option> options, final Function<OptionSet, T> mapper) {
+        final List<String> names = toOptionNames(options);
+
+        if (!optionCache.isEnabled()) {
+            return fetchOptionsAsync(names, mapper);
+        }
+
+        final long generation = optionCache.generation();
+        final List<String> missing = new ArrayList<>();
+        final Map<String, JsonElement> values = optionCache.get(names, missing);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(mapper.apply(OptionSet.valueOf(values)));
+        }
+        return fetchOptionsAsync(missing, fetched -> fetched == null
+                ? mapper.apply(null)
+                : mapper.apply(mergeOptions(generation, values, fetched)));
+    }
+
+    private <T> CompletableFuture<T> fetchOptionsAsync(final List<String> names, final Function<OptionSet, T> mapper) {
+        if (optionBatcher.isEnabled()) {
+            return optionBatcher.submit(names).thenApply(mapper);
+        }
+        final GetOptions.Parameter parameter = new GetOptions.Parameter(names);
+        return commandExecuteAsync(GET_OPTIONS_COMMAND, parameter, response -> mapper.apply(response.getResult()));
+    }
+
+    private OptionSet fetchOptions(final List<String> names) throws IOException {
+        if (optionBatcher.isEnabled()) {
+            final CompletableFuture<OptionSet> future = optionBatcher.submit(names);
+            try {
+                return future.get();
+            } catch (final InterruptedException e) {
+                future.cancel(false);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while getting options.");
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw (RuntimeException) cause;
+            }
+        }
+
+        final CommandResponse<OptionSet> response = commandExecute(GET_OPTIONS_COMMAND, new GetOptions.Parameter(names));
+
+        if (response.getError() != null) {
+            throw response.getError();
+        }
+
+        return response.getResult();
+    }
+
+    /**
+     * Cache the fetched options, and merge them with the cached options.
+     */
+    private OptionSet mergeOptions(final long generation, final Map<String, JsonElement> cached, final OptionSet fetched) {
+        final Map<String, JsonElement> values = new HashMap<>(cached);
+        values.putAll(fetched.toMap());
+        optionCache.put(generation, fetched.toMap());
+        return OptionSet.valueOf(values);
+    }
+
+    private <T> OSCState<T> observeFingerprint(final OSCState<T> state) {
+        optionCache.observeFingerprint(state.getFingerprint());
+        return state;
+    }
+
+    private String readStateFingerprint(final JsonReader reader) throws IOException {
+        final String fingerprint = readFingerprint(reader);
+        optionCache.observeFingerprint(fingerprint);
+        return fingerprint;
+    }
+
+    private static List<String> toOptionNames(final Collection<Option> options) {
+        Objects.requireNonNull(options, "options can not be null.");
+        if (options.size() == 0) {
+            throw new IllegalArgumentException("options must have 1 or more entries.");
+        }
+        if (options.contains(null)) {
+            throw new NullPointerException("names can not contain null.");
+        }
+
+        return options.stream().map(Option::getName).collect(Collectors.toList());
+    }
+
+    private static long transfer(final ResponseBody body, final OutputStream out) throws IOException {
+        // Okio writes its buffered segments to the stream directly, without an extra buffer in this library.
+        final long bytes = body.source().readAll(Okio.sink(out));
+        out.flush();
+        if (body.contentLength() != -1 && bytes != body.contentLength()) {
+            throw new EOFException("expected " + body.contentLength() + " bytes, but got " + bytes + " bytes.");
+        }
+        return bytes;
+    }
+
+    private Response httpDownload(final URL fileUrl) throws IOException {
+        return httpDownload(fileUrl, null);
+    }
+
+    private Response httpDownload(final URL fileUrl, final String range) throws IOException {
+        final Request.Builder builder = new Request.Builder()
+                .url(fileUrl)
+                .get();
+        if (range != null) {
+            builder.addHeader("Range", range);
+        }
+        final Request request = builder.build();
 
         final Response response = httpClient.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new IOException("failed to download " + fileUrl + ": " + response.code() + " " + response.message());
+        }
+        return response;
+    }
 
-        if (response.code() == HTTP_UNAUTHORIZED) {
-            throw new IOException(response.message());
+    /**
+     * Returns the first byte position of Content-Range header such as "bytes 100-199/1000".
+     */
+    private static Long parseContentRangeStart(final String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+        final int hyphen = contentRange.indexOf('-');
+        if (hyphen == -1) {
+            return null;
+        }
+        try {
+            return Long.parseLong(contentRange.substring("bytes ".length(), hyphen).trim());
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Transfer the bytes from the source to the channel starting at the position.
+     *
+     * @param length Expected number of bytes, or -1 if unknown.
+     * @return Number of bytes transferred.
+     */
+    private static long transfer(final BufferedSource source, final long length, final FileChannel channel, final long position, final ProgressListener listener) throws IOException {
+        long transferred = 0;
+        for (; ; ) {
+            final long remaining = length == -1 ? Long.MAX_VALUE - position - transferred : length - transferred;
+            if (remaining == 0) {
+                break;
+            }
+            // Without the listener, the whole body is transferred at once.
+            final long count = listener == null ? remaining : Math.min(remaining, PROGRESS_INTERVAL);
+            final long n = channel.transferFrom(source, position + transferred, count);
+            if (n == 0) {
+                // end of stream
+                break;
+            }
+            transferred += n;
+            if (listener != null) {
+                listener.onProgress(transferred, length);
+            }
         }
 
-        try (final Reader r = response.body().charStream()) {
-            return GSON.fromJson(r, JsonObject.class);
+        if (length != -1 && transferred != length) {
+            throw new EOFException("expected " + length + " bytes, but got " + transferred + " bytes.");
         }
+        return transferred;
     }
 
-    private JsonObject httpPost(final String url, final JsonObject body) throws IOException {
-        final RequestBody requestBody = RequestBody.create(
-                MediaType.parse("application/json; charset=UTF-8"), GSON.toJson(body));
+    private static <R> CommandResponse<R> readCommandResponse(final JsonReader reader, final Command<?, R> command) throws IOException {
+        return readCommandResponse(reader, command.getResultType(), command.getResultAdapter());
+    }
+
+    private static <R> CommandResponse<R> readCommandResponse(final JsonReader reader, final Class<R> resultType, final TypeAdapter<R> resultAdapter) throws IOException {
+        final CommandResponse<R> response = CommandResponse.valueOf(reader, resultType, resultAdapter);
+
+        if (response.getError() != null) {
+            throw response.getError();
+        }
+
+        return response;
+    }
+
+    private static String readFingerprint(final JsonReader reader) throws IOException {
+        String fingerprint = null;
+        String state = null;
+        OSCException error = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (name.equals("stateFingerprint")) {
+                fingerprint = reader.nextString();
+            } else if (name.equals("state")) {
+                state = reader.nextString();
+            } else if (name.equals("error")) {
+                error = OSCException.valueOf(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (Objects.equals(state, "error") && error != null) {
+            throw error;
+        }
+        if (fingerprint == null) {
+            throw new IOException("stateFingerprint is not found in the response.");
+        }
+
+        return fingerprint;
+    }
+
+    private <T> T httpGet(final String url, final JsonConverter<T> converter) throws IOException {
+        return read(httpClient.newCall(newGetRequest(url)).execute(), converter);
+    }
+
+    private <T> T httpPost(final String url, final Object body, final JsonConverter<T> converter) throws IOException {
+        return read(httpClient.newCall(newPostRequest(url, body)).execute(), converter);
+    }
+
+    /**
+     * Enqueue the request and returns the future which is completed with the converted response.
+     * Cancelling the returned future cancels the HTTP call.
+     */
+    private <T> CompletableFuture<T> enqueue(final Request request, final JsonConverter<T> converter) {
+        final Call call = httpClient.newCall(request);
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@Nonnull final Call call, @Nonnull final IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(@Nonnull final Call call, @Nonnull final Response response) {
+                try {
+                    future.complete(read(response, converter));
+                } catch (final Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
 
-        final Request request = new Request.Builder()
+    /**
+     * Decode the response body in a single pass, without building an intermediate JSON tree.
+     */
+    private static <T> T read(final Response response, final JsonConverter<T> converter) throws IOException {
+        try (final Response r = response) {
+            if (r.code() == HTTP_UNAUTHORIZED) {
+                throw new IOException(r.message());
+            }
+
+            try (final JsonReader reader = new JsonReader(r.body().charStream())) {
+                return converter.convert(reader);
+            }
+        }
+    }
+
+    private static Request newGetRequest(final String url) {
+        return new Request.Builder()
                 .url(url)
-                .post(requestBody)
+                .get()
                 .addHeader("Accept", "application/json")
                 .addHeader("X-XSRF-Protected", "1")
                 .build();
+    }
 
-        final Response response = httpClient.newCall(request).execute();
+    private static Request newPostRequest(final String url, final Object body) {
+        final RequestBody requestBody = RequestBody.create(MEDIA_TYPE_JSON, GSON.toJson(body));
 
-        if (response.code() == HTTP_UNAUTHORIZED) {
-            throw new IOException(response.message());
-        }
+        return new Request.Builder()
+                .url(url)
+                .post(requestBody)
+                .addHeader("Accept", "application/json")
+                .addHeader("X-XSRF-Protected", "1")
+                .build();
+    }
 
-        try (final Reader r = response.body().charStream()) {
-            return GSON.fromJson(r, JsonObject.class);
-        }
+    /**
+     * Listener of the download progress.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called each time a part of the file is written.
+         *
+         * @param bytes      Number of bytes written so far.
+         * @param totalBytes Size of the file, or -1 if unknown.
+         */
+        void onProgress(long bytes, long totalBytes);
+    }
+
+    @FunctionalInterface
+    private interface JsonConverter<T> {
+        T convert(JsonReader reader) throws IOException;
     }
 }
@@ -16,7 +16,11 @@
 
 package org.theta4j.osc;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
 import javax.annotation.Nonnull;
+import java.io.IOException;
 
 /**
  * OSCException represents OSC standard error object.
@@ -31,6 +35,36 @@ public final class OSCException extends RuntimeException {
     private OSCException() {
     }
 
+    private OSCException(final String code, final String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    /**
+     * Read the error object from the stream without reflection on {@link Throwable}.
+     */
+    static OSCException valueOf(final JsonReader reader) throws IOException {
+        String code = null;
+        String message = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (name.equals("code")) {
+                code = reader.nextString();
+            } else if (name.equals("message")) {
+                message = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new OSCException(code, message);
+    }
+
     /**
      * Error Code.
      */
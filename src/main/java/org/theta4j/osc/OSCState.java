@@ -18,8 +18,10 @@ package org.theta4j.osc;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 
 /**
  * OSCState represents result of POST /osc/state
@@ -44,6 +46,29 @@ public final class OSCState<T> {
         return new OSCState<>(fingerprint, state);
     }
 
+    static <T> OSCState<T> valueOf(final JsonReader reader, final Class<T> resultType) throws IOException {
+        String fingerprint = null;
+        T state = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "fingerprint":
+                    fingerprint = reader.nextString();
+                    break;
+                case "state":
+                    state = GSON.getAdapter(resultType).read(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return new OSCState<>(fingerprint, state);
+    }
+
     /**
      * Fingerprint (unique identifier) of the current camera state.
      */
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * OptionBatcher merges the concurrent getOptions calls of a camera into a single camera.getOptions request.
+ * <p>
+ * The calls arriving within the window after the first call, or while a request is in flight,
+ * are sent together with the union of their option names.
+ * The result is split back to each call by its option names.
+ * If the merged request is failed by an error response, such as an unknown option name,
+ * the calls of the batch are retried one by one, so a call does not fail by the options of the other calls.
+ * This class is thread-safe.
+ */
+final class OptionBatcher {
+    static final long DEFAULT_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "theta4j-option-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Call {
+        private final List<String> names;
+
+        private final CompletableFuture<OptionSet> future = new CompletableFuture<>();
+
+        private Call(final List<String> names) {
+            this.names = names;
+        }
+    }
+
+    private final Function<List<String>, CompletableFuture<CommandResponse<OptionSet>>> fetcher;
+
+    private volatile boolean enabled;
+
+    private volatile long windowNanos = DEFAULT_WINDOW_NANOS;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    // guarded by this
+    private List<Call> pending = new ArrayList<>();
+
+    // guarded by this
+    private boolean inFlight;
+
+    // guarded by this
+    private boolean scheduled;
+
+    /**
+     * @param fetcher Sends camera.getOptions request with the option names.
+     */
+    OptionBatcher(final Function<List<String>, CompletableFuture<CommandResponse<OptionSet>>> fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void setWindow(final long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * Returns number of the camera.getOptions requests sent by this batcher.
+     */
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Get the options with the other calls.
+     *
+     * @param names Names of the options.
+     * @return Future of the options. The failure of the request is completed exceptionally.
+     */
+    CompletableFuture<OptionSet> submit(final List<String> names) {
+        final Call call = new Call(names);
+        synchronized (this) {
+            pending.add(call);
+            if (inFlight || scheduled) {
+                return call.future;
+            }
+            if (windowNanos > 0) {
+                scheduled = true;
+                SCHEDULER.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                return call.future;
+            }
+        }
+        flush();
+        return call.future;
+    }
+
+    private void flush() {
+        final List<Call> batch;
+        synchronized (this) {
+            scheduled = false;
+            if (inFlight || pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            inFlight = true;
+        }
+
+        final Set<String> names = new LinkedHashSet<>();
+        for (final Call call : batch) {
+            names.addAll(call.names);
+        }
+        fetch(new ArrayList<>(names)).whenComplete((response, e) -> {
+            try {
+                if (batch.size() > 1 && isErrorResponse(response, e)) {
+                    batch.forEach(this::retry);
+                } else {
+                    batch.forEach(call -> complete(call, response, e));
+                }
+            } finally {
+                synchronized (this) {
+                    inFlight = false;
+                }
+                // The calls arrived while in flight have already waited.
+                flush();
+            }
+        });
+    }
+
+    private void retry(final Call call) {
+        fetch(call.names).whenComplete((response, e) -> complete(call, response, e));
+    }
+
+    private CompletableFuture<CommandResponse<OptionSet>> fetch(final List<String> names) {
+        requestCount.incrementAndGet();
+        try {
+            return fetcher.apply(names);
+        } catch (final RuntimeException e) {
+            final CompletableFuture<CommandResponse<OptionSet>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static boolean isErrorResponse(final CommandResponse<OptionSet> response, final Throwable e) {
+        if (e == null) {
+            return response.getError() != null;
+        }
+        final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        return cause instanceof OSCException;
+    }
+
+    private static void complete(final Call call, final CommandResponse<OptionSet> response, final Throwable e) {
+        if (e != null) {
+            call.future.completeExceptionally(e);
+        } else if (response.getError() != null) {
+            call.future.completeExceptionally(response.getError());
+        } else {
+            call.future.complete(response.getResult().subset(call.names));
+        }
+    }
+}
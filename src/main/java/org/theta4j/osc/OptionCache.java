@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import com.google.gson.JsonElement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OptionCache holds the option values acquired by camera.getOptions.
+ * <p>
+ * Each option is cached for its TTL. The options named with {@link Option#SUPPORT} suffix do not change on a camera,
+ * so they are cached for the session unless their TTL is set.
+ * The other options are volatile, and they are invalidated when the state fingerprint observed by the client is changed,
+ * or when the client sets the options.
+ * The values fetched across an invalidation are not cached, since they may be older than the invalidation.
+ * This class is thread-safe.
+ */
+final class OptionCache {
+    private static final class Entry {
+        private final JsonElement value;
+
+        private final long expiresAt;
+
+        private final boolean session;
+
+        private Entry(final JsonElement value, final long expiresAt, final boolean session) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.session = session;
+        }
+    }
+
+    // Option name to the TTL in nanoseconds.
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+
+    private volatile long defaultTtlNanos;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong savedRequestCount = new AtomicLong();
+
+    // guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // guarded by this. Incremented on each invalidation.
+    private long generation;
+
+    // guarded by this
+    private String fingerprint;
+
+    void setDefaultTtl(final long ttlNanos) {
+        defaultTtlNanos = ttlNanos;
+        invalidateAll();
+    }
+
+    void setTtl(final String name, final long ttlNanos) {
+        ttls.put(name, ttlNanos);
+        invalidateAll();
+    }
+
+    boolean isEnabled() {
+        return defaultTtlNanos > 0 || !ttls.isEmpty();
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    long getSavedRequestCount() {
+        return savedRequestCount.get();
+    }
+
+    /**
+     * Returns current generation to pass to {@link #put(long, Map)}.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Look up the options.
+     *
+     * @param names   Names of the options.
+     * @param missing Receives the names of the options not cached.
+     * @return Cached values keyed by the names.
+     */
+    synchronized Map<String, JsonElement> get(final Collection<String> names, final Collection<String> missing) {
+        final long now = System.nanoTime();
+        final Map<String, JsonElement> values = new HashMap<>();
+        for (final String name : names) {
+            final Entry entry = entries.get(name);
+            if (entry != null && (entry.session || now - entry.expiresAt < 0)) {
+                values.put(name, entry.value);
+            } else if (!missing.contains(name)) {
+                missing.add(name);
+            }
+        }
+        hitCount.addAndGet(values.size());
+        missCount.addAndGet(missing.size());
+        if (missing.isEmpty()) {
+            savedRequestCount.incrementAndGet();
+        }
+        return values;
+    }
+
+    /**
+     * Cache the fetched values unless the cache is invalidated after the given generation.
+     */
+    synchronized void put(final long generation, final Map<String, JsonElement> values) {
+        if (generation != this.generation) {
+            return;
+        }
+        final long now = System.nanoTime();
+        values.forEach((name, value) -> {
+            final Long ttl = ttls.get(name);
+            if (ttl == null && defaultTtlNanos > 0 && name.endsWith(Option.SUPPORT)) {
+                entries.put(name, new Entry(value, 0, true));
+            } else {
+                final long ttlNanos = ttl == null ? defaultTtlNanos : ttl;
+                if (ttlNanos > 0) {
+                    entries.put(name, new Entry(value, now + ttlNanos, false));
+                }
+            }
+        });
+    }
+
+    /**
+     * Invalidate the volatile options if the fingerprint is changed from the last observed one.
+     */
+    synchronized void observeFingerprint(final String fingerprint) {
+        if (this.fingerprint != null && !this.fingerprint.equals(fingerprint)) {
+            invalidate();
+        }
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Invalidate the volatile options.
+     */
+    synchronized void invalidate() {
+        generation++;
+        entries.values().removeIf(entry -> !entry.session);
+    }
+
+    /**
+     * Invalidate all the options including the options cached for the session.
+     */
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+}
@@ -22,6 +22,8 @@ import com.google.gson.annotations.JsonAdapter;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -92,6 +94,34 @@ public final class OptionSet {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Create OptionSet from the JSON values keyed by the option names.
+     */
+    static OptionSet valueOf(final Map<String, JsonElement> map) {
+        return new OptionSet(new HashMap<>(map));
+    }
+
+    /**
+     * Returns the JSON values of this options keyed by the option names.
+     */
+    Map<String, JsonElement> toMap() {
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Returns new OptionSet containing only the options of the given names.
+     */
+    OptionSet subset(final Collection<String> names) {
+        final Map<String, JsonElement> subset = new HashMap<>();
+        for (final String name : names) {
+            final JsonElement value = map.get(name);
+            if (value != null) {
+                subset.put(name, value);
+            }
+        }
+        return new OptionSet(subset);
+    }
+
     /**
      * OptionSet builder.
      */
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server ignored the Range header of a ranged download, and sent the whole file instead.
+ * Downloading the ranges from such server transfers the whole prefix again for each range,
+ * so the caller should download the whole file in a single stream.
+ *
+ * @see OSCClient#downloadRange(java.net.URL, java.nio.channels.FileChannel, long, long, OSCClient.ProgressListener)
+ */
+public final class RangeNotSupportedException extends IOException {
+    RangeNotSupportedException(final String message) {
+        super(message);
+    }
+}
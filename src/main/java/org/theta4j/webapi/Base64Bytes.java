@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base64 text kept as ASCII bytes, which is half the size of String on Android.
+ * The text is decoded only when it is asked for.
+ * This class is immutable.
+ */
+final class Base64Bytes {
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+        // URL-safe alphabet
+        DECODE_TABLE['-'] = 62;
+        DECODE_TABLE['_'] = 63;
+    }
+
+    private final byte[] ascii;
+
+    Base64Bytes(final byte[] ascii) {
+        this.ascii = ascii;
+    }
+
+    /**
+     * Upper bound of the decoded length.
+     */
+    int maxDecodedLength() {
+        return ascii.length / 4 * 3 + 3;
+    }
+
+    /**
+     * Decode the text into the buffer from its position.
+     * The position of the buffer is advanced by the decoded length.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space.
+     * @throws IllegalArgumentException         if the text is not valid Base64.
+     */
+    void decode(final ByteBuffer dst) {
+        int bits = 0;
+        int bitCount = 0;
+        for (final byte c : ascii) {
+            if (c == '=') {
+                break;
+            }
+            final int value = c >= 0 ? DECODE_TABLE[c] : -1;
+            if (value == -1) {
+                if (c == '\r' || c == '\n' || c == ' ') {
+                    continue;
+                }
+                throw new IllegalArgumentException("invalid Base64 character: " + (char) (c & 0xFF));
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                dst.put((byte) (bits >> bitCount));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(ascii, ((Base64Bytes) o).ascii);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ascii);
+    }
+
+    /**
+     * Returns the Base64 text.
+     */
+    @Override
+    public String toString() {
+        return new String(ascii, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * GSON type adapter keeping the string value as ASCII bytes.
+     * The String of the token is still created while it is read, so the retained size is reduced, but the peak is not.
+     * {@link ListFiles.Parameter.Builder#skipThumbnail(boolean)} avoids both.
+     */
+    static final class Adapter extends TypeAdapter<Base64Bytes> {
+        @Override
+        public void write(final JsonWriter out, final Base64Bytes value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.toString());
+            }
+        }
+
+        @Override
+        public Base64Bytes read(final JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return new Base64Bytes(in.nextString().getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
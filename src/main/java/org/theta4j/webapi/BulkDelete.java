@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.OSCException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BulkDelete deletes many files from THETA in chunks.
+ * A single camera.delete command with a huge URL list is slow and the whole list fails together.
+ * This class splits the list into chunks, and sends the request of the next chunk while the previous chunk is polled,
+ * so the camera does not wait for the round trips between the chunks.
+ * This class is thread-safe.
+ */
+public final class BulkDelete {
+    /**
+     * Listener of the progress.
+     * The methods are called on the thread calling {@link BulkDelete#delete(Collection)}, in the order of the chunks.
+     */
+    public interface Listener {
+        /**
+         * Called when a chunk is deleted.
+         *
+         * @param fileUrls     Files of the deleted chunk.
+         * @param deletedCount Number of files deleted so far.
+         * @param totalCount   Number of files to delete.
+         */
+        void onChunkDeleted(@Nonnull List<URL> fileUrls, int deletedCount, int totalCount);
+    }
+
+    /**
+     * Result of {@link BulkDelete#delete(Collection)}.
+     */
+    public static final class Result {
+        private final int deletedCount;
+
+        private final int chunkCount;
+
+        private final long elapsedNanos;
+
+        private Result(final int deletedCount, final int chunkCount, final long elapsedNanos) {
+            this.deletedCount = deletedCount;
+            this.chunkCount = chunkCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of files deleted.
+         */
+        public int getDeletedCount() {
+            return deletedCount;
+        }
+
+        /**
+         * Number of camera.delete commands sent.
+         */
+        public int getChunkCount() {
+            return chunkCount;
+        }
+
+        /**
+         * Elapsed time of the whole deletion.
+         *
+         * @param unit Unit of the returned value.
+         * @return Elapsed time in the given unit.
+         */
+        public long getElapsedTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns String representation of this object.
+         */
+        @Override
+        @Nonnull
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Result{");
+            sb.append("deletedCount=").append(deletedCount);
+            sb.append(", chunkCount=").append(chunkCount);
+            sb.append(", elapsedNanos=").append(elapsedNanos);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Builder of {@link BulkDelete}.
+     */
+    public static final class Builder {
+        private final Theta theta;
+
+        private int chunkSize = 100;
+
+        private int pipelineDepth = 2;
+
+        private Listener listener = (fileUrls, deletedCount, totalCount) -> {
+        };
+
+        /**
+         * Create new builder.
+         *
+         * @param theta THETA to delete the files from.
+         * @throws NullPointerException if theta is null.
+         */
+        public Builder(@Nonnull final Theta theta) {
+            this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+        }
+
+        /**
+         * Set max number of the files in a camera.delete command. Default is 100.
+         *
+         * @param chunkSize max number of the files in a command.
+         * @return Builder instance.
+         * @throws IllegalArgumentException if chunkSize is less than 1.
+         */
+        @Nonnull
+        public Builder chunkSize(final int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be 1 or more.");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Set max number of the chunks in progress at once. Default is 2.
+         * With 1, each chunk is sent after the previous chunk is done.
+         *
+         * @param pipelineDepth max number of the chunks in progress.
+         * @return Builder instance.
+         * @throws IllegalArgumentException if pipelineDepth is less than 1.
+         */
+        @Nonnull
+        public Builder pipelineDepth(final int pipelineDepth) {
+            if (pipelineDepth < 1) {
+                throw new IllegalArgumentException("pipelineDepth must be 1 or more.");
+            }
+            this.pipelineDepth = pipelineDepth;
+            return this;
+        }
+
+        /**
+         * Set listener of the progress.
+         *
+         * @param listener listener of the progress.
+         * @return Builder instance.
+         * @throws NullPointerException if listener is null.
+         */
+        @Nonnull
+        public Builder listener(@Nonnull final Listener listener) {
+            this.listener = Objects.requireNonNull(listener, "listener can not be null.");
+            return this;
+        }
+
+        /**
+         * Build {@link BulkDelete}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public BulkDelete build() {
+            return new BulkDelete(this);
+        }
+    }
+
+    private final Theta theta;
+
+    private final int chunkSize;
+
+    private final int pipelineDepth;
+
+    private final Listener listener;
+
+    private BulkDelete(final Builder builder) {
+        this.theta = builder.theta;
+        this.chunkSize = builder.chunkSize;
+        this.pipelineDepth = builder.pipelineDepth;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Delete the files, and wait for all of them.
+     * If a chunk is failed, the chunks not sent yet are cancelled and the error is thrown.
+     * The chunks already sent may be deleted, and the listener tells the chunks deleted before the failed one.
+     *
+     * @param fileUrls Files to delete from THETA.
+     * @return Summary of the deletion.
+     * @throws IOException            I/O error is occurred.
+     * @throws OSCException           Server returned error response.
+     * @throws InterruptedIOException if the current thread is interrupted.
+     * @throws NullPointerException   if fileUrls is null or contains null.
+     */
+    @Nonnull
+    public Result delete(@Nonnull final Collection<URL> fileUrls) throws IOException {
+        Objects.requireNonNull(fileUrls, "fileUrls can not be null.");
+        if (fileUrls.contains(null)) {
+            throw new NullPointerException("fileUrls can not contain null.");
+        }
+
+        final List<URL> urls = new ArrayList<>(fileUrls);
+        final List<List<URL>> chunks = new ArrayList<>();
+        for (int from = 0; from < urls.size(); from += chunkSize) {
+            chunks.add(urls.subList(from, Math.min(urls.size(), from + chunkSize)));
+        }
+
+        final long start = System.nanoTime();
+        int deletedCount = 0;
+        final ExecutorService executor = ParallelTasks.newExecutor(Math.min(pipelineDepth, Math.max(chunks.size(), 1)), "theta4j-delete");
+        try {
+            final List<Future<?>> futures = new ArrayList<>(chunks.size());
+            for (final List<URL> chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    theta.awaitDone(theta.delete(chunk));
+                    return null;
+                }));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                ParallelTasks.get(futures.get(i), "deleting files");
+                deletedCount += chunks.get(i).size();
+                listener.onChunkDeleted(chunks.get(i), deletedCount, urls.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new Result(deletedCount, chunks.size(), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,558 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.DownloadResult;
+import org.theta4j.osc.OSCException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * CapturePipeline takes still images and offloads them from THETA.
+ * The shots are captured, downloaded and deleted by the separate stages connected with bounded queues,
+ * so the download and the deletion of a shot run concurrently with the capture of the next shot.
+ * When a queue is full, the upstream stage waits, so the slowest stage sets the pace.
+ * The download stage writes each shot to "name.part" and moves it to its path after the file is flushed to the storage,
+ * and only then the shot is queued for the deletion. An existing local file is never overwritten.
+ * The deletion stage deletes the queued files together by a camera.delete command.
+ * The latency of each stage is measured to tell which stage limits the shots per minute.
+ * This class is thread-safe, but the concurrent runs on the same THETA are not supported.
+ */
+public final class CapturePipeline {
+    private static final long QUEUE_TIMEOUT_MILLIS = 100;
+
+    private static final int MAX_DELETE_CHUNK_SIZE = 100;
+
+    // Marks the end of the shots in the queues.
+    private static final URL END;
+
+    static {
+        try {
+            END = new URL("http://localhost/end");
+        } catch (final MalformedURLException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Stage of the pipeline.
+     */
+    public enum Stage {
+        /**
+         * camera.takePicture and the polling until done.
+         */
+        CAPTURE,
+
+        /**
+         * Download of the captured file.
+         */
+        DOWNLOAD,
+
+        /**
+         * camera.delete of the downloaded files.
+         */
+        DELETE
+    }
+
+    /**
+     * Listener of the pipeline.
+     * The methods are called on the thread of each stage, so the methods for the different stages are called concurrently.
+     */
+    public interface Listener {
+        /**
+         * Called when a shot is captured.
+         *
+         * @param fileUrl URL of the captured file.
+         */
+        default void onCaptured(@Nonnull URL fileUrl) {
+        }
+
+        /**
+         * Called when a shot is downloaded.
+         *
+         * @param fileUrl URL of the downloaded file.
+         * @param path    Path of the saved file.
+         * @param result  Byte count and elapsed time of the download.
+         */
+        default void onDownloaded(@Nonnull URL fileUrl, @Nonnull Path path, @Nonnull DownloadResult result) {
+        }
+
+        /**
+         * Called when shots are deleted from THETA.
+         *
+         * @param fileUrls URLs of the deleted files.
+         */
+        default void onDeleted(@Nonnull List<URL> fileUrls) {
+        }
+    }
+
+    /**
+     * Latency statistics of a stage.
+     */
+    public static final class StageMetrics {
+        private final int count;
+
+        private final long totalNanos;
+
+        private final long maxNanos;
+
+        private final long blockedNanos;
+
+        private StageMetrics(final int count, final long totalNanos, final long maxNanos, final long blockedNanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.blockedNanos = blockedNanos;
+        }
+
+        /**
+         * Number of operations of the stage.
+         * A camera.delete command is counted once even if it deletes multiple files.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Total time spent by the operations.
+         *
+         * @param unit Unit of the returned value.
+         * @return Total time in the given unit.
+         */
+        public long getTotalTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Mean time of an operation.
+         *
+         * @param unit Unit of the returned value.
+         * @return Mean time in the given unit, or 0 if no operation.
+         */
+        public long getMeanTime(@Nonnull final TimeUnit unit) {
+            return count == 0 ? 0 : unit.convert(totalNanos / count, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Max time of an operation.
+         *
+         * @param unit Unit of the returned value.
+         * @return Max time in the given unit.
+         */
+        public long getMaxTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Time the stage waited for the next stage because the queue was full.
+         *
+         * @param unit Unit of the returned value.
+         * @return Blocked time in the given unit.
+         */
+        public long getBlockedTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(blockedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns String representation of this object.
+         */
+        @Override
+        @Nonnull
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("StageMetrics{");
+            sb.append("count=").append(count);
+            sb.append(", totalNanos=").append(totalNanos);
+            sb.append(", maxNanos=").append(maxNanos);
+            sb.append(", blockedNanos=").append(blockedNanos);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Result of {@link CapturePipeline#run(int)}.
+     */
+    public static final class Result {
+        private final int shotCount;
+
+        private final Map<Stage, StageMetrics> metrics;
+
+        private final long elapsedNanos;
+
+        private Result(final int shotCount, final Map<Stage, StageMetrics> metrics, final long elapsedNanos) {
+            this.shotCount = shotCount;
+            this.metrics = Collections.unmodifiableMap(metrics);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of the shots went through the pipeline.
+         */
+        public int getShotCount() {
+            return shotCount;
+        }
+
+        /**
+         * Latency statistics of the stage.
+         *
+         * @param stage Stage to get the statistics.
+         * @return Statistics of the stage.
+         * @throws NullPointerException if stage is null.
+         */
+        @Nonnull
+        public StageMetrics getMetrics(@Nonnull final Stage stage) {
+            Objects.requireNonNull(stage, "stage can not be null.");
+
+            return metrics.get(stage);
+        }
+
+        /**
+         * Stage spent the most time, which limits the shots per minute.
+         */
+        @Nonnull
+        public Stage getBottleneck() {
+            Stage bottleneck = Stage.CAPTURE;
+            for (final Stage stage : Stage.values()) {
+                if (metrics.get(stage).totalNanos > metrics.get(bottleneck).totalNanos) {
+                    bottleneck = stage;
+                }
+            }
+            return bottleneck;
+        }
+
+        /**
+         * Elapsed time of the whole run.
+         *
+         * @param unit Unit of the returned value.
+         * @return Elapsed time in the given unit.
+         */
+        public long getElapsedTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Sustained shots per minute of the run.
+         */
+        public double getShotsPerMinute() {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return shotCount * 60e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns String representation of this object.
+         */
+        @Override
+        @Nonnull
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Result{");
+            sb.append("shotCount=").append(shotCount);
+            sb.append(", metrics=").append(metrics);
+            sb.append(", elapsedNanos=").append(elapsedNanos);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Builder of {@link CapturePipeline}.
+     */
+    public static final class Builder {
+        private final Theta theta;
+
+        private final Path directory;
+
+        private int queueCapacity = 2;
+
+        private boolean deleteAfterDownload = true;
+
+        private Listener listener = new Listener() {
+        };
+
+        /**
+         * Create new builder.
+         *
+         * @param theta     THETA to take the pictures.
+         * @param directory Directory to save the pictures, in the subdirectories named by their folders.
+         * @throws NullPointerException if theta or directory is null.
+         */
+        public Builder(@Nonnull final Theta theta, @Nonnull final Path directory) {
+            this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+            this.directory = Objects.requireNonNull(directory, "directory can not be null.");
+        }
+
+        /**
+         * Set capacity of the queues between the stages. Default is 2.
+         *
+         * @param queueCapacity max number of the shots waiting for the next stage.
+         * @return Builder instance.
+         * @throws IllegalArgumentException if queueCapacity is less than 1.
+         */
+        @Nonnull
+        public Builder queueCapacity(final int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity must be 1 or more.");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Set whether the downloaded files are deleted from THETA. Default is true.
+         *
+         * @param deleteAfterDownload true to delete the downloaded files from THETA.
+         * @return Builder instance.
+         */
+        @Nonnull
+        public Builder deleteAfterDownload(final boolean deleteAfterDownload) {
+            this.deleteAfterDownload = deleteAfterDownload;
+            return this;
+        }
+
+        /**
+         * Set listener of the pipeline.
+         *
+         * @param listener listener of the pipeline.
+         * @return Builder instance.
+         * @throws NullPointerException if listener is null.
+         */
+        @Nonnull
+        public Builder listener(@Nonnull final Listener listener) {
+            this.listener = Objects.requireNonNull(listener, "listener can not be null.");
+            return this;
+        }
+
+        /**
+         * Build {@link CapturePipeline}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public CapturePipeline build() {
+            return new CapturePipeline(this);
+        }
+    }
+
+    /**
+     * Mutable statistics of a stage, updated only by the thread of the stage.
+     */
+    private static final class Meter {
+        private int count;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        private long blockedNanos;
+
+        void record(final long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        StageMetrics toMetrics() {
+            return new StageMetrics(count, totalNanos, maxNanos, blockedNanos);
+        }
+    }
+
+    private final Theta theta;
+
+    private final Path directory;
+
+    private final int queueCapacity;
+
+    private final boolean deleteAfterDownload;
+
+    private final Listener listener;
+
+    private CapturePipeline(final Builder builder) {
+        this.theta = builder.theta;
+        this.directory = builder.directory;
+        this.queueCapacity = builder.queueCapacity;
+        this.deleteAfterDownload = builder.deleteAfterDownload;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Take the pictures, and wait until all of them are downloaded and deleted.
+     * The capture stage runs on the current thread.
+     * If a stage is failed, the pipeline is stopped and the error is thrown.
+     * The shots not downloaded yet remain on THETA.
+     *
+     * @param shotCount Number of the pictures to take.
+     * @return Statistics of the run.
+     * @throws IOException                I/O error is occurred.
+     * @throws OSCException               Server returned error response.
+     * @throws FileAlreadyExistsException if the local file of a shot already exists.
+     * @throws InterruptedIOException     if the current thread is interrupted.
+     * @throws IllegalArgumentException   if shotCount is negative.
+     */
+    @Nonnull
+    public Result run(final int shotCount) throws IOException {
+        if (shotCount < 0) {
+            throw new IllegalArgumentException("shotCount must be 0 or more.");
+        }
+
+        Files.createDirectories(directory);
+
+        final BlockingQueue<URL> downloadQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<URL> deleteQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final Meter captureMeter = new Meter();
+        final Meter downloadMeter = new Meter();
+        final Meter deleteMeter = new Meter();
+
+        final long start = System.nanoTime();
+        final ExecutorService executor = ParallelTasks.newExecutor(2, "theta4j-capture-pipeline");
+        try {
+            final Future<?> deleteFuture = executor.submit(() -> {
+                deleteStage(deleteQueue, deleteMeter);
+                return null;
+            });
+            final Future<?> downloadFuture = executor.submit(() -> {
+                try {
+                    downloadStage(downloadQueue, deleteQueue, deleteFuture, downloadMeter);
+                } finally {
+                    put(deleteQueue, END, deleteFuture, null);
+                }
+                return null;
+            });
+
+            IOException captureError = null;
+            try {
+                for (int i = 0; i < shotCount && !downloadFuture.isDone(); i++) {
+                    final long captureStart = System.nanoTime();
+                    final URL fileUrl = capture();
+                    captureMeter.record(System.nanoTime() - captureStart);
+                    listener.onCaptured(fileUrl);
+                    put(downloadQueue, fileUrl, downloadFuture, captureMeter);
+                }
+            } catch (final IOException e) {
+                captureError = e;
+            } finally {
+                put(downloadQueue, END, downloadFuture, null);
+            }
+
+            ParallelTasks.get(downloadFuture, "running the pipeline");
+            ParallelTasks.get(deleteFuture, "running the pipeline");
+            if (captureError != null) {
+                throw captureError;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while running the pipeline.");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Map<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+        metrics.put(Stage.CAPTURE, captureMeter.toMetrics());
+        metrics.put(Stage.DOWNLOAD, downloadMeter.toMetrics());
+        metrics.put(Stage.DELETE, deleteMeter.toMetrics());
+        return new Result(downloadMeter.count, metrics, System.nanoTime() - start);
+    }
+
+    private URL capture() throws IOException {
+        return theta.awaitDone(theta.takePicture()).getResult().getFileUrl();
+    }
+
+    private void downloadStage(final BlockingQueue<URL> downloadQueue, final BlockingQueue<URL> deleteQueue,
+                               final Future<?> deleteFuture, final Meter meter) throws IOException, InterruptedException {
+        for (; ; ) {
+            final URL fileUrl = downloadQueue.take();
+            if (fileUrl == END) {
+                return;
+            }
+            // The names repeat after the folder rollover, and the delete stage removes the only camera copy.
+            final Path file = LocalPath.resolve(directory, fileUrl);
+            Files.createDirectories(file.getParent());
+
+            final long downloadStart = System.nanoTime();
+            final DownloadResult result = download(fileUrl, file);
+            meter.record(System.nanoTime() - downloadStart);
+            listener.onDownloaded(fileUrl, file, result);
+
+            if (deleteAfterDownload) {
+                put(deleteQueue, fileUrl, deleteFuture, meter);
+            }
+        }
+    }
+
+    /**
+     * Download the file into "name.part", and move it to the path after the bytes are flushed to the storage.
+     * The shot is deleted from THETA after this, so it must not be lost by a crash or overwrite another file.
+     */
+    private DownloadResult download(final URL fileUrl, final Path file) throws IOException {
+        if (Files.exists(file)) {
+            throw new FileAlreadyExistsException(file.toString());
+        }
+        final Path partPath = file.resolveSibling(file.getFileName() + ".part");
+        final DownloadResult result;
+        try (final FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            result = theta.download(fileUrl, Channels.newOutputStream(channel));
+            channel.force(true);
+        }
+        Files.move(partPath, file);
+        return result;
+    }
+
+    private void deleteStage(final BlockingQueue<URL> deleteQueue, final Meter meter) throws IOException, InterruptedException {
+        final List<URL> chunk = new ArrayList<>();
+        boolean end = false;
+        while (!end) {
+            chunk.add(deleteQueue.take());
+            deleteQueue.drainTo(chunk, MAX_DELETE_CHUNK_SIZE - 1);
+            end = chunk.removeIf(fileUrl -> fileUrl == END); // URL#equals may resolve the host.
+            if (!chunk.isEmpty()) {
+                final long deleteStart = System.nanoTime();
+                theta.awaitDone(theta.delete(chunk));
+                meter.record(System.nanoTime() - deleteStart);
+                listener.onDeleted(new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        }
+    }
+
+    /**
+     * Put the URL into the queue, waiting while the queue is full.
+     * Gives up if the consumer of the queue is terminated.
+     */
+    private static void put(final BlockingQueue<URL> queue, final URL fileUrl, final Future<?> consumer, final Meter meter) throws InterruptedException {
+        final long blockedStart = System.nanoTime();
+        while (!queue.offer(fileUrl, QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (consumer.isDone()) {
+                break;
+            }
+        }
+        if (meter != null) {
+            meter.blockedNanos += System.nanoTime() - blockedStart;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.OSCClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Download of the missing ranges of a file in parallel chunks, each chunk on its own connection.
+ * The chunks are written at their positions of the preallocated channel.
+ * <p>
+ * The chunk size follows the measured throughput of a connection, so that a chunk takes about
+ * {@link #DEFAULT_TARGET_CHUNK_NANOS}. Long chunks amortize the request overhead, and short chunks balance the tail.
+ * The number of the connections starts from 2 and is increased while the aggregate throughput keeps improving,
+ * and is decreased to the best one when it stops improving. The surplus connections exit before taking the next chunk.
+ * <p>
+ * When a connection fails or the calling thread is interrupted, the other connections abort their chunks at the next progress notification.
+ * The connection threads are not interrupted, since an interrupt closes the shared channel.
+ * The connection threads are joined before returning, so the channel and the journal are never closed under a live writer.
+ */
+final class ChunkedDownload {
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    private static final long MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final long INITIAL_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final long DEFAULT_TARGET_CHUNK_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    // More connection is used only if the aggregate throughput improves by this ratio.
+    private static final double IMPROVEMENT_RATIO = 1.1;
+
+    private static final int INITIAL_CONNECTIONS = 2;
+
+    private final OSCClient client;
+
+    private final URL fileUrl;
+
+    private final FileChannel channel;
+
+    private final DownloadJournal journal;
+
+    private final int maxConnections;
+
+    private final OSCClient.ProgressListener listener;
+
+    private final long size;
+
+    private final long targetChunkNanos;
+
+    // The fields below are guarded by this.
+
+    private final ArrayDeque<DownloadJournal.Range> remaining;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private long chunkSize = INITIAL_CHUNK_SIZE;
+
+    private int targetConnections;
+
+    private int activeConnections;
+
+    private boolean probing = true;
+
+    private double bestThroughput;
+
+    private int bestConnections;
+
+    private long windowStart;
+
+    private long windowBytes;
+
+    private int windowChunks;
+
+    private long completedBytes;
+
+    private long downloadedBytes;
+
+    private IOException error;
+
+    private ChunkedDownload(final OSCClient client, final URL fileUrl, final FileChannel channel, final DownloadJournal journal,
+                            final int maxConnections, final OSCClient.ProgressListener listener, final long size, final long targetChunkNanos) {
+        this.client = client;
+        this.fileUrl = fileUrl;
+        this.channel = channel;
+        this.journal = journal;
+        this.maxConnections = maxConnections;
+        this.listener = listener;
+        this.size = size;
+        this.targetChunkNanos = targetChunkNanos;
+        this.remaining = new ArrayDeque<>(journal.getMissingRanges());
+        this.completedBytes = journal.getCompletedBytes();
+    }
+
+    /**
+     * Returns true if the missing ranges are large enough to be split.
+     */
+    static boolean isWorthSplitting(final List<DownloadJournal.Range> missing) {
+        long bytes = 0;
+        for (final DownloadJournal.Range range : missing) {
+            bytes += range.length();
+        }
+        return bytes >= 2 * MIN_CHUNK_SIZE;
+    }
+
+    /**
+     * Download the missing ranges of the journal, and wait for all of them.
+     *
+     * @return Number of bytes downloaded.
+     */
+    static long download(final OSCClient client, final URL fileUrl, final FileChannel channel, final DownloadJournal journal,
+                         final int maxConnections, final OSCClient.ProgressListener listener, final long size) throws IOException {
+        return download(client, fileUrl, channel, journal, maxConnections, listener, size, DEFAULT_TARGET_CHUNK_NANOS);
+    }
+
+    /**
+     * Download the missing ranges of the journal with the given target duration of a chunk.
+     */
+    static long download(final OSCClient client, final URL fileUrl, final FileChannel channel, final DownloadJournal journal,
+                         final int maxConnections, final OSCClient.ProgressListener listener, final long size,
+                         final long targetChunkNanos) throws IOException {
+        return new ChunkedDownload(client, fileUrl, channel, journal, maxConnections, listener, size, targetChunkNanos).run();
+    }
+
+    private long run() throws IOException {
+        synchronized (this) {
+            windowStart = System.nanoTime();
+            targetConnections = Math.min(INITIAL_CONNECTIONS, maxConnections);
+            for (int i = 0; i < targetConnections; i++) {
+                startConnection();
+            }
+        }
+
+        boolean interrupted = false;
+        try {
+            synchronized (this) {
+                while (activeConnections > 0) {
+                    wait();
+                }
+            }
+        } catch (final InterruptedException e) {
+            interrupted = true;
+            onError(new InterruptedIOException("interrupted while downloading."));
+        }
+        interrupted |= joinConnections();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            if (error != null) {
+                throw error;
+            }
+            if (!remaining.isEmpty()) {
+                throw new IOException("all connections exited before downloading " + remaining.size() + " ranges of " + fileUrl);
+            }
+            return downloadedBytes;
+        }
+    }
+
+    /**
+     * Wait for all the connection threads to terminate, even if the calling thread is interrupted.
+     *
+     * @return true if the calling thread is interrupted while waiting.
+     */
+    private boolean joinConnections() {
+        boolean interrupted = false;
+        for (int i = 0; ; i++) {
+            final Thread thread;
+            synchronized (this) {
+                if (i == threads.size()) {
+                    return interrupted;
+                }
+                thread = threads.get(i);
+            }
+            for (; ; ) {
+                try {
+                    thread.join();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+    }
+
+    private void startConnection() {
+        activeConnections++;
+        final Thread thread = new Thread(this::connection, "theta4j-download-chunk");
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    private void connection() {
+        try {
+            for (DownloadJournal.Range chunk = nextChunk(); chunk != null; chunk = nextChunk()) {
+                final long start = System.nanoTime();
+                ResumableDownload.downloadRange(client, fileUrl, channel, journal, chunk, (written, total) -> checkAborted());
+                onChunkCompleted(chunk.length(), System.nanoTime() - start);
+            }
+            // nextChunk() has already retired this connection.
+        } catch (final AbortedException e) {
+            retire(); // the cause is already reported.
+        } catch (final IOException e) {
+            onError(e);
+            retire();
+        } catch (final RuntimeException e) {
+            onError(new IOException(e));
+            retire();
+        }
+    }
+
+    /**
+     * Abort the chunk of the calling connection if another connection failed, or the download is interrupted.
+     */
+    private synchronized void checkAborted() {
+        if (error != null) {
+            throw new UncheckedIOException(new AbortedException());
+        }
+    }
+
+    /**
+     * Returns the next chunk, or retires the calling connection and returns null.
+     * The connection is retired in the same critical section as the check, so that exactly the surplus connections exit.
+     */
+    private synchronized DownloadJournal.Range nextChunk() {
+        if (error != null || remaining.isEmpty() || activeConnections > targetConnections) {
+            retire();
+            return null;
+        }
+
+        final DownloadJournal.Range range = remaining.removeFirst();
+        // Do not leave a tail shorter than the minimum chunk.
+        if (range.length() < chunkSize + MIN_CHUNK_SIZE) {
+            return range;
+        }
+        remaining.addFirst(new DownloadJournal.Range(range.start + chunkSize, range.end));
+        return new DownloadJournal.Range(range.start, range.start + chunkSize);
+    }
+
+    private synchronized void retire() {
+        activeConnections--;
+        notifyAll();
+    }
+
+    private synchronized void onChunkCompleted(final long bytes, final long nanos) {
+        downloadedBytes += bytes;
+        completedBytes += bytes;
+        if (listener != null) {
+            listener.onProgress(completedBytes, size);
+        }
+
+        if (nanos > 0) {
+            final double connectionThroughput = bytes * 1e9 / nanos;
+            chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, (long) (connectionThroughput * targetChunkNanos / 1e9)));
+        }
+
+        windowBytes += bytes;
+        windowChunks++;
+        if (!probing || windowChunks < targetConnections) {
+            return;
+        }
+
+        // Every connection completed a chunk with the current parallelism, so the window is a fair sample.
+        final long now = System.nanoTime();
+        final double throughput = windowBytes * 1e9 / Math.max(now - windowStart, 1);
+        windowStart = now;
+        windowBytes = 0;
+        windowChunks = 0;
+
+        if (throughput > bestThroughput * IMPROVEMENT_RATIO) {
+            bestThroughput = throughput;
+            bestConnections = targetConnections;
+            if (targetConnections < maxConnections && error == null) {
+                targetConnections++;
+                startConnection();
+            } else {
+                probing = false;
+            }
+        } else {
+            // The last connection did not help, the surplus connection exits after its chunk.
+            targetConnections = Math.max(bestConnections, 1);
+            probing = false;
+        }
+    }
+
+    private synchronized void onError(final IOException e) {
+        if (error == null) {
+            error = e;
+        } else {
+            error.addSuppressed(e);
+        }
+    }
+
+    private static final class AbortedException extends InterruptedIOException {
+        AbortedException() {
+            super("chunk is aborted.");
+        }
+    }
+}
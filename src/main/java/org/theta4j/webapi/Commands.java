@@ -30,6 +30,8 @@ final class Commands {
 
     static final Command<ListFiles.Parameter, ListFiles.Result> LIST_FILES = Command.create("camera.listFiles", ListFiles.Parameter.class, ListFiles.Result.class);
 
+    static final Command<ListFiles.Parameter, ListFiles.Result> LIST_FILES_SKIPPING_THUMBNAIL = Command.create("camera.listFiles", ListFiles.Parameter.class, ListFiles.Result.class, ListFiles.THUMBNAIL_SKIPPING_ADAPTER);
+
     static final Command<Delete.Parameter, Void> DELETE = Command.create("camera.delete", Delete.Parameter.class, Void.class);
 
     static final Command<GetMetadata.Parameter, Metadata> GET_METADATA = Command.create("camera._getMetadata", GetMetadata.Parameter.class, Metadata.class);
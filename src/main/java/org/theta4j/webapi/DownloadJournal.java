@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Journal of the completed byte ranges of a download.
+ * The journal is a small text file, the file URL and the size on the first two lines, and a completed range
+ * "start end" on each following line. Ranges are appended as the download proceeds, and merged on open.
+ * A "reset" line discards the ranges before it.
+ * A journal of another file URL or size, or a journal claiming the bytes beyond the end of the part file, is discarded.
+ * This class is thread-safe.
+ */
+final class DownloadJournal implements Closeable {
+    /**
+     * Byte range [start, end).
+     */
+    static final class Range {
+        final long start;
+
+        final long end;
+
+        Range(final long start, final long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long length() {
+            return end - start;
+        }
+    }
+
+    private static final String RESET = "reset";
+
+    private final Path path;
+
+    private final long size;
+
+    // start -> end of the completed ranges. The ranges are disjoint and not adjacent.
+    private final TreeMap<Long, Long> ranges;
+
+    private final BufferedWriter writer;
+
+    private DownloadJournal(final Path path, final long size, final TreeMap<Long, Long> ranges, final BufferedWriter writer) {
+        this.path = path;
+        this.size = size;
+        this.ranges = ranges;
+        this.writer = writer;
+    }
+
+    /**
+     * Open the journal, or create new journal if it does not exist or it is for another file.
+     * The journal is also discarded if its completed ranges go beyond the part file, e.g. the part file is lost or truncated.
+     *
+     * @param partSize Current size of the part file.
+     */
+    static DownloadJournal open(final Path path, final URL fileUrl, final long size, final long partSize) throws IOException {
+        final TreeMap<Long, Long> ranges = new TreeMap<>();
+        if (Files.exists(path)) {
+            final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (lines.size() >= 2 && lines.get(0).equals(fileUrl.toString()) && lines.get(1).equals(Long.toString(size))) {
+                for (final String line : lines.subList(2, lines.size())) {
+                    if (line.equals(RESET)) {
+                        ranges.clear();
+                        continue;
+                    }
+                    final String[] tokens = line.split(" ");
+                    if (tokens.length != 2) {
+                        continue; // torn line written on crash
+                    }
+                    try {
+                        merge(ranges, Long.parseLong(tokens[0]), Long.parseLong(tokens[1]), size);
+                    } catch (final NumberFormatException e) {
+                        // torn line written on crash
+                    }
+                }
+            }
+            if (!ranges.isEmpty() && ranges.lastEntry().getValue() > partSize) {
+                ranges.clear();
+            }
+        }
+
+        // Rewrite the merged ranges to keep the journal small.
+        final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writer.write(fileUrl.toString());
+            writer.newLine();
+            writer.write(Long.toString(size));
+            writer.newLine();
+            for (final Map.Entry<Long, Long> range : ranges.entrySet()) {
+                writeRange(writer, range.getKey(), range.getValue());
+            }
+            writer.flush();
+        } catch (final IOException e) {
+            writer.close();
+            throw e;
+        }
+
+        return new DownloadJournal(path, size, ranges, writer);
+    }
+
+    /**
+     * Discard all the completed ranges, e.g. when the download restarts from zero.
+     */
+    synchronized void reset() throws IOException {
+        ranges.clear();
+        writer.write(RESET);
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Record the completed range [start, end).
+     * The bytes of the range must be written to the storage before the call.
+     */
+    synchronized void add(final long start, final long end) throws IOException {
+        if (start >= end) {
+            return;
+        }
+        merge(ranges, start, end, size);
+        writeRange(writer, start, end);
+        writer.flush();
+    }
+
+    /**
+     * Number of bytes completed.
+     */
+    synchronized long getCompletedBytes() {
+        long completed = 0;
+        for (final Map.Entry<Long, Long> range : ranges.entrySet()) {
+            completed += range.getValue() - range.getKey();
+        }
+        return completed;
+    }
+
+    /**
+     * Ranges not completed yet, in ascending order.
+     */
+    synchronized List<Range> getMissingRanges() {
+        final List<Range> missing = new ArrayList<>();
+        long position = 0;
+        for (final Map.Entry<Long, Long> range : ranges.entrySet()) {
+            if (position < range.getKey()) {
+                missing.add(new Range(position, range.getKey()));
+            }
+            position = range.getValue();
+        }
+        if (position < size) {
+            missing.add(new Range(position, size));
+        }
+        return missing;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Close and delete the journal.
+     */
+    synchronized void delete() throws IOException {
+        writer.close();
+        Files.deleteIfExists(path);
+    }
+
+    private static void merge(final TreeMap<Long, Long> ranges, long start, long end, final long size) {
+        start = Math.max(start, 0);
+        end = Math.min(end, size);
+        if (start >= end) {
+            return;
+        }
+
+        // absorb the overlapping or adjacent ranges.
+        final Map.Entry<Long, Long> floor = ranges.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            start = floor.getKey();
+            end = Math.max(end, floor.getValue());
+        }
+        for (Map.Entry<Long, Long> next = ranges.ceilingEntry(start); next != null && next.getKey() <= end; next = ranges.ceilingEntry(start)) {
+            end = Math.max(end, next.getValue());
+            ranges.remove(next.getKey());
+        }
+        ranges.put(start, end);
+    }
+
+    private static void writeRange(final BufferedWriter writer, final long start, final long end) throws IOException {
+        writer.write(start + " " + end);
+        writer.newLine();
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.DownloadResult;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DownloadManager downloads many files from THETA into a local directory with concurrent transfers.
+ * The transfers share the connection pool of the {@link Theta}, so the link is not idle between the files.
+ * Each file is saved by its {@link FileInfo#getName()} in the subdirectory named by its folder, e.g. "100RICOH/R0010001.JPG",
+ * and the file already present with the same size is skipped.
+ * The file whose name or folder would place it outside the directory is failed.
+ * The interrupted downloads are resumed by {@link Theta#downloadResumable(FileInfo, Path, org.theta4j.osc.OSCClient.ProgressListener)}.
+ * This class is thread-safe.
+ */
+public final class DownloadManager {
+    /**
+     * Order of the downloads.
+     */
+    public enum Order {
+        /**
+         * Same order as given.
+         */
+        AS_GIVEN(null),
+
+        /**
+         * Smallest file first.
+         */
+        SMALLEST_FIRST(Comparator.comparingInt(FileInfo::getSize)),
+
+        /**
+         * Largest file first.
+         */
+        LARGEST_FIRST(Comparator.comparingInt(FileInfo::getSize).reversed()),
+
+        /**
+         * Oldest file first.
+         */
+        OLDEST_FIRST(Comparator.comparing(FileInfo::getDateTime)),
+
+        /**
+         * Newest file first.
+         */
+        NEWEST_FIRST(Comparator.comparing(FileInfo::getDateTime).reversed());
+
+        private final Comparator<FileInfo> comparator;
+
+        Order(final Comparator<FileInfo> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    /**
+     * Listener of the downloads.
+     * The methods are called on the download threads, possibly concurrently for different files.
+     */
+    public interface Listener {
+        /**
+         * Called each time a part of the file is written.
+         *
+         * @param file       File being downloaded.
+         * @param bytes      Number of bytes written so far.
+         * @param totalBytes Size of the file, or -1 if unknown.
+         */
+        default void onProgress(@Nonnull FileInfo file, long bytes, long totalBytes) {
+        }
+
+        /**
+         * Called when the file is downloaded.
+         *
+         * @param file   Downloaded file.
+         * @param path   Path of the saved file.
+         * @param result Byte count and elapsed time of the download.
+         */
+        default void onComplete(@Nonnull FileInfo file, @Nonnull Path path, @Nonnull DownloadResult result) {
+        }
+
+        /**
+         * Called when the file is skipped because it is already present.
+         *
+         * @param file Skipped file.
+         * @param path Path of the present file.
+         */
+        default void onSkip(@Nonnull FileInfo file, @Nonnull Path path) {
+        }
+
+        /**
+         * Called when the download of the file is failed.
+         * The other files are still downloaded.
+         *
+         * @param file File failed to download.
+         * @param e    The cause of the failure.
+         */
+        default void onError(@Nonnull FileInfo file, @Nonnull IOException e) {
+        }
+    }
+
+    /**
+     * Result of {@link DownloadManager#download(Collection)}.
+     */
+    public static final class Result {
+        private final int downloadedCount;
+
+        private final int skippedCount;
+
+        private final Map<FileInfo, IOException> failures;
+
+        private final long bytes;
+
+        private final long elapsedNanos;
+
+        private Result(final int downloadedCount, final int skippedCount, final Map<FileInfo, IOException> failures, final long bytes, final long elapsedNanos) {
+            this.downloadedCount = downloadedCount;
+            this.skippedCount = skippedCount;
+            this.failures = Collections.unmodifiableMap(failures);
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of files downloaded.
+         */
+        public int getDownloadedCount() {
+            return downloadedCount;
+        }
+
+        /**
+         * Number of files skipped because they are already present.
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        /**
+         * Files failed to download, and the causes of the failures.
+         */
+        @Nonnull
+        public Map<FileInfo, IOException> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Total number of bytes downloaded. The skipped files are not counted.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Elapsed time of the whole downloads.
+         *
+         * @param unit Unit of the returned value.
+         * @return Elapsed time in the given unit.
+         */
+        public long getElapsedTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Aggregate throughput of the downloads in bytes per second.
+         */
+        public double getBytesPerSecond() {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return bytes * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns String representation of this object.
+         */
+        @Override
+        @Nonnull
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Result{");
+            sb.append("downloadedCount=").append(downloadedCount);
+            sb.append(", skippedCount=").append(skippedCount);
+            sb.append(", failures=").append(failures.size());
+            sb.append(", bytes=").append(bytes);
+            sb.append(", elapsedNanos=").append(elapsedNanos);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Builder of {@link DownloadManager}.
+     */
+    public static final class Builder {
+        private final Theta theta;
+
+        private final Path directory;
+
+        private int concurrency = 3;
+
+        private int connectionsPerFile = 1;
+
+        private Order order = Order.AS_GIVEN;
+
+        private Listener listener = new Listener() {
+        };
+
+        /**
+         * Create new builder.
+         *
+         * @param theta     THETA to download the files from.
+         * @param directory Directory to save the files.
+         * @throws NullPointerException if theta or directory is null.
+         */
+        public Builder(@Nonnull final Theta theta, @Nonnull final Path directory) {
+            this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+            this.directory = Objects.requireNonNull(directory, "directory can not be null.");
+        }
+
+        /**
+         * Set number of the concurrent transfers. Default is 3.
+         *
+         * @param concurrency number of the concurrent transfers.
+         * @return Builder instance.
+         * @throws IllegalArgumentException if concurrency is less than 1.
+         */
+        @Nonnull
+        public Builder concurrency(final int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be 1 or more.");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Set max number of the connections for a file. Default is 1.
+         * With 2 or more, large files are downloaded in parallel byte ranges.
+         *
+         * @param connectionsPerFile max number of the connections for a file.
+         * @return Builder instance.
+         * @throws IllegalArgumentException if connectionsPerFile is less than 1.
+         * @see Theta#downloadResumable(FileInfo, Path, int, org.theta4j.osc.OSCClient.ProgressListener)
+         */
+        @Nonnull
+        public Builder connectionsPerFile(final int connectionsPerFile) {
+            if (connectionsPerFile < 1) {
+                throw new IllegalArgumentException("connectionsPerFile must be 1 or more.");
+            }
+            this.connectionsPerFile = connectionsPerFile;
+            return this;
+        }
+
+        /**
+         * Set order of the downloads. Default is {@link Order#AS_GIVEN}.
+         *
+         * @param order order of the downloads.
+         * @return Builder instance.
+         * @throws NullPointerException if order is null.
+         */
+        @Nonnull
+        public Builder order(@Nonnull final Order order) {
+            this.order = Objects.requireNonNull(order, "order can not be null.");
+            return this;
+        }
+
+        /**
+         * Set listener of the downloads.
+         *
+         * @param listener listener of the downloads.
+         * @return Builder instance.
+         * @throws NullPointerException if listener is null.
+         */
+        @Nonnull
+        public Builder listener(@Nonnull final Listener listener) {
+            this.listener = Objects.requireNonNull(listener, "listener can not be null.");
+            return this;
+        }
+
+        /**
+         * Build {@link DownloadManager}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public DownloadManager build() {
+            return new DownloadManager(this);
+        }
+    }
+
+    private final Theta theta;
+
+    private final Path directory;
+
+    private final int concurrency;
+
+    private final int connectionsPerFile;
+
+    private final Order order;
+
+    private final Listener listener;
+
+    private DownloadManager(final Builder builder) {
+        this.theta = builder.theta;
+        this.directory = builder.directory;
+        this.concurrency = builder.concurrency;
+        this.connectionsPerFile = builder.connectionsPerFile;
+        this.order = builder.order;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Download the files, and wait for all of them.
+     * The failure of a file does not stop the other files, and it is reported by the result.
+     *
+     * @param files Files to download.
+     * @return Summary of the downloads.
+     * @throws IOException          I/O error is occurred on the directory.
+     * @throws InterruptedIOException if the current thread is interrupted. The running transfers are cancelled.
+     * @throws NullPointerException if files is null or contains null.
+     */
+    @Nonnull
+    public Result download(@Nonnull final Collection<FileInfo> files) throws IOException {
+        Objects.requireNonNull(files, "files can not be null.");
+        if (files.contains(null)) {
+            throw new NullPointerException("files can not contain null.");
+        }
+
+        final List<FileInfo> queue = new ArrayList<>(files);
+        if (order.comparator != null) {
+            queue.sort(order.comparator);
+        }
+
+        Files.createDirectories(directory);
+
+        final AtomicInteger downloadedCount = new AtomicInteger();
+        final AtomicInteger skippedCount = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+        final Map<FileInfo, IOException> failures = new ConcurrentHashMap<>();
+
+        final long start = System.nanoTime();
+        ParallelTasks.forEach(queue, concurrency, "theta4j-download", "downloading", file -> {
+            try {
+                final Path path = LocalPath.resolve(directory, file);
+                Files.createDirectories(path.getParent());
+                if (isPresent(file, path)) {
+                    skippedCount.incrementAndGet();
+                    listener.onSkip(file, path);
+                    return;
+                }
+                final DownloadResult result = theta.downloadResumable(file, path, connectionsPerFile,
+                        (written, total) -> listener.onProgress(file, written, total));
+                downloadedCount.incrementAndGet();
+                bytes.addAndGet(result.getBytes());
+                listener.onComplete(file, path, result);
+            } catch (final IOException e) {
+                failures.put(file, e);
+                listener.onError(file, e);
+            }
+        });
+
+        return new Result(downloadedCount.get(), skippedCount.get(), new HashMap<>(failures), bytes.get(), System.nanoTime() - start);
+    }
+
+    private static boolean isPresent(final FileInfo file, final Path path) throws IOException {
+        return Files.isRegularFile(path) && Files.size(path) == file.getSize();
+    }
+}
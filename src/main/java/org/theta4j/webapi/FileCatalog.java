@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import javax.annotation.Nonnull;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Compact catalogue of the files.
+ * The fields of the files are stored in columns. The repetitive strings such as the group IDs and the codec are
+ * dictionary-encoded, the numbers are stored in primitive arrays, and the file URLs are stored as the paths
+ * after the shared base such as "http://192.168.1.1".
+ * {@link FileInfo} is created on demand by {@link #get(int)}, so a large catalogue takes a small fraction of the heap
+ * of the FileInfo list. The thumbnails are not kept.
+ * This class is immutable.
+ */
+public final class FileCatalog {
+    private static final int NULL = -1;
+
+    // name is the last segment of the file URL.
+    private static final int DERIVED = -2;
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private static final int DATE_TIME_LENGTH = 19;
+
+    private static final FileInfo.ProjectionType[] PROJECTION_TYPES = FileInfo.ProjectionType.values();
+
+    /**
+     * Builder of {@link FileCatalog}.
+     */
+    public static final class Builder {
+        private final Dictionary.Builder dictionary = new Dictionary.Builder();
+
+        private final StringPool.Builder strings = new StringPool.Builder();
+
+        private int count;
+
+        private int[] urlBase = new int[16];
+        private int[] urlPath = new int[16];
+        private int[] name = new int[16];
+        private int[] previewUrl = new int[16];
+        private long[] dateTimeSeconds = new long[16];
+        private int[] dateTimeSuffix = new int[16];
+        private int[] dateTimeZone = new int[16];
+        private int[] intervalCaptureGroupId = new int[16];
+        private int[] compositeShootingGroupId = new int[16];
+        private int[] autoBracketGroupId = new int[16];
+        private int[] codec = new int[16];
+        private int[] size = new int[16];
+        private int[] lat = new int[16];
+        private int[] lng = new int[16];
+        private int[] width = new int[16];
+        private int[] height = new int[16];
+        private int[] thumbSize = new int[16];
+        private int[] recordTime = new int[16];
+        private byte[] projectionType = new byte[16];
+        private final BitSet processed = new BitSet();
+
+        /**
+         * Add the file.
+         *
+         * @param file File to add.
+         * @return Builder instance.
+         * @throws NullPointerException if file is null.
+         */
+        @Nonnull
+        public Builder add(@Nonnull final FileInfo file) {
+            Objects.requireNonNull(file, "file can not be null.");
+            ensureCapacity(count + 1);
+
+            final int i = count++;
+            final URL fileUrl = file.getFileUrl();
+            if (fileUrl == null) {
+                urlBase[i] = NULL;
+                urlPath[i] = NULL;
+            } else {
+                final String url = fileUrl.toString();
+                final int pathStart = url.indexOf('/', url.indexOf("//") + 2);
+                final int split = pathStart == -1 ? url.length() : pathStart;
+                urlBase[i] = dictionary.encode(url.substring(0, split));
+                urlPath[i] = strings.add(url.substring(split));
+            }
+            if (file.getName() == null) {
+                name[i] = NULL;
+            } else if (fileUrl != null && file.getName().equals(lastSegment(fileUrl.getPath()))) {
+                name[i] = DERIVED;
+            } else {
+                name[i] = strings.add(file.getName());
+            }
+            previewUrl[i] = file.getPreviewUrl() == null ? NULL : strings.add(file.getPreviewUrl().toString());
+            encodeDateTime(i, file.getDateTime());
+            dateTimeZone[i] = dictionary.encode(file.getDateTimeZone());
+            intervalCaptureGroupId[i] = dictionary.encode(file.getIntervalCaptureGroupId());
+            compositeShootingGroupId[i] = dictionary.encode(file.getCompositeShootingGroupId());
+            autoBracketGroupId[i] = dictionary.encode(file.getAutoBracketGroupId());
+            codec[i] = dictionary.encode(file.getCodec());
+            size[i] = file.getSize();
+            lat[i] = file.getLat();
+            lng[i] = file.getLng();
+            width[i] = file.getWidth();
+            height[i] = file.getHeight();
+            thumbSize[i] = file.getThumbSize();
+            recordTime[i] = file.getRecordTime();
+            projectionType[i] = (byte) (file.getProjectionType() == null ? 0 : file.getProjectionType().ordinal() + 1);
+            processed.set(i, file.isProcessed());
+            return this;
+        }
+
+        /**
+         * Add the files.
+         *
+         * @param files Files to add.
+         * @return Builder instance.
+         * @throws NullPointerException if files is null or contains null.
+         */
+        @Nonnull
+        public Builder addAll(@Nonnull final Collection<FileInfo> files) {
+            Objects.requireNonNull(files, "files can not be null.");
+            ensureCapacity(count + files.size());
+            for (final FileInfo file : files) {
+                add(file);
+            }
+            return this;
+        }
+
+        /**
+         * Build {@link FileCatalog}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public FileCatalog build() {
+            return new FileCatalog(this);
+        }
+
+        /**
+         * "2015:07:10 11:05:18+09:00" is encoded as the seconds of "2015:07:10 11:05:18" and the suffix "+09:00".
+         * The date time in the other format is kept as the suffix.
+         */
+        private void encodeDateTime(final int i, final String dateTime) {
+            if (dateTime != null && dateTime.length() >= DATE_TIME_LENGTH) {
+                try {
+                    final LocalDateTime local = LocalDateTime.parse(dateTime.substring(0, DATE_TIME_LENGTH), DATE_TIME_FORMAT);
+                    dateTimeSeconds[i] = local.toEpochSecond(ZoneOffset.UTC);
+                    dateTimeSuffix[i] = dictionary.encode(dateTime.substring(DATE_TIME_LENGTH));
+                    return;
+                } catch (final DateTimeParseException e) {
+                    // kept as is
+                }
+            }
+            dateTimeSeconds[i] = Long.MIN_VALUE;
+            dateTimeSuffix[i] = dictionary.encode(dateTime);
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity <= size.length) {
+                return;
+            }
+            final int newCapacity = Math.max(capacity, size.length * 2);
+            urlBase = Arrays.copyOf(urlBase, newCapacity);
+            urlPath = Arrays.copyOf(urlPath, newCapacity);
+            name = Arrays.copyOf(name, newCapacity);
+            previewUrl = Arrays.copyOf(previewUrl, newCapacity);
+            dateTimeSeconds = Arrays.copyOf(dateTimeSeconds, newCapacity);
+            dateTimeSuffix = Arrays.copyOf(dateTimeSuffix, newCapacity);
+            dateTimeZone = Arrays.copyOf(dateTimeZone, newCapacity);
+            intervalCaptureGroupId = Arrays.copyOf(intervalCaptureGroupId, newCapacity);
+            compositeShootingGroupId = Arrays.copyOf(compositeShootingGroupId, newCapacity);
+            autoBracketGroupId = Arrays.copyOf(autoBracketGroupId, newCapacity);
+            codec = Arrays.copyOf(codec, newCapacity);
+            size = Arrays.copyOf(size, newCapacity);
+            lat = Arrays.copyOf(lat, newCapacity);
+            lng = Arrays.copyOf(lng, newCapacity);
+            width = Arrays.copyOf(width, newCapacity);
+            height = Arrays.copyOf(height, newCapacity);
+            thumbSize = Arrays.copyOf(thumbSize, newCapacity);
+            recordTime = Arrays.copyOf(recordTime, newCapacity);
+            projectionType = Arrays.copyOf(projectionType, newCapacity);
+        }
+    }
+
+    private final Dictionary dictionary;
+
+    private final StringPool strings;
+
+    private final int count;
+
+    private final int[] urlBase;
+    private final int[] urlPath;
+    private final int[] name;
+    private final int[] previewUrl;
+    private final long[] dateTimeSeconds;
+    private final int[] dateTimeSuffix;
+    private final int[] dateTimeZone;
+    private final int[] intervalCaptureGroupId;
+    private final int[] compositeShootingGroupId;
+    private final int[] autoBracketGroupId;
+    private final int[] codec;
+    private final int[] size;
+    private final int[] lat;
+    private final int[] lng;
+    private final int[] width;
+    private final int[] height;
+    private final int[] thumbSize;
+    private final int[] recordTime;
+    private final byte[] projectionType;
+    private final BitSet processed;
+
+    private FileCatalog(final Builder builder) {
+        final int n = builder.count;
+        this.dictionary = builder.dictionary.build();
+        this.strings = builder.strings.build();
+        this.count = n;
+        this.urlBase = Arrays.copyOf(builder.urlBase, n);
+        this.urlPath = Arrays.copyOf(builder.urlPath, n);
+        this.name = Arrays.copyOf(builder.name, n);
+        this.previewUrl = Arrays.copyOf(builder.previewUrl, n);
+        this.dateTimeSeconds = Arrays.copyOf(builder.dateTimeSeconds, n);
+        this.dateTimeSuffix = Arrays.copyOf(builder.dateTimeSuffix, n);
+        this.dateTimeZone = Arrays.copyOf(builder.dateTimeZone, n);
+        this.intervalCaptureGroupId = Arrays.copyOf(builder.intervalCaptureGroupId, n);
+        this.compositeShootingGroupId = Arrays.copyOf(builder.compositeShootingGroupId, n);
+        this.autoBracketGroupId = Arrays.copyOf(builder.autoBracketGroupId, n);
+        this.codec = Arrays.copyOf(builder.codec, n);
+        this.size = Arrays.copyOf(builder.size, n);
+        this.lat = Arrays.copyOf(builder.lat, n);
+        this.lng = Arrays.copyOf(builder.lng, n);
+        this.width = Arrays.copyOf(builder.width, n);
+        this.height = Arrays.copyOf(builder.height, n);
+        this.thumbSize = Arrays.copyOf(builder.thumbSize, n);
+        this.recordTime = Arrays.copyOf(builder.recordTime, n);
+        this.projectionType = Arrays.copyOf(builder.projectionType, n);
+        this.processed = (BitSet) builder.processed.clone();
+    }
+
+    /**
+     * Number of the files.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the file at the index. New FileInfo is created on each call.
+     *
+     * @param index Index of the file, in the order added.
+     * @return File at the index.
+     * @throws IndexOutOfBoundsException if index is out of range.
+     */
+    @Nonnull
+    public FileInfo get(final int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+        }
+
+        final URL fileUrl = urlBase[index] == NULL ? null : toUrl(dictionary.decode(urlBase[index]) + strings.get(urlPath[index]));
+        final String fileName;
+        if (name[index] == NULL) {
+            fileName = null;
+        } else if (name[index] == DERIVED) {
+            fileName = lastSegment(fileUrl.getPath());
+        } else {
+            fileName = strings.get(name[index]);
+        }
+
+        return new FileInfo(
+                fileName,
+                fileUrl,
+                size[index],
+                dictionary.decode(dateTimeZone[index]),
+                decodeDateTime(index),
+                lat[index],
+                lng[index],
+                width[index],
+                height[index],
+                thumbSize[index],
+                dictionary.decode(intervalCaptureGroupId[index]),
+                dictionary.decode(compositeShootingGroupId[index]),
+                dictionary.decode(autoBracketGroupId[index]),
+                recordTime[index],
+                processed.get(index),
+                previewUrl[index] == NULL ? null : toUrl(strings.get(previewUrl[index])),
+                dictionary.decode(codec[index]),
+                projectionType[index] == 0 ? null : PROJECTION_TYPES[projectionType[index] - 1]);
+    }
+
+    /**
+     * Returns the list view of the catalogue. The files are created on demand.
+     */
+    @Nonnull
+    public List<FileInfo> asList() {
+        return new AbstractList<FileInfo>() {
+            @Override
+            public FileInfo get(final int index) {
+                return FileCatalog.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private String decodeDateTime(final int index) {
+        final String suffix = dictionary.decode(dateTimeSuffix[index]);
+        if (dateTimeSeconds[index] == Long.MIN_VALUE) {
+            return suffix;
+        }
+        return LocalDateTime.ofEpochSecond(dateTimeSeconds[index], 0, ZoneOffset.UTC).format(DATE_TIME_FORMAT) + suffix;
+    }
+
+    private static String lastSegment(final String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static URL toUrl(final String url) {
+        try {
+            return new URL(url);
+        } catch (final MalformedURLException e) {
+            throw new AssertionError(e); // encoded from valid URL
+        }
+    }
+
+    /**
+     * Dictionary of the repetitive strings. The code of null is {@link #NULL}.
+     */
+    private static final class Dictionary {
+        private final String[] values;
+
+        private Dictionary(final String[] values) {
+            this.values = values;
+        }
+
+        String decode(final int code) {
+            return code == NULL ? null : values[code];
+        }
+
+        private static final class Builder {
+            private final List<String> values = new ArrayList<>();
+
+            private final Map<String, Integer> codes = new HashMap<>();
+
+            int encode(final String value) {
+                if (value == null) {
+                    return NULL;
+                }
+                final Integer code = codes.get(value);
+                if (code != null) {
+                    return code;
+                }
+                codes.put(value, values.size());
+                values.add(value);
+                return values.size() - 1;
+            }
+
+            Dictionary build() {
+                return new Dictionary(values.toArray(new String[0]));
+            }
+        }
+    }
+
+    /**
+     * Pool of the unique strings, concatenated in a UTF-8 byte array.
+     */
+    private static final class StringPool {
+        private final byte[] bytes;
+
+        private final int[] offsets;
+
+        private StringPool(final byte[] bytes, final int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+        }
+
+        String get(final int index) {
+            return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+        }
+
+        private static final class Builder {
+            private byte[] bytes = new byte[256];
+
+            private int[] offsets = new int[17];
+
+            private int count;
+
+            int add(final String value) {
+                final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                final int offset = offsets[count];
+                if (offset + encoded.length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(offset + encoded.length, bytes.length * 2));
+                }
+                if (count + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                System.arraycopy(encoded, 0, bytes, offset, encoded.length);
+                offsets[count + 1] = offset + encoded.length;
+                return count++;
+            }
+
+            StringPool build() {
+                return new StringPool(Arrays.copyOf(bytes, offsets[count]), Arrays.copyOf(offsets, count + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Client-side index of the files on THETA.
+ * The index is built by the whole listing once, and then refreshed incrementally by {@link #refresh()}.
+ * The queries are answered from the memory without requests to THETA.
+ * This class is thread-safe.
+ */
+public final class FileIndex {
+    /**
+     * Changes found by {@link FileIndex#refresh()}.
+     */
+    public static final class Changes {
+        private final List<FileInfo> added;
+
+        private final List<FileInfo> removed;
+
+        private Changes(final List<FileInfo> added, final List<FileInfo> removed) {
+            this.added = Collections.unmodifiableList(added);
+            this.removed = Collections.unmodifiableList(removed);
+        }
+
+        /**
+         * Files added since the last refresh, newest first.
+         */
+        @Nonnull
+        public List<FileInfo> getAdded() {
+            return added;
+        }
+
+        /**
+         * Files removed since the last refresh.
+         */
+        @Nonnull
+        public List<FileInfo> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Returns true if any file is added or removed.
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int INCREMENTAL_PAGE_SIZE = 10;
+
+    private static final int CONCURRENCY = 4;
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private final Theta theta;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+
+    private FileIndex(final Theta theta) {
+        this.theta = theta;
+    }
+
+    /**
+     * Create an empty index. Call {@link #refresh()} to build the index.
+     *
+     * @param theta THETA to index.
+     * @return Created instance.
+     * @throws NullPointerException if theta is null.
+     */
+    @Nonnull
+    public static FileIndex create(@Nonnull final Theta theta) {
+        Objects.requireNonNull(theta, "theta can not be null.");
+
+        return new FileIndex(theta);
+    }
+
+    /**
+     * Refresh the index.
+     * The first refresh lists the whole files. The following refreshes list only the files newer than the newest file
+     * in the index, and confirm the total entries. If any file is deleted, the whole files are listed again.
+     *
+     * @return Changes since the last refresh.
+     * @throws IOException          I/O error is occurred.
+     * @throws org.theta4j.osc.OSCException Server returned error response.
+     */
+    @Nonnull
+    public synchronized Changes refresh() throws IOException {
+        final Snapshot current = snapshot;
+        if (!current.files.isEmpty()) {
+            final Changes changes = refreshIncrementally(current);
+            if (changes != null) {
+                return changes;
+            }
+        }
+        return rebuild(current);
+    }
+
+    /**
+     * Files in the index, newest first.
+     */
+    @Nonnull
+    public List<FileInfo> getFiles() {
+        return snapshot.files;
+    }
+
+    /**
+     * Returns the file of the URL, or null if the index does not contain it.
+     *
+     * @param fileUrl URL of the file.
+     * @return File of the URL.
+     * @throws NullPointerException if fileUrl is null.
+     */
+    @Nullable
+    public FileInfo get(@Nonnull final URL fileUrl) {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+
+        return snapshot.byUrl.get(fileUrl);
+    }
+
+    /**
+     * Files of the type, newest first. Videos are distinguished by the file extension.
+     *
+     * @param fileType Type of the files.
+     * @return Files of the type.
+     * @throws NullPointerException if fileType is null.
+     */
+    @Nonnull
+    public List<FileInfo> findByType(@Nonnull final ListFiles.FileType fileType) {
+        Objects.requireNonNull(fileType, "fileType can not be null.");
+
+        switch (fileType) {
+            case IMAGE:
+                return snapshot.images;
+            case VIDEO:
+                return snapshot.videos;
+            default:
+                return snapshot.files;
+        }
+    }
+
+    /**
+     * Files shot in the range of the date time, newest first.
+     * The date time of the file is compared in its own local time.
+     *
+     * @param from Start of the range, inclusive.
+     * @param to   End of the range, exclusive.
+     * @return Files in the range.
+     * @throws NullPointerException if from or to is null.
+     */
+    @Nonnull
+    public List<FileInfo> findByDateTime(@Nonnull final LocalDateTime from, @Nonnull final LocalDateTime to) {
+        Objects.requireNonNull(from, "from can not be null.");
+        Objects.requireNonNull(to, "to can not be null.");
+
+        final List<FileInfo> found = new ArrayList<>();
+        for (final FileInfo file : snapshot.files) {
+            final LocalDateTime dateTime = parseDateTime(file.getDateTime());
+            if (dateTime != null && !dateTime.isBefore(from) && dateTime.isBefore(to)) {
+                found.add(file);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Files shot by the interval shooting of the group, newest first.
+     *
+     * @param groupId Group ID of the interval shooting.
+     * @return Files of the group.
+     * @throws NullPointerException if groupId is null.
+     */
+    @Nonnull
+    public List<FileInfo> findByIntervalCaptureGroupId(@Nonnull final String groupId) {
+        Objects.requireNonNull(groupId, "groupId can not be null.");
+
+        return snapshot.byIntervalCaptureGroupId.getOrDefault(groupId, Collections.emptyList());
+    }
+
+    /**
+     * Files shot by the multi bracket shooting of the group, newest first.
+     *
+     * @param groupId Group ID of the multi bracket shooting.
+     * @return Files of the group.
+     * @throws NullPointerException if groupId is null.
+     */
+    @Nonnull
+    public List<FileInfo> findByAutoBracketGroupId(@Nonnull final String groupId) {
+        Objects.requireNonNull(groupId, "groupId can not be null.");
+
+        return snapshot.byAutoBracketGroupId.getOrDefault(groupId, Collections.emptyList());
+    }
+
+    /**
+     * Files shot by the interval composite shooting of the group, newest first.
+     *
+     * @param groupId Group ID of the interval composite shooting.
+     * @return Files of the group.
+     * @throws NullPointerException if groupId is null.
+     */
+    @Nonnull
+    public List<FileInfo> findByCompositeShootingGroupId(@Nonnull final String groupId) {
+        Objects.requireNonNull(groupId, "groupId can not be null.");
+
+        return snapshot.byCompositeShootingGroupId.getOrDefault(groupId, Collections.emptyList());
+    }
+
+    /**
+     * List the files from the newest until the newest file of the index appears.
+     *
+     * @return Changes, or null if the index can not be refreshed incrementally.
+     */
+    private Changes refreshIncrementally(final Snapshot current) throws IOException {
+        final URL newestUrl = current.files.get(0).getFileUrl();
+
+        final List<FileInfo> added = new ArrayList<>();
+        int entryCount = INCREMENTAL_PAGE_SIZE;
+        for (int position = 0; ; position += entryCount, entryCount = Math.min(entryCount * 2, PAGE_SIZE)) {
+            final ListFiles.Result result = ListFilesIterator.getResult(theta, theta.listFiles(page(position, entryCount)));
+            for (final FileInfo file : result.getEntries()) {
+                if (file.getFileUrl().equals(newestUrl)) {
+                    // Deletion is detected by the total entries.
+                    if (result.getTotalEntries() != current.files.size() + added.size()) {
+                        return null;
+                    }
+                    if (added.isEmpty()) {
+                        return new Changes(Collections.emptyList(), Collections.emptyList());
+                    }
+                    final List<FileInfo> files = new ArrayList<>(added.size() + current.files.size());
+                    files.addAll(added);
+                    files.addAll(current.files);
+                    snapshot = new Snapshot(files);
+                    return new Changes(added, Collections.emptyList());
+                }
+                if (current.byUrl.containsKey(file.getFileUrl())) {
+                    return null; // the newest file is deleted.
+                }
+                added.add(file);
+            }
+            if (result.getEntries().isEmpty() || position + result.getEntries().size() >= result.getTotalEntries()) {
+                return null; // the newest file is deleted.
+            }
+        }
+    }
+
+    private Changes rebuild(final Snapshot current) throws IOException {
+        final List<FileInfo> files = theta.listAllFiles(page(0, PAGE_SIZE), CONCURRENCY);
+        final Snapshot next = new Snapshot(files);
+
+        final List<FileInfo> added = files.stream()
+                .filter(file -> !current.byUrl.containsKey(file.getFileUrl()))
+                .collect(Collectors.toList());
+        final List<FileInfo> removed = current.files.stream()
+                .filter(file -> !next.byUrl.containsKey(file.getFileUrl()))
+                .collect(Collectors.toList());
+
+        snapshot = next;
+        return new Changes(added, removed);
+    }
+
+    private static ListFiles.Parameter page(final int position, final int entryCount) {
+        return new ListFiles.Parameter(ListFiles.FileType.ALL, position, null, entryCount, null, true, ListFiles.SortOrder.NEWEST);
+    }
+
+    private static LocalDateTime parseDateTime(final String dateTime) {
+        // "2015:07:10 11:05:18+09:00" or "2015:07:10 11:05:18"
+        if (dateTime == null || dateTime.length() < 19) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(dateTime.substring(0, 19), DATE_TIME_FORMAT);
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isVideo(final FileInfo file) {
+        final String name = file.getName();
+        return name != null && (name.toUpperCase(Locale.US).endsWith(".MP4") || name.toUpperCase(Locale.US).endsWith(".MOV"));
+    }
+
+    /**
+     * Immutable state of the index.
+     */
+    private static final class Snapshot {
+        private final List<FileInfo> files;
+
+        private final List<FileInfo> images;
+
+        private final List<FileInfo> videos;
+
+        private final Map<URL, FileInfo> byUrl;
+
+        private final Map<String, List<FileInfo>> byIntervalCaptureGroupId;
+
+        private final Map<String, List<FileInfo>> byAutoBracketGroupId;
+
+        private final Map<String, List<FileInfo>> byCompositeShootingGroupId;
+
+        private Snapshot(final List<FileInfo> files) {
+            this.files = Collections.unmodifiableList(new ArrayList<>(files));
+            this.images = Collections.unmodifiableList(files.stream().filter(file -> !isVideo(file)).collect(Collectors.toList()));
+            this.videos = Collections.unmodifiableList(files.stream().filter(FileIndex::isVideo).collect(Collectors.toList()));
+            this.byUrl = new HashMap<>(files.size() * 2);
+            for (final FileInfo file : files) {
+                byUrl.put(file.getFileUrl(), file);
+            }
+            this.byIntervalCaptureGroupId = groupBy(files, FileInfo::getIntervalCaptureGroupId);
+            this.byAutoBracketGroupId = groupBy(files, FileInfo::getAutoBracketGroupId);
+            this.byCompositeShootingGroupId = groupBy(files, FileInfo::getCompositeShootingGroupId);
+        }
+
+        private static Map<String, List<FileInfo>> groupBy(final List<FileInfo> files, final Function<FileInfo, String> groupId) {
+            final Map<String, List<FileInfo>> groups = new HashMap<>();
+            for (final FileInfo file : files) {
+                final String id = groupId.apply(file);
+                if (id != null && !id.isEmpty()) {
+                    groups.computeIfAbsent(id, key -> new ArrayList<>()).add(file);
+                }
+            }
+            groups.replaceAll((key, list) -> Collections.unmodifiableList(list));
+            return groups;
+        }
+    }
+}
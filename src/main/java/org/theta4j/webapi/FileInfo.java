@@ -21,7 +21,9 @@ import com.google.gson.annotations.SerializedName;
 import org.theta4j.osc.GsonUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -63,7 +65,9 @@ public final class FileInfo {
 
     private int height;
 
-    private String thumbnail;
+    // Kept as ASCII bytes, and decoded on demand.
+    @JsonAdapter(Base64Bytes.Adapter.class)
+    private Base64Bytes thumbnail;
 
     @SerializedName("_thumbSize")
     private int thumbSize;
@@ -91,6 +95,55 @@ public final class FileInfo {
     @SerializedName("_projectionType")
     private ProjectionType projectionType;
 
+    /**
+     * for GSON
+     */
+    private FileInfo() {
+    }
+
+    /**
+     * for {@link FileCatalog}. The thumbnail is not kept.
+     */
+    FileInfo(
+            final String name,
+            final URL fileUrl,
+            final int size,
+            final String dateTimeZone,
+            final String dateTime,
+            final int lat,
+            final int lng,
+            final int width,
+            final int height,
+            final int thumbSize,
+            final String intervalCaptureGroupId,
+            final String compositeShootingGroupId,
+            final String autoBracketGroupId,
+            final int recordTime,
+            final boolean isProcessed,
+            final URL previewUrl,
+            final String codec,
+            final ProjectionType projectionType
+    ) {
+        this.name = name;
+        this.fileUrl = fileUrl;
+        this.size = size;
+        this.dateTimeZone = dateTimeZone;
+        this.dateTime = dateTime;
+        this.lat = lat;
+        this.lng = lng;
+        this.width = width;
+        this.height = height;
+        this.thumbSize = thumbSize;
+        this.intervalCaptureGroupId = intervalCaptureGroupId;
+        this.compositeShootingGroupId = compositeShootingGroupId;
+        this.autoBracketGroupId = autoBracketGroupId;
+        this.recordTime = recordTime;
+        this.isProcessed = isProcessed;
+        this.previewUrl = previewUrl;
+        this.codec = codec;
+        this.projectionType = projectionType;
+    }
+
     // Getter
 
     /**
@@ -159,9 +212,41 @@ public final class FileInfo {
     /**
      * Thumbnail data encoded in Base64.
      * Can be acquired when {@link Theta#listFiles(ListFiles.Parameter)} is executed with maxThumbSize option.
+     * The String is created on each call. Use {@link #decodeThumbnail(ByteBuffer)} to get the image bytes.
      */
     public String getThumbnail() {
-        return thumbnail;
+        return thumbnail == null ? null : thumbnail.toString();
+    }
+
+    /**
+     * Returns true if the thumbnail is acquired.
+     */
+    public boolean hasThumbnail() {
+        return thumbnail != null;
+    }
+
+    /**
+     * Decode the thumbnail into the buffer.
+     * The buffer is reused if it has enough capacity, otherwise new heap buffer is allocated.
+     * The returned buffer is flipped, the decoded bytes are between its position and limit.
+     * This method does not create the String of {@link #getThumbnail()}.
+     *
+     * @param buffer Buffer to reuse. Set null to allocate new buffer.
+     * @return Buffer holding the decoded thumbnail, or null if the thumbnail is not acquired.
+     * @throws IllegalArgumentException if the thumbnail is not valid Base64.
+     */
+    @Nullable
+    public ByteBuffer decodeThumbnail(@Nullable final ByteBuffer buffer) {
+        if (thumbnail == null) {
+            return null;
+        }
+
+        final int maxLength = thumbnail.maxDecodedLength();
+        final ByteBuffer dst = buffer != null && buffer.capacity() >= maxLength ? buffer : ByteBuffer.allocate(maxLength);
+        dst.clear();
+        thumbnail.decode(dst);
+        dst.flip();
+        return dst;
     }
 
     /**
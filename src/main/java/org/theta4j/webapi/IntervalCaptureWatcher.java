@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.DownloadResult;
+import org.theta4j.osc.OSCState;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IntervalCaptureWatcher ingests the files while THETA is shooting, e.g. by the interval shooting.
+ * The watcher follows {@link ThetaState#getLatestFileUrl()}, and the state is fetched only when the fingerprint is changed.
+ * THETA updates the latest file URL after the file is written, so each new file is streamed to the sink at once.
+ * The files written between two polls are found by the file list, so no file is missed with a long polling interval.
+ * The files are delivered to the sink one by one in the shooting order.
+ * This class is thread-safe.
+ */
+public final class IntervalCaptureWatcher implements Closeable {
+    private static final int PAGE_SIZE = 20;
+
+    // Pages searched for the last latest file. More files between two polls are not expected.
+    private static final int MAX_PAGES = 10;
+
+    /**
+     * Sink of the ingested files.
+     * The methods are called on the download thread, one file at a time, except {@link #onPollError(IOException)}.
+     */
+    public interface Sink {
+        /**
+         * Open the stream to write the file. The stream is closed after the file is written.
+         *
+         * @param fileUrl URL of the file to ingest.
+         * @return Stream to write the file.
+         * @throws IOException I/O error is occurred.
+         */
+        @Nonnull
+        OutputStream open(@Nonnull URL fileUrl) throws IOException;
+
+        /**
+         * Called when the file is written to the stream.
+         *
+         * @param fileUrl URL of the ingested file.
+         * @param result  Byte count and elapsed time of the download.
+         */
+        default void onComplete(@Nonnull URL fileUrl, @Nonnull DownloadResult result) {
+        }
+
+        /**
+         * Called when the ingestion of the file is failed. The following files are still ingested.
+         *
+         * @param fileUrl URL of the file failed to ingest.
+         * @param e       The cause of the failure.
+         */
+        default void onError(@Nonnull URL fileUrl, @Nonnull IOException e) {
+        }
+
+        /**
+         * Called on the polling thread when the check for the new files is failed.
+         * The files are not lost, they are found by the next poll.
+         * The unchecked exception is wrapped in IOException.
+         *
+         * @param e The cause of the failure.
+         */
+        default void onPollError(@Nonnull IOException e) {
+        }
+
+        /**
+         * Returns a sink which saves the files in the directory by their names,
+         * in the subdirectories named by their folders, e.g. "100RICOH/R0010001.JPG".
+         *
+         * @param directory Directory to save the files.
+         * @return Created sink.
+         * @throws NullPointerException if directory is null.
+         */
+        @Nonnull
+        static Sink directory(@Nonnull final Path directory) {
+            Objects.requireNonNull(directory, "directory can not be null.");
+
+            return fileUrl -> {
+                final Path path = LocalPath.resolve(directory, fileUrl);
+                Files.createDirectories(path.getParent());
+                return Files.newOutputStream(path);
+            };
+        }
+    }
+
+    /**
+     * Builder of {@link IntervalCaptureWatcher}.
+     */
+    public static final class Builder {
+        private final Theta theta;
+
+        private final Sink sink;
+
+        private long pollingIntervalMillis = 500;
+
+        /**
+         * Create new builder.
+         *
+         * @param theta THETA to watch.
+         * @param sink  Sink of the ingested files.
+         * @throws NullPointerException if theta or sink is null.
+         */
+        public Builder(@Nonnull final Theta theta, @Nonnull final Sink sink) {
+            this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+            this.sink = Objects.requireNonNull(sink, "sink can not be null.");
+        }
+
+        /**
+         * Set interval of the fingerprint checks. Default is 500 milliseconds.
+         *
+         * @param pollingInterval interval of the checks.
+         * @param unit            unit of pollingInterval.
+         * @return Builder instance.
+         * @throws NullPointerException     if unit is null.
+         * @throws IllegalArgumentException if pollingInterval is not positive.
+         */
+        @Nonnull
+        public Builder pollingInterval(final long pollingInterval, @Nonnull final TimeUnit unit) {
+            Objects.requireNonNull(unit, "unit can not be null.");
+            if (pollingInterval <= 0) {
+                throw new IllegalArgumentException("pollingInterval must be positive.");
+            }
+            this.pollingIntervalMillis = Math.max(1, unit.toMillis(pollingInterval));
+            return this;
+        }
+
+        /**
+         * Build {@link IntervalCaptureWatcher}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public IntervalCaptureWatcher build() {
+            return new IntervalCaptureWatcher(this);
+        }
+    }
+
+    private final Theta theta;
+
+    private final Sink sink;
+
+    private final long pollingIntervalMillis;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> newDaemonThread(runnable, "theta4j-interval-poller"));
+
+    private final ExecutorService downloader = Executors.newSingleThreadExecutor(runnable -> newDaemonThread(runnable, "theta4j-interval-download"));
+
+    private final AtomicInteger ingestedCount = new AtomicInteger();
+
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    private final AtomicLong checkCount = new AtomicLong();
+
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    // guarded by this. null until started.
+    private String fingerprint;
+
+    // guarded by this. URL of the newest file ingested or present at the start.
+    private String latestFileUrl;
+
+    // guarded by this. Date time of the newest file listed, or null if unknown.
+    private String latestDateTime;
+
+    private IntervalCaptureWatcher(final Builder builder) {
+        this.theta = builder.theta;
+        this.sink = builder.sink;
+        this.pollingIntervalMillis = builder.pollingIntervalMillis;
+    }
+
+    /**
+     * Start watching. The files written before this call are not ingested.
+     *
+     * @return This instance.
+     * @throws IOException           I/O error is occurred on the initial state.
+     * @throws IllegalStateException if this watcher is already started or closed.
+     */
+    @Nonnull
+    public synchronized IntervalCaptureWatcher start() throws IOException {
+        if (fingerprint != null || poller.isShutdown()) {
+            throw new IllegalStateException("watcher is already started or closed.");
+        }
+        final OSCState<ThetaState> state = fetch();
+        // The latest file URL of the state is empty after the power on, so the newest file is taken from the file list.
+        final ListFiles.Parameter parameter = new ListFiles.Parameter.Builder(1)
+                .detail(false)
+                .sortType(ListFiles.SortOrder.NEWEST)
+                .build();
+        final List<FileInfo> newest = ListFilesIterator.getResult(theta, theta.listFiles(parameter)).getEntries();
+        latestFileUrl = newest.isEmpty() ? null : newest.get(0).getFileUrl().toString();
+        latestDateTime = newest.isEmpty() ? null : dateTime(newest.get(0));
+        fingerprint = state.getFingerprint();
+        poller.scheduleWithFixedDelay(this::pollQuietly, pollingIntervalMillis, pollingIntervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Number of the files written to the sink.
+     */
+    public int getIngestedCount() {
+        return ingestedCount.get();
+    }
+
+    /**
+     * Number of the files failed to ingest.
+     */
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Number of the checkForUpdates requests.
+     */
+    public long getCheckCount() {
+        return checkCount.get();
+    }
+
+    /**
+     * Number of the state requests, including the initial state.
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * Stop watching. The state is checked at the last, and this method waits until all the found files are ingested.
+     * Call this method after the shooting is stopped, e.g. by {@link Theta#stopCapture()}.
+     *
+     * @throws IOException            I/O error is occurred on the last check.
+     * @throws InterruptedIOException if the current thread is interrupted.
+     */
+    @Override
+    public void close() throws IOException {
+        poller.shutdown();
+        try {
+            poller.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            try {
+                poll();
+            } finally {
+                downloader.shutdown();
+                downloader.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            poller.shutdownNow();
+            downloader.shutdownNow();
+            throw new InterruptedIOException("interrupted while closing the watcher.");
+        }
+    }
+
+    private OSCState<ThetaState> fetch() throws IOException {
+        fetchCount.incrementAndGet();
+        return theta.state();
+    }
+
+    /**
+     * Poll, and report any failure to the sink.
+     * The exception must not escape, otherwise the scheduled executor cancels the polling silently.
+     */
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (final IOException e) {
+            notifyPollError(e);
+        } catch (final RuntimeException e) {
+            notifyPollError(new IOException("failed to check the new files.", e));
+        }
+    }
+
+    private void notifyPollError(final IOException e) {
+        try {
+            sink.onPollError(e);
+        } catch (final RuntimeException ignored) {
+            // Nothing to report to. Keep polling.
+        }
+    }
+
+    private synchronized void poll() throws IOException {
+        if (fingerprint == null) {
+            return; // not started
+        }
+        checkCount.incrementAndGet();
+        final String updated = theta.checkForUpdate(fingerprint);
+        if (updated.equals(fingerprint)) {
+            return;
+        }
+        final OSCState<ThetaState> state = fetch();
+        final URL latest = state.getState().getLatestFileUrl();
+        if (latest != null && !latest.toString().equals(latestFileUrl)) {
+            for (final URL fileUrl : newFiles(latest)) {
+                downloader.execute(() -> ingest(fileUrl));
+            }
+            latestFileUrl = latest.toString();
+        }
+        fingerprint = state.getFingerprint();
+    }
+
+    /**
+     * Returns the files written after the last latest file, in the shooting order.
+     * All the files are new if there was no file.
+     * The search for the last latest file stops at the first older file, or after {@link #MAX_PAGES} pages.
+     */
+    private List<URL> newFiles(final URL latest) throws IOException {
+        final List<URL> files = new ArrayList<>();
+        final ListFiles.Parameter parameter = new ListFiles.Parameter.Builder(PAGE_SIZE)
+                .detail(false)
+                .sortType(ListFiles.SortOrder.NEWEST)
+                .build();
+        boolean found = false;
+        String newestDateTime = null;
+        try (final ListFilesIterator iterator = theta.iterateFiles(parameter)) {
+            for (int i = 0; i < MAX_PAGES * PAGE_SIZE && iterator.hasNext(); i++) {
+                final FileInfo file = iterator.next();
+                final String dateTime = dateTime(file);
+                if (i == 0) {
+                    newestDateTime = dateTime;
+                }
+                if (file.getFileUrl().toString().equals(latestFileUrl)) {
+                    found = true;
+                    break;
+                }
+                if (dateTime != null && latestDateTime != null && dateTime.compareTo(latestDateTime) < 0) {
+                    break; // The files are sorted by the date time, so the last latest file is not in the rest.
+                }
+                files.add(file.getFileUrl());
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        latestDateTime = newestDateTime;
+        if (!found && latestFileUrl != null) {
+            // The last latest file is deleted, so the files between are unknown.
+            files.clear();
+            files.add(latest);
+        }
+        Collections.reverse(files);
+        return files;
+    }
+
+    /**
+     * Returns the local date time of the file such as "2019:01:01 12:00:00", or null if not listed.
+     */
+    private static String dateTime(final FileInfo file) {
+        final String dateTime = file.getDateTime() != null ? file.getDateTime() : file.getDateTimeZone();
+        // "yyyy:MM:dd HH:mm:ss" is compared as a string, without the time zone of dateTimeZone.
+        return dateTime == null || dateTime.length() < 19 ? null : dateTime.substring(0, 19);
+    }
+
+    private void ingest(final URL fileUrl) {
+        try {
+            final DownloadResult result;
+            try (final OutputStream out = sink.open(fileUrl)) {
+                result = theta.download(fileUrl, out);
+            }
+            ingestedCount.incrementAndGet();
+            sink.onComplete(fileUrl, result);
+        } catch (final IOException e) {
+            failedCount.incrementAndGet();
+            sink.onError(fileUrl, e);
+        }
+    }
+
+    private static Thread newDaemonThread(final Runnable runnable, final String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -16,6 +16,10 @@
 
 package org.theta4j.webapi;
 
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
 
 import javax.annotation.Nonnull;
@@ -86,6 +90,9 @@ public final class ListFiles {
         @SerializedName("_sort")
         private SortOrder sortOrder;
 
+        // not sent to THETA
+        private transient boolean thumbnailSkipped;
+
         /**
          * Create new parameter.
          *
@@ -133,6 +140,8 @@ public final class ListFiles {
 
             private SortOrder sortOrder;
 
+            private boolean thumbnailSkipped = false;
+
             /**
              * Create new builder.
              *
@@ -180,6 +189,20 @@ public final class ListFiles {
                 return this;
             }
 
+            /**
+             * Set whether the thumbnails in the response are skipped. Default is false.
+             * The skipped thumbnails are passed over by the parser, and their Base64 text is never held in memory.
+             * The acquired entries have no thumbnail.
+             *
+             * @param thumbnailSkipped true to skip the thumbnails.
+             * @return Builder instance.
+             */
+            @Nonnull
+            public Builder skipThumbnail(final boolean thumbnailSkipped) {
+                this.thumbnailSkipped = thumbnailSkipped;
+                return this;
+            }
+
             /**
              * Set detail option.
              *
@@ -207,10 +230,21 @@ public final class ListFiles {
 
             @Nonnull
             public Parameter build() {
-                return new Parameter(fileType, startPosition, startFileUrl, entryCount, maxThumbSize, detail, sortOrder);
+                final Parameter parameter = new Parameter(fileType, startPosition, startFileUrl, entryCount, maxThumbSize, detail, sortOrder);
+                parameter.thumbnailSkipped = thumbnailSkipped;
+                return parameter;
             }
         }
 
+        /**
+         * Copy of this parameter for the page at the position.
+         */
+        Parameter page(final int startPosition, final int entryCount) {
+            final Parameter parameter = new Parameter(fileType, startPosition, null, entryCount, maxThumbSize, detail, sortOrder);
+            parameter.thumbnailSkipped = thumbnailSkipped;
+            return parameter;
+        }
+
         /**
          * File type.
          */
@@ -250,6 +284,13 @@ public final class ListFiles {
             return maxThumbSize;
         }
 
+        /**
+         * Whether the thumbnails in the response are skipped.
+         */
+        public boolean isThumbnailSkipped() {
+            return thumbnailSkipped;
+        }
+
         /**
          * If set to "false", "name", "fileUrl", "size", and "dateTime" can only be acquired.
          */
@@ -299,6 +340,24 @@ public final class ListFiles {
         }
     }
 
+    /**
+     * GSON type adapter of {@link Result} passing over the thumbnails of the entries with {@link com.google.gson.stream.JsonReader#skipValue()}.
+     */
+    static final TypeAdapter<Result> THUMBNAIL_SKIPPING_ADAPTER = new GsonBuilder()
+            .addDeserializationExclusionStrategy(new ExclusionStrategy() {
+                @Override
+                public boolean shouldSkipField(final FieldAttributes f) {
+                    return f.getDeclaringClass() == FileInfo.class && f.getName().equals("thumbnail");
+                }
+
+                @Override
+                public boolean shouldSkipClass(final Class<?> clazz) {
+                    return false;
+                }
+            })
+            .create()
+            .getAdapter(Result.class);
+
     private ListFiles() {
         throw new AssertionError();
     }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.CommandResponse;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterator over the whole file list of THETA.
+ * The pages are requested by camera.listFiles with the increasing startPosition.
+ * The next page is prefetched in background while the current page is consumed,
+ * and the entry count of a page is tuned so that a page takes about {@link #TARGET_PAGE_NANOS}.
+ * <p>
+ * The I/O errors are thrown as {@link UncheckedIOException}.
+ * You should call {@link #close()} to cancel the prefetch if you stop iterating before the end.
+ * This class is not thread-safe.
+ *
+ * @see Theta#iterateFiles(ListFiles.Parameter)
+ * @see Theta#streamFiles(ListFiles.Parameter)
+ */
+public final class ListFilesIterator implements Iterator<FileInfo>, Closeable {
+    private static final int MIN_ENTRY_COUNT = 10;
+
+    private static final int MAX_ENTRY_COUNT = 1000;
+
+    private static final long TARGET_PAGE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final Theta theta;
+
+    private final ListFiles.Parameter parameter;
+
+    private int entryCount;
+
+    // position of the page to request next
+    private int position;
+
+    private Iterator<FileInfo> page = Collections.emptyIterator();
+
+    // HTTP call of the next page, cancelled on close.
+    private CompletableFuture<CommandResponse<ListFiles.Result>> nextCall;
+
+    // response time of the next page in nano seconds.
+    private CompletableFuture<Long> nextElapsed;
+
+    ListFilesIterator(@Nonnull final Theta theta, @Nonnull final ListFiles.Parameter parameter) {
+        this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+        this.parameter = Objects.requireNonNull(parameter, "parameter can not be null.");
+        this.entryCount = Math.max(MIN_ENTRY_COUNT, Math.min(MAX_ENTRY_COUNT, parameter.getEntryCount()));
+        this.position = parameter.getStartPosition() != null ? parameter.getStartPosition() : 0;
+        requestNext();
+    }
+
+    /**
+     * Returns true if the iteration has more files.
+     *
+     * @throws UncheckedIOException I/O error is occurred.
+     */
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (nextCall == null) {
+                return false;
+            }
+            final ListFiles.Result result = awaitNext();
+            final List<FileInfo> entries = result.getEntries();
+            position += entries.size();
+            if (entries.isEmpty() || position >= result.getTotalEntries()) {
+                nextCall = null;
+            } else {
+                requestNext();
+            }
+            page = entries.iterator();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next file.
+     *
+     * @throws UncheckedIOException   I/O error is occurred.
+     * @throws NoSuchElementException if the iteration has no more files.
+     */
+    @Override
+    @Nonnull
+    public FileInfo next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Cancel the prefetch.
+     */
+    @Override
+    public void close() {
+        if (nextCall != null) {
+            nextCall.cancel(true);
+            nextCall = null;
+        }
+        page = Collections.emptyIterator();
+    }
+
+    private void requestNext() {
+        final ListFiles.Parameter pageParameter = parameter.page(position, entryCount);
+        final long requestedAt = System.nanoTime();
+        nextCall = theta.listFilesAsync(pageParameter);
+        nextElapsed = nextCall.thenApply(response -> System.nanoTime() - requestedAt);
+    }
+
+    private ListFiles.Result awaitNext() {
+        CommandResponse<ListFiles.Result> response;
+        try {
+            response = nextCall.get();
+            adaptEntryCount(nextElapsed.get());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("interrupted while listing files."));
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw new UncheckedIOException(new IOException(cause));
+        }
+
+        try {
+            return getResult(theta, response);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the result of camera.listFiles, polling the status while it is in progress.
+     */
+    static ListFiles.Result getResult(final Theta theta, final CommandResponse<ListFiles.Result> response) throws IOException {
+        return theta.awaitDone(response).getResult();
+    }
+
+    /**
+     * Double the entry count if a page is much faster than the target, and halve it if much slower.
+     */
+    private void adaptEntryCount(final long elapsedNanos) {
+        if (elapsedNanos < TARGET_PAGE_NANOS / 2) {
+            entryCount = Math.min(MAX_ENTRY_COUNT, entryCount * 2);
+        } else if (elapsedNanos > TARGET_PAGE_NANOS * 2) {
+            entryCount = Math.max(MIN_ENTRY_COUNT, entryCount / 2);
+        }
+    }
+}
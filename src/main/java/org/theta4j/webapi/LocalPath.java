@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+/**
+ * Local path of a file of THETA in a directory.
+ * The file names repeat across the folders of THETA, e.g. after the folder rollover,
+ * so a file is stored in the subdirectory named by its folder, e.g. "100RICOH/R0010001.JPG".
+ * The folder and the name come from the camera, so the path is normalized and the path outside the directory is rejected.
+ */
+final class LocalPath {
+    /**
+     * Returns the local path of the file.
+     *
+     * @throws IOException if the name or the folder is not a plain file name, or the path is outside the directory.
+     */
+    static Path resolve(final Path directory, final FileInfo file) throws IOException {
+        return resolve(directory, file.getFileUrl(), file.getName());
+    }
+
+    /**
+     * Returns the local path of the file URL, named by the last segment of the URL.
+     *
+     * @throws IOException if the name or the folder is not a plain file name, or the path is outside the directory.
+     */
+    static Path resolve(final Path directory, final URL fileUrl) throws IOException {
+        final String path = fileUrl.getPath();
+        return resolve(directory, fileUrl, path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private static Path resolve(final Path directory, final URL fileUrl, final String name) throws IOException {
+        final String urlPath = fileUrl.getPath();
+        final int nameStart = urlPath.lastIndexOf('/');
+        final int folderStart = nameStart > 0 ? urlPath.lastIndexOf('/', nameStart - 1) : -1;
+        final String folder = nameStart > 0 ? urlPath.substring(folderStart + 1, nameStart) : "";
+
+        check(fileUrl, name);
+        Path path = directory;
+        try {
+            if (!folder.isEmpty()) {
+                check(fileUrl, folder);
+                path = path.resolve(folder);
+            }
+            path = path.resolve(name).normalize();
+        } catch (final InvalidPathException e) {
+            throw new IOException("invalid local path of " + fileUrl, e);
+        }
+
+        if (!path.startsWith(directory.normalize()) || path.equals(directory.normalize())) {
+            throw new IOException("local path of " + fileUrl + " is outside of " + directory);
+        }
+        return path;
+    }
+
+    private static void check(final URL fileUrl, final String segment) throws IOException {
+        if (segment.isEmpty() || segment.equals(".") || segment.equals("..")
+                || segment.indexOf('/') != -1 || segment.indexOf('\\') != -1 || segment.indexOf('\0') != -1) {
+            throw new IOException("invalid file name \"" + segment + "\" of " + fileUrl);
+        }
+    }
+
+    private LocalPath() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.CommandResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Listing of the whole file list with the concurrent page requests.
+ * The first page tells the total entries, then the remaining pages are requested concurrently by their startPosition,
+ * and merged back in the order of the position.
+ * <p>
+ * If a file is added or deleted during the scan, the positions are shifted and the pages overlap or leave a gap.
+ * That is detected by the change of totalEntries, a short page, or a duplicated file URL, and the scan is retried.
+ */
+final class ParallelListFiles {
+    private static final int MAX_ATTEMPTS = 3;
+
+    static List<FileInfo> list(final Theta theta, final ListFiles.Parameter parameter, final int concurrency) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            final List<FileInfo> files = scan(theta, parameter, concurrency);
+            if (files != null) {
+                return files;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IOException("file list is changed during the scan " + MAX_ATTEMPTS + " times.");
+            }
+        }
+    }
+
+    /**
+     * Scan the file list.
+     *
+     * @return Files, or null if the file list is changed during the scan.
+     */
+    private static List<FileInfo> scan(final Theta theta, final ListFiles.Parameter parameter, final int concurrency) throws IOException {
+        final int startPosition = parameter.getStartPosition() != null ? parameter.getStartPosition() : 0;
+        final int entryCount = parameter.getEntryCount();
+
+        final ListFiles.Result first = ListFilesIterator.getResult(theta, theta.listFiles(page(parameter, startPosition)));
+        final int totalEntries = first.getTotalEntries();
+
+        final List<CompletableFuture<CommandResponse<ListFiles.Result>>> futures = new ArrayList<>();
+        final Semaphore semaphore = new Semaphore(concurrency);
+        try {
+            for (int position = startPosition + entryCount; position < totalEntries; position += entryCount) {
+                semaphore.acquire();
+                final CompletableFuture<CommandResponse<ListFiles.Result>> future = theta.listFilesAsync(page(parameter, position));
+                future.whenComplete((response, e) -> semaphore.release());
+                futures.add(future);
+            }
+
+            final List<ListFiles.Result> pages = new ArrayList<>(futures.size() + 1);
+            pages.add(first);
+            for (final CompletableFuture<CommandResponse<ListFiles.Result>> future : futures) {
+                pages.add(ListFilesIterator.getResult(theta, future.get()));
+            }
+            return merge(pages, totalEntries, Math.max(totalEntries - startPosition, 0), entryCount);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while listing files.");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (final CompletableFuture<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Merge the pages in the order.
+     *
+     * @return Files, or null if the pages are inconsistent.
+     */
+    private static List<FileInfo> merge(final List<ListFiles.Result> pages, final int totalEntries, final int expectedCount, final int entryCount) {
+        final List<FileInfo> files = new ArrayList<>(expectedCount);
+        final Set<URL> fileUrls = new HashSet<>(expectedCount * 2);
+        for (int i = 0; i < pages.size(); i++) {
+            final ListFiles.Result page = pages.get(i);
+            if (page.getTotalEntries() != totalEntries) {
+                return null; // files are added or deleted.
+            }
+            if (i < pages.size() - 1 && page.getEntries().size() != entryCount) {
+                return null; // a gap
+            }
+            for (final FileInfo file : page.getEntries()) {
+                if (!fileUrls.add(file.getFileUrl())) {
+                    return null; // an overlap
+                }
+                files.add(file);
+            }
+        }
+        if (files.size() != expectedCount) {
+            return null;
+        }
+        return files;
+    }
+
+    private static ListFiles.Parameter page(final ListFiles.Parameter parameter, final int position) {
+        return parameter.page(position, parameter.getEntryCount());
+    }
+
+    private ParallelListFiles() {
+        throw new AssertionError();
+    }
+}
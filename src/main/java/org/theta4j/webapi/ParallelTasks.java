@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers to run the tasks on the daemon threads, and to wait for them with the exceptions of the synchronous API.
+ */
+final class ParallelTasks {
+    /**
+     * Task for an item.
+     *
+     * @param <T> Type of the item.
+     */
+    @FunctionalInterface
+    interface Task<T> {
+        void run(T item) throws IOException;
+    }
+
+    /**
+     * Create fixed size thread pool of the daemon threads with the name.
+     */
+    static ExecutorService newExecutor(final int threads, final String name) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run the task for each item on up to concurrency threads, and wait for all of them.
+     * The first exception thrown by the tasks is rethrown after the other tasks are cancelled.
+     *
+     * @param action Description of the tasks for the message of {@link InterruptedIOException}, e.g. "downloading".
+     * @throws InterruptedIOException if the current thread is interrupted.
+     */
+    static <T> void forEach(final Collection<T> items, final int concurrency, final String name, final String action, final Task<T> task) throws IOException {
+        final ExecutorService executor = newExecutor(Math.min(concurrency, Math.max(items.size(), 1)), name);
+        try {
+            final List<Future<?>> futures = new ArrayList<>(items.size());
+            for (final T item : items) {
+                futures.add(executor.submit(() -> {
+                    task.run(item);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                get(future, action);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for the future, and rethrow the cause of its failure as it is.
+     *
+     * @param action Description of the task for the message of {@link InterruptedIOException}, e.g. "downloading".
+     * @throws InterruptedIOException if the current thread is interrupted.
+     */
+    static <T> T get(final Future<T> future, final String action) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while " + action + ".");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    private ParallelTasks() {
+        throw new AssertionError();
+    }
+}
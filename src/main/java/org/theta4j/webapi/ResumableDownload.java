@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.DownloadResult;
+import org.theta4j.osc.OSCClient;
+import org.theta4j.osc.RangeNotSupportedException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable download.
+ * The bytes are written to "name.part" and the completed ranges are recorded in "name.journal" next to the path.
+ * When the download is interrupted, the next download of the same file URL requests only the missing ranges.
+ * The journal is trusted only while the part file holds all its completed ranges, otherwise the download restarts from zero.
+ * The part file is moved to the path after the journal is verified to cover the whole file.
+ * With 2 or more connections, the missing ranges are downloaded in parallel chunks by {@link ChunkedDownload}.
+ * If the server does not support the ranges, the journal is reset and the whole file is downloaded again in a single stream.
+ */
+final class ResumableDownload {
+    // Bytes written between the journal checkpoints.
+    private static final long CHECKPOINT_INTERVAL = 8 * 1024 * 1024;
+
+    static DownloadResult download(final OSCClient client, final URL fileUrl, final long size, final Path path, final OSCClient.ProgressListener listener) throws IOException {
+        return download(client, fileUrl, size, path, 1, listener);
+    }
+
+    static DownloadResult download(final OSCClient client, final URL fileUrl, final long size, final Path path, final int maxConnections, final OSCClient.ProgressListener listener) throws IOException {
+        final Path partPath = sibling(path, ".part");
+        final Path journalPath = sibling(path, ".journal");
+
+        final long start = System.nanoTime();
+        long bytes = 0;
+        final long partSize = Files.exists(partPath) ? Files.size(partPath) : 0;
+        try (final DownloadJournal journal = DownloadJournal.open(journalPath, fileUrl, size, partSize);
+             final FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long resumed = journal.getCompletedBytes();
+            if (resumed == 0) {
+                channel.truncate(0);
+            }
+            final List<DownloadJournal.Range> missing = journal.getMissingRanges();
+            try {
+                if (maxConnections > 1 && ChunkedDownload.isWorthSplitting(missing)) {
+                    preallocate(channel, size);
+                    bytes = ChunkedDownload.download(client, fileUrl, channel, journal, maxConnections, listener, size);
+                } else {
+                    for (final DownloadJournal.Range range : missing) {
+                        final long offset = resumed + bytes;
+                        bytes += downloadRange(client, fileUrl, channel, journal, range, listener == null ? null
+                                : (written, total) -> listener.onProgress(offset + written, size));
+                    }
+                }
+            } catch (final RangeNotSupportedException e) {
+                journal.reset();
+                channel.truncate(0);
+                bytes = downloadRange(client, fileUrl, channel, journal, new DownloadJournal.Range(0, size), listener == null ? null
+                        : (written, total) -> listener.onProgress(written, size));
+            }
+            if (channel.size() > size) {
+                channel.truncate(size);
+            }
+            // The size of the preallocated part file does not prove that the bytes are written.
+            final List<DownloadJournal.Range> left = journal.getMissingRanges();
+            if (!left.isEmpty()) {
+                throw new IOException(left.size() + " ranges of " + fileUrl + " are not downloaded, starting at " + left.get(0).start);
+            }
+        }
+
+        Files.move(partPath, path, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(journalPath);
+
+        return DownloadResult.create(bytes, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Download the range into the channel, recording the checkpoints to the journal.
+     *
+     * @return Number of bytes downloaded.
+     */
+    static long downloadRange(final OSCClient client, final URL fileUrl, final FileChannel channel, final DownloadJournal journal,
+                              final DownloadJournal.Range range, final OSCClient.ProgressListener listener) throws IOException {
+        final long[] checkpoint = {range.start};
+        try {
+            client.downloadRange(fileUrl, channel, range.start, range.length(), (written, total) -> {
+                final long end = range.start + written;
+                if (end - checkpoint[0] >= CHECKPOINT_INTERVAL) {
+                    try {
+                        checkpoint(channel, journal, checkpoint[0], end);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    checkpoint[0] = end;
+                }
+                if (listener != null) {
+                    listener.onProgress(written, total);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        checkpoint(channel, journal, checkpoint[0], range.end);
+        return range.length();
+    }
+
+    private static void checkpoint(final FileChannel channel, final DownloadJournal journal, final long start, final long end) throws IOException {
+        // The bytes must reach the storage before the journal says so.
+        channel.force(false);
+        journal.add(start, end);
+    }
+
+    /**
+     * Extend the channel to the size, so that the chunks can be written at any position.
+     * {@link FileChannel#transferFrom} transfers nothing at the position beyond the end of the file.
+     */
+    private static void preallocate(final FileChannel channel, final long size) throws IOException {
+        if (channel.size() < size) {
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+    }
+
+    static Path sibling(final Path path, final String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    private ResumableDownload() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.OSCState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StateWatcher notifies the changes of the state of THETA.
+ * The watcher calls checkForUpdates with the last fingerprint, and fetches the state only when the fingerprint is changed.
+ * The fetched state is compared with the previous state, and the changed properties are notified by the typed events.
+ * This class is thread-safe.
+ *
+ * @see Theta#checkForUpdate(String)
+ */
+public final class StateWatcher implements Closeable {
+    /**
+     * Listener of the state changes.
+     * The methods are called on the watcher thread, in the order of the declarations for a state change.
+     */
+    public interface Listener {
+        /**
+         * Called when the battery level is changed.
+         *
+         * @param oldLevel Previous battery level.
+         * @param newLevel Current battery level.
+         */
+        default void onBatteryLevelChanged(@Nullable BigDecimal oldLevel, @Nullable BigDecimal newLevel) {
+        }
+
+        /**
+         * Called when the continuous shooting state is changed.
+         *
+         * @param oldState Previous state.
+         * @param newState Current state.
+         */
+        default void onCaptureStateChanged(@Nullable ThetaState.CaptureState oldState, @Nullable ThetaState.CaptureState newState) {
+        }
+
+        /**
+         * Called when the URL of the last saved file is changed.
+         *
+         * @param oldUrl Previous URL.
+         * @param newUrl Current URL.
+         */
+        default void onLatestFileUrlChanged(@Nullable URL oldUrl, @Nullable URL newUrl) {
+        }
+
+        /**
+         * Called when the shooting time of movie is changed.
+         *
+         * @param oldTime Previous time (sec).
+         * @param newTime Current time (sec).
+         */
+        default void onRecordedTimeChanged(int oldTime, int newTime) {
+        }
+
+        /**
+         * Called when the error information of the camera is changed.
+         *
+         * @param oldErrors Previous errors.
+         * @param newErrors Current errors.
+         */
+        default void onCameraErrorChanged(@Nullable List<String> oldErrors, @Nullable List<String> newErrors) {
+        }
+
+        /**
+         * Called when the plugin running state or the plugin web server state is changed.
+         *
+         * @param pluginRunning   Current plugin running state.
+         * @param pluginWebServer Current plugin web server state.
+         */
+        default void onPluginStateChanged(boolean pluginRunning, boolean pluginWebServer) {
+        }
+
+        /**
+         * Called after the events of a state change.
+         *
+         * @param oldState Previous state.
+         * @param newState Current state.
+         */
+        default void onStateChanged(@Nonnull ThetaState oldState, @Nonnull ThetaState newState) {
+        }
+
+        /**
+         * Called when the check is failed. The watcher retries at the next interval.
+         * The unchecked exception thrown by the state parsing or by the other methods of this listener is wrapped in IOException.
+         *
+         * @param e The cause of the failure.
+         */
+        default void onError(@Nonnull IOException e) {
+        }
+    }
+
+    /**
+     * Builder of {@link StateWatcher}.
+     */
+    public static final class Builder {
+        private final Theta theta;
+
+        private final Listener listener;
+
+        private long pollingIntervalMillis = 1000;
+
+        /**
+         * Create new builder.
+         *
+         * @param theta    THETA to watch.
+         * @param listener Listener of the state changes.
+         * @throws NullPointerException if theta or listener is null.
+         */
+        public Builder(@Nonnull final Theta theta, @Nonnull final Listener listener) {
+            this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+            this.listener = Objects.requireNonNull(listener, "listener can not be null.");
+        }
+
+        /**
+         * Set interval of the fingerprint checks. Default is 1 second.
+         *
+         * @param pollingInterval interval of the checks.
+         * @param unit            unit of pollingInterval.
+         * @return Builder instance.
+         * @throws NullPointerException     if unit is null.
+         * @throws IllegalArgumentException if pollingInterval is not positive.
+         */
+        @Nonnull
+        public Builder pollingInterval(final long pollingInterval, @Nonnull final TimeUnit unit) {
+            Objects.requireNonNull(unit, "unit can not be null.");
+            if (pollingInterval <= 0) {
+                throw new IllegalArgumentException("pollingInterval must be positive.");
+            }
+            this.pollingIntervalMillis = Math.max(1, unit.toMillis(pollingInterval));
+            return this;
+        }
+
+        /**
+         * Build {@link StateWatcher}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public StateWatcher build() {
+            return new StateWatcher(this);
+        }
+    }
+
+    private final Theta theta;
+
+    private final Listener listener;
+
+    private final long pollingIntervalMillis;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "theta4j-state-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong checkCount = new AtomicLong();
+
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    // null until started.
+    private volatile OSCState<ThetaState> state;
+
+    private StateWatcher(final Builder builder) {
+        this.theta = builder.theta;
+        this.listener = builder.listener;
+        this.pollingIntervalMillis = builder.pollingIntervalMillis;
+    }
+
+    /**
+     * Fetch the initial state, and start watching.
+     * The initial state is not notified.
+     *
+     * @return This instance.
+     * @throws IOException           I/O error is occurred on the initial state.
+     * @throws IllegalStateException if this watcher is already started or closed.
+     */
+    @Nonnull
+    public synchronized StateWatcher start() throws IOException {
+        if (state != null || poller.isShutdown()) {
+            throw new IllegalStateException("watcher is already started or closed.");
+        }
+        state = fetch();
+        poller.scheduleWithFixedDelay(this::poll, pollingIntervalMillis, pollingIntervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Returns the last fetched state, or null if not started.
+     */
+    @Nullable
+    public ThetaState getState() {
+        final OSCState<ThetaState> current = state;
+        return current == null ? null : current.getState();
+    }
+
+    /**
+     * Number of the checkForUpdates requests.
+     */
+    public long getCheckCount() {
+        return checkCount.get();
+    }
+
+    /**
+     * Number of the state requests, including the initial state.
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * Stop watching, and wait for the running check.
+     *
+     * @throws InterruptedIOException if the current thread is interrupted.
+     */
+    @Override
+    public void close() throws InterruptedIOException {
+        poller.shutdown();
+        try {
+            poller.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            poller.shutdownNow();
+            throw new InterruptedIOException("interrupted while closing the watcher.");
+        }
+    }
+
+    private OSCState<ThetaState> fetch() throws IOException {
+        fetchCount.incrementAndGet();
+        return theta.state();
+    }
+
+    /**
+     * Check the state, and report any failure to the listener.
+     * The exception must not escape, otherwise the scheduled executor cancels the polling silently.
+     */
+    private void poll() {
+        try {
+            check();
+        } catch (final IOException e) {
+            notifyError(e);
+        } catch (final RuntimeException e) {
+            notifyError(new IOException("failed to check the state.", e));
+        }
+    }
+
+    private void check() throws IOException {
+        final OSCState<ThetaState> last = state;
+        checkCount.incrementAndGet();
+        if (theta.checkForUpdate(last.getFingerprint()).equals(last.getFingerprint())) {
+            return;
+        }
+        final OSCState<ThetaState> next = fetch();
+        state = next;
+        notifyChanges(last.getState(), next.getState());
+    }
+
+    private void notifyError(final IOException e) {
+        try {
+            listener.onError(e);
+        } catch (final RuntimeException ignored) {
+            // Nothing to report to. Keep polling.
+        }
+    }
+
+    private void notifyChanges(final ThetaState oldState, final ThetaState newState) {
+        if (!sameDecimal(oldState.getBatteryLevel(), newState.getBatteryLevel())) {
+            listener.onBatteryLevelChanged(oldState.getBatteryLevel(), newState.getBatteryLevel());
+        }
+        if (oldState.getCaptureState() != newState.getCaptureState()) {
+            listener.onCaptureStateChanged(oldState.getCaptureState(), newState.getCaptureState());
+        }
+        if (!sameUrl(oldState.getLatestFileUrl(), newState.getLatestFileUrl())) {
+            listener.onLatestFileUrlChanged(oldState.getLatestFileUrl(), newState.getLatestFileUrl());
+        }
+        if (oldState.getRecordedTime() != newState.getRecordedTime()) {
+            listener.onRecordedTimeChanged(oldState.getRecordedTime(), newState.getRecordedTime());
+        }
+        if (!Objects.equals(oldState.getCameraError(), newState.getCameraError())) {
+            listener.onCameraErrorChanged(oldState.getCameraError(), newState.getCameraError());
+        }
+        if (oldState.isPluginRunning() != newState.isPluginRunning() || oldState.hasPluginWebServer() != newState.hasPluginWebServer()) {
+            listener.onPluginStateChanged(newState.isPluginRunning(), newState.hasPluginWebServer());
+        }
+        listener.onStateChanged(oldState, newState);
+    }
+
+    /**
+     * Compare the values ignoring the scale, e.g. 0.5 and 0.50.
+     */
+    private static boolean sameDecimal(final BigDecimal a, final BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * Compare the URLs by the strings. {@link URL#equals(Object)} may resolve the host.
+     */
+    private static boolean sameUrl(final URL a, final URL b) {
+        return a == null ? b == null : b != null && a.toString().equals(b.toString());
+    }
+}
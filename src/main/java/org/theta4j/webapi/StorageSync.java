@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.theta4j.osc.DownloadResult;
+import org.theta4j.osc.OSCException;
+import org.theta4j.osc.RangeNotSupportedException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StorageSync mirrors the files of THETA into a local directory.
+ * Only the files not recorded in the manifest of the directory are downloaded, with the concurrent transfers.
+ * Each file is written to "name.part" while its SHA-256 is computed from the received bytes,
+ * and an interrupted copy is resumed from the end of its part file after the bytes in it are hashed again.
+ * The file is moved to its path after the byte count is verified against {@link FileInfo#getSize()} and the file is flushed to the storage.
+ * Then its SHA-256 is recorded in the manifest.
+ * The files recorded in the manifest are trusted without reading them again,
+ * so a synchronization restarted after a crash does not rescan the local copies.
+ * A local file not recorded in the manifest is never trusted, and it is replaced by a new copy.
+ * Optionally, the files verified by this or an earlier synchronization are deleted from THETA by {@link BulkDelete}.
+ * This class is thread-safe, but the concurrent synchronizations of the same directory are not supported.
+ */
+public final class StorageSync {
+    /**
+     * Name of the manifest file in the directory.
+     */
+    public static final String MANIFEST_NAME = ".theta4j-sync";
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int LIST_CONCURRENCY = 4;
+
+    // Bytes written between the progress notifications.
+    private static final long PROGRESS_INTERVAL = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Result of {@link StorageSync#sync()}.
+     */
+    public static final class Result {
+        private final int copiedCount;
+
+        private final int upToDateCount;
+
+        private final int deletedCount;
+
+        private final Map<FileInfo, IOException> failures;
+
+        private final long bytes;
+
+        private final long elapsedNanos;
+
+        private Result(final int copiedCount, final int upToDateCount, final int deletedCount, final Map<FileInfo, IOException> failures, final long bytes, final long elapsedNanos) {
+            this.copiedCount = copiedCount;
+            this.upToDateCount = upToDateCount;
+            this.deletedCount = deletedCount;
+            this.failures = Collections.unmodifiableMap(failures);
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of files copied and verified by this synchronization.
+         */
+        public int getCopiedCount() {
+            return copiedCount;
+        }
+
+        /**
+         * Number of files already recorded in the manifest.
+         */
+        public int getUpToDateCount() {
+            return upToDateCount;
+        }
+
+        /**
+         * Number of files deleted from THETA.
+         */
+        public int getDeletedCount() {
+            return deletedCount;
+        }
+
+        /**
+         * Files failed to copy, and the causes of the failures.
+         */
+        @Nonnull
+        public Map<FileInfo, IOException> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Total number of bytes downloaded.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Elapsed time of the whole synchronization.
+         *
+         * @param unit Unit of the returned value.
+         * @return Elapsed time in the given unit.
+         */
+        public long getElapsedTime(@Nonnull final TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns String representation of this object.
+         */
+        @Override
+        @Nonnull
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Result{");
+            sb.append("copiedCount=").append(copiedCount);
+            sb.append(", upToDateCount=").append(upToDateCount);
+            sb.append(", deletedCount=").append(deletedCount);
+            sb.append(", failures=").append(failures.size());
+            sb.append(", bytes=").append(bytes);
+            sb.append(", elapsedNanos=").append(elapsedNanos);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Builder of {@link StorageSync}.
+     */
+    public static final class Builder {
+        private final Theta theta;
+
+        private final Path directory;
+
+        private int concurrency = 3;
+
+        private boolean deleteAfterCopy = false;
+
+        private FileIndex fileIndex;
+
+        private DownloadManager.Listener listener = new DownloadManager.Listener() {
+        };
+
+        /**
+         * Create new builder.
+         *
+         * @param theta     THETA to synchronize the files from.
+         * @param directory Directory to mirror the files.
+         * @throws NullPointerException if theta or directory is null.
+         */
+        public Builder(@Nonnull final Theta theta, @Nonnull final Path directory) {
+            this.theta = Objects.requireNonNull(theta, "theta can not be null.");
+            this.directory = Objects.requireNonNull(directory, "directory can not be null.");
+        }
+
+        /**
+         * Set number of the concurrent transfers. Default is 3.
+         *
+         * @param concurrency number of the concurrent transfers.
+         * @return Builder instance.
+         * @throws IllegalArgumentException if concurrency is less than 1.
+         * @see DownloadManager.Builder#concurrency(int)
+         */
+        @Nonnull
+        public Builder concurrency(final int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be 1 or more.");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Set whether the verified files are deleted from THETA. Default is false.
+         *
+         * @param deleteAfterCopy true to delete the verified files from THETA.
+         * @return Builder instance.
+         */
+        @Nonnull
+        public Builder deleteAfterCopy(final boolean deleteAfterCopy) {
+            this.deleteAfterCopy = deleteAfterCopy;
+            return this;
+        }
+
+        /**
+         * Set file index to acquire the file list of THETA.
+         * The index is refreshed incrementally on each synchronization instead of listing all the files.
+         * By default, all the files are listed on each synchronization.
+         *
+         * @param fileIndex file index of the same THETA.
+         * @return Builder instance.
+         * @throws NullPointerException if fileIndex is null.
+         */
+        @Nonnull
+        public Builder fileIndex(@Nonnull final FileIndex fileIndex) {
+            this.fileIndex = Objects.requireNonNull(fileIndex, "fileIndex can not be null.");
+            return this;
+        }
+
+        /**
+         * Set listener of the downloads.
+         * {@link DownloadManager.Listener#onSkip(FileInfo, Path)} is not called, since the files not recorded in the manifest are always copied.
+         *
+         * @param listener listener of the downloads.
+         * @return Builder instance.
+         * @throws NullPointerException if listener is null.
+         */
+        @Nonnull
+        public Builder listener(@Nonnull final DownloadManager.Listener listener) {
+            this.listener = Objects.requireNonNull(listener, "listener can not be null.");
+            return this;
+        }
+
+        /**
+         * Build {@link StorageSync}.
+         *
+         * @return Built instance.
+         */
+        @Nonnull
+        public StorageSync build() {
+            return new StorageSync(this);
+        }
+    }
+
+    private final Theta theta;
+
+    private final Path directory;
+
+    private final int concurrency;
+
+    private final boolean deleteAfterCopy;
+
+    @Nullable
+    private final FileIndex fileIndex;
+
+    private final DownloadManager.Listener listener;
+
+    private StorageSync(final Builder builder) {
+        this.theta = builder.theta;
+        this.directory = builder.directory;
+        this.concurrency = builder.concurrency;
+        this.deleteAfterCopy = builder.deleteAfterCopy;
+        this.fileIndex = builder.fileIndex;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Synchronize the directory with THETA, and wait for the completion.
+     * The failure of a file does not stop the other files, and it is reported by the result.
+     * The failed files are not deleted from THETA.
+     *
+     * @return Summary of the synchronization.
+     * @throws IOException            I/O error is occurred on the file list, the directory or the manifest.
+     * @throws OSCException           Server returned error response.
+     * @throws InterruptedIOException if the current thread is interrupted.
+     */
+    @Nonnull
+    public Result sync() throws IOException {
+        final long start = System.nanoTime();
+        final List<FileInfo> files = listFiles();
+
+        Files.createDirectories(directory);
+        try (final SyncManifest manifest = SyncManifest.open(directory.resolve(MANIFEST_NAME))) {
+            final List<FileInfo> upToDate = new ArrayList<>();
+            final List<FileInfo> outdated = new ArrayList<>();
+            for (final FileInfo file : files) {
+                if (isUpToDate(manifest, file)) {
+                    upToDate.add(file);
+                } else {
+                    outdated.add(file);
+                }
+            }
+
+            final List<FileInfo> copied = Collections.synchronizedList(new ArrayList<>());
+            final Map<FileInfo, IOException> failures = new ConcurrentHashMap<>();
+            final AtomicLong bytes = new AtomicLong();
+            ParallelTasks.forEach(outdated, concurrency, "theta4j-sync", "copying", file -> {
+                try {
+                    final Path path = LocalPath.resolve(directory, file);
+                    Files.createDirectories(path.getParent());
+                    final long copyStart = System.nanoTime();
+                    final String sha256 = copy(file, path);
+                    manifest.copied(file, sha256);
+                    copied.add(file);
+                    bytes.addAndGet(file.getSize());
+                    listener.onComplete(file, path, DownloadResult.create(file.getSize(), System.nanoTime() - copyStart, TimeUnit.NANOSECONDS));
+                } catch (final IOException e) {
+                    failures.put(file, e);
+                    listener.onError(file, e);
+                }
+            });
+
+            int deletedCount = 0;
+            if (deleteAfterCopy) {
+                // The records must reach the storage before the originals are gone.
+                manifest.force();
+                final List<FileInfo> verified = new ArrayList<>(upToDate);
+                verified.addAll(copied);
+                deletedCount = delete(manifest, verified);
+            }
+
+            return new Result(copied.size(), upToDate.size(), deletedCount, new HashMap<>(failures), bytes.get(), System.nanoTime() - start);
+        }
+    }
+
+    private List<FileInfo> listFiles() throws IOException {
+        if (fileIndex != null) {
+            fileIndex.refresh();
+            return fileIndex.getFiles();
+        }
+        final ListFiles.Parameter parameter = new ListFiles.Parameter.Builder(PAGE_SIZE)
+                .detail(false)
+                .build();
+        return theta.listAllFiles(parameter, LIST_CONCURRENCY);
+    }
+
+    /**
+     * Returns true if the file is recorded in the manifest and its copy keeps the size.
+     */
+    private boolean isUpToDate(final SyncManifest manifest, final FileInfo file) throws IOException {
+        final SyncManifest.Entry entry = manifest.get(file.getFileUrl().toString());
+        if (entry == null || !entry.matches(file)) {
+            return false;
+        }
+        final Path path;
+        try {
+            path = LocalPath.resolve(directory, file);
+        } catch (final IOException e) {
+            return false; // reported by the download.
+        }
+        return Files.isRegularFile(path) && Files.size(path) == file.getSize();
+    }
+
+    /**
+     * Delete the files from THETA, and record each deleted chunk in the manifest.
+     */
+    private int delete(final SyncManifest manifest, final List<FileInfo> files) throws IOException {
+        final Map<String, FileInfo> byUrl = new HashMap<>();
+        final List<URL> fileUrls = new ArrayList<>(files.size());
+        for (final FileInfo file : files) {
+            byUrl.put(file.getFileUrl().toString(), file);
+            fileUrls.add(file.getFileUrl());
+        }
+        final BulkDelete bulkDelete = new BulkDelete.Builder(theta)
+                .listener((deletedUrls, deletedCount, totalCount) -> {
+                    final List<FileInfo> chunk = new ArrayList<>(deletedUrls.size());
+                    for (final URL fileUrl : deletedUrls) {
+                        chunk.add(byUrl.get(fileUrl.toString()));
+                    }
+                    try {
+                        manifest.deleted(chunk);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .build();
+        try {
+            return bulkDelete.delete(fileUrls).getDeletedCount();
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Download the file into "name.part" through SHA-256, and move it to the path after the byte count is verified and the bytes are flushed to the storage.
+     * The bytes already in "name.part" are hashed first, and the download continues from its end.
+     *
+     * @return SHA-256 of the whole file in hex.
+     */
+    private String copy(final FileInfo file, final Path path) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError(e); // SHA-256 is supported by every Java platform.
+        }
+
+        final Path partPath = path.resolveSibling(path.getFileName() + ".part");
+        final Path journalPath = path.resolveSibling(path.getFileName() + ".journal");
+        try (final FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The part file of ResumableDownload may have holes, so it is not a prefix of the file.
+            if (Files.exists(journalPath) || channel.size() > file.getSize()) {
+                channel.truncate(0);
+                Files.deleteIfExists(journalPath);
+            }
+            final long resumed = update(digest, channel);
+            final ProgressOutputStream counter = new ProgressOutputStream(Channels.newOutputStream(channel), file, resumed);
+            if (resumed < file.getSize()) {
+                try {
+                    theta.downloadRange(file.getFileUrl(), new DigestOutputStream(counter, digest), resumed);
+                } catch (final RangeNotSupportedException e) {
+                    channel.truncate(0);
+                    digest.reset();
+                    counter.count = 0;
+                    theta.download(file.getFileUrl(), new DigestOutputStream(counter, digest));
+                }
+            }
+            if (counter.count != file.getSize()) {
+                throw new IOException("expected " + file.getSize() + " bytes of " + file.getFileUrl() + ", but got " + counter.count + " bytes.");
+            }
+            channel.force(true);
+        }
+        Files.move(partPath, path, StandardCopyOption.REPLACE_EXISTING);
+        return hex(digest.digest());
+    }
+
+    /**
+     * Update the digest with the whole channel, and leave the channel at its end.
+     *
+     * @return Size of the channel.
+     */
+    private static long update(final MessageDigest digest, final FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        channel.position(0);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return channel.position();
+    }
+
+    static String hex(final byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Counts the bytes written to the stream, and notifies the progress to the listener.
+     */
+    private final class ProgressOutputStream extends FilterOutputStream {
+        private final FileInfo file;
+
+        private long count;
+
+        private long notified;
+
+        private ProgressOutputStream(final OutputStream out, final FileInfo file, final long count) {
+            super(out);
+            this.file = file;
+            this.count = count;
+            this.notified = count;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            progress(1);
+        }
+
+        @Override
+        public void write(@Nonnull final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            progress(len);
+        }
+
+        private void progress(final int len) {
+            count += len;
+            if (count - notified >= PROGRESS_INTERVAL || count == file.getSize()) {
+                notified = count;
+                listener.onProgress(file, count, file.getSize());
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manifest of the files synchronized by {@link StorageSync}.
+ * Each line is a tab separated record, appended as the synchronization proceeds, and the last record of a file URL wins.
+ * <ul>
+ * <li>"C", SHA-256, size, date time, file URL, name: the file is copied and verified.</li>
+ * <li>"D", file URL: the file is deleted from THETA after the copy.</li>
+ * </ul>
+ * The manifest is compacted on open.
+ * The appended records are flushed to the storage only by {@link #force()}, so call it before relying on them. This class is thread-safe.
+ */
+final class SyncManifest implements Closeable {
+    static final class Entry {
+        final String sha256;
+
+        final long size;
+
+        final String dateTime;
+
+        final String fileUrl;
+
+        final String name;
+
+        final boolean deleted;
+
+        Entry(final String sha256, final long size, final String dateTime, final String fileUrl, final String name, final boolean deleted) {
+            this.sha256 = sha256;
+            this.size = size;
+            this.dateTime = dateTime;
+            this.fileUrl = fileUrl;
+            this.name = name;
+            this.deleted = deleted;
+        }
+
+        boolean matches(final FileInfo file) {
+            return fileUrl.equals(file.getFileUrl().toString()) && size == file.getSize() && dateTime.equals(String.valueOf(file.getDateTime()));
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    private final FileChannel channel;
+
+    private final BufferedWriter writer;
+
+    private SyncManifest(final Map<String, Entry> entries, final FileChannel channel) {
+        this.entries = entries;
+        this.channel = channel;
+        this.writer = newWriter(channel);
+    }
+
+    static SyncManifest open(final Path path) throws IOException {
+        final Map<String, Entry> entries = new HashMap<>();
+        if (Files.exists(path)) {
+            for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                final String[] tokens = line.split("\t", -1);
+                if (tokens.length == 6 && tokens[0].equals("C")) {
+                    try {
+                        entries.put(tokens[4], new Entry(tokens[1], Long.parseLong(tokens[2]), tokens[3], tokens[4], tokens[5], false));
+                    } catch (final NumberFormatException e) {
+                        // torn line written on crash
+                    }
+                } else if (tokens.length == 2 && tokens[0].equals("D") && entries.containsKey(tokens[1])) {
+                    final Entry entry = entries.get(tokens[1]);
+                    entries.put(tokens[1], new Entry(entry.sha256, entry.size, entry.dateTime, entry.fileUrl, entry.name, true));
+                }
+                // the other lines are torn lines written on crash.
+            }
+        }
+
+        // compact
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final BufferedWriter compacted = newWriter(channel);
+            for (final Entry entry : entries.values()) {
+                write(compacted, entry);
+            }
+            compacted.flush();
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+
+        return new SyncManifest(entries, FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    synchronized Entry get(final String fileUrl) {
+        return entries.get(fileUrl);
+    }
+
+    synchronized void copied(final FileInfo file, final String sha256) throws IOException {
+        final Entry entry = new Entry(sha256, file.getSize(), String.valueOf(file.getDateTime()), file.getFileUrl().toString(), file.getName(), false);
+        entries.put(entry.fileUrl, entry);
+        write(writer, entry);
+        writer.flush();
+    }
+
+    synchronized void deleted(final List<FileInfo> files) throws IOException {
+        for (final FileInfo file : files) {
+            final Entry entry = entries.get(file.getFileUrl().toString());
+            if (entry != null) {
+                entries.put(entry.fileUrl, new Entry(entry.sha256, entry.size, entry.dateTime, entry.fileUrl, entry.name, true));
+                writer.write("D\t" + entry.fileUrl);
+                writer.newLine();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Flush the appended records to the storage.
+     */
+    synchronized void force() throws IOException {
+        writer.flush();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static BufferedWriter newWriter(final FileChannel channel) {
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+    }
+
+    private static void write(final BufferedWriter writer, final Entry entry) throws IOException {
+        writer.write("C\t" + entry.sha256 + "\t" + entry.size + "\t" + entry.dateTime + "\t" + entry.fileUrl + "\t" + entry.name);
+        writer.newLine();
+        if (entry.deleted) {
+            writer.write("D\t" + entry.fileUrl);
+            writer.newLine();
+        }
+    }
+}
@@ -21,12 +21,22 @@ import org.theta4j.osc.*;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * RICOH THETA Web API v2.1 client.
@@ -36,6 +46,8 @@ public final class Theta {
 
     private static final String INTERNAL_ENDPOINT = "http:127.0.0.1:8080";
 
+    private static final long DEFAULT_AWAIT_TIMEOUT_MINUTES = 30;
+
     private final OSCClient oscClient;
 
     private Theta(final OSCClient oscClient) {
@@ -105,6 +117,17 @@ public final class Theta {
         return oscClient.info(ThetaInfo.class);
     }
 
+    /**
+     * Acquire the information of THETA asynchronously.
+     *
+     * @return Future of the information of THETA.
+     * @see Theta#info()
+     */
+    @Nonnull
+    public CompletableFuture<ThetaInfo> infoAsync() {
+        return oscClient.infoAsync(ThetaInfo.class);
+    }
+
     /**
      * Acquire the state of THETA.
      *
@@ -117,6 +140,17 @@ public final class Theta {
         return oscClient.state(ThetaState.class);
     }
 
+    /**
+     * Acquire the state of THETA asynchronously.
+     *
+     * @return Future of the state of THETA.
+     * @see Theta#state()
+     */
+    @Nonnull
+    public CompletableFuture<OSCState<ThetaState>> stateAsync() {
+        return oscClient.stateAsync(ThetaState.class);
+    }
+
     /**
      * Check for the updates of the state.
      *
@@ -129,7 +163,7 @@ public final class Theta {
      * @see <a href="https://developers.theta360.com/en/docs/v2.1/api_reference/protocols/check_for_updates.html">CheckForUpdates · protocols · API Reference · v2.1 · API &amp; SDK | RICOH THETA Developers</a>
      */
     @Nonnull
-    private String checkForUpdate(@Nonnull final String fingerprint) throws IOException {
+    public String checkForUpdate(@Nonnull final String fingerprint) throws IOException {
         Objects.requireNonNull(fingerprint, "fingerprint can not be null.");
 
         return oscClient.checkForUpdates(fingerprint);
@@ -152,6 +186,214 @@ public final class Theta {
         return oscClient.commandStatus(response);
     }
 
+    /**
+     * Check command status asynchronously.
+     *
+     * @param response Last response of command execution.
+     * @param <R>      Type of command result.
+     * @return Future of the updated response.
+     * @throws NullPointerException if response is null.
+     * @see Theta#commandStatus(CommandResponse)
+     */
+    @Nonnull
+    public <R> CompletableFuture<CommandResponse<R>> commandStatusAsync(@Nonnull final CommandResponse<R> response) {
+        Objects.requireNonNull(response, "response can not be null.");
+
+        return oscClient.commandStatusAsync(response);
+    }
+
+    /**
+     * Wait until the command is done, up to 30 minutes.
+     * The status is polled on a thread shared by all the instances,
+     * and the interval adapts to the completion time of each command, e.g. short for camera.takePicture
+     * and long for camera._convertVideoFormats.
+     *
+     * @param response Last response of command execution.
+     * @param <R>      Type of command result.
+     * @return The done response.
+     * @throws IOException            I/O error is occurred.
+     * @throws OSCException           Server returned error response.
+     * @throws InterruptedIOException if the timeout is elapsed or the current thread is interrupted.
+     * @throws NullPointerException   if response is null.
+     * @see Theta#awaitDone(CommandResponse, long, TimeUnit)
+     */
+    @Nonnull
+    public <R> CommandResponse<R> awaitDone(@Nonnull final CommandResponse<R> response) throws IOException {
+        return awaitDone(response, DEFAULT_AWAIT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Wait until the command is done.
+     *
+     * @param response Last response of command execution.
+     * @param timeout  Max time to wait.
+     * @param unit     Unit of timeout.
+     * @param <R>      Type of command result.
+     * @return The done response.
+     * @throws IOException              I/O error is occurred.
+     * @throws OSCException             Server returned error response.
+     * @throws InterruptedIOException   if the timeout is elapsed or the current thread is interrupted.
+     * @throws NullPointerException     if response or unit is null.
+     * @throws IllegalArgumentException if timeout is not positive.
+     * @see OSCClient#awaitDone(CommandResponse, long, TimeUnit)
+     */
+    @Nonnull
+    public <R> CommandResponse<R> awaitDone(@Nonnull final CommandResponse<R> response, final long timeout, @Nonnull final TimeUnit unit) throws IOException {
+        return oscClient.awaitDone(response, timeout, unit);
+    }
+
+    /**
+     * Wait until the command is done asynchronously, up to 30 minutes.
+     *
+     * @param response Last response of command execution.
+     * @param <R>      Type of command result.
+     * @return Future of the done response.
+     * @throws NullPointerException if response is null.
+     * @see Theta#awaitDone(CommandResponse)
+     */
+    @Nonnull
+    public <R> CompletableFuture<CommandResponse<R>> awaitDoneAsync(@Nonnull final CommandResponse<R> response) {
+        return awaitDoneAsync(response, DEFAULT_AWAIT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Wait until the command is done asynchronously.
+     * The future is completed with {@link InterruptedIOException} if the timeout is elapsed.
+     *
+     * @param response Last response of command execution.
+     * @param timeout  Max time to wait.
+     * @param unit     Unit of timeout.
+     * @param <R>      Type of command result.
+     * @return Future of the done response.
+     * @throws NullPointerException     if response or unit is null.
+     * @throws IllegalArgumentException if timeout is not positive.
+     * @see OSCClient#awaitDoneAsync(CommandResponse, long, TimeUnit)
+     */
+    @Nonnull
+    public <R> CompletableFuture<CommandResponse<R>> awaitDoneAsync(@Nonnull final CommandResponse<R> response, final long timeout, @Nonnull final TimeUnit unit) {
+        return oscClient.awaitDoneAsync(response, timeout, unit);
+    }
+
+    /**
+     * Set max number of the status requests per second sent to this THETA by {@link #awaitDone(CommandResponse)}. Default is 20.
+     *
+     * @param maxRequestsPerSecond max number of the status requests per second.
+     * @throws IllegalArgumentException if maxRequestsPerSecond is less than 1.
+     * @see OSCClient#setMaxStatusRequestsPerSecond(int)
+     */
+    public void setMaxStatusRequestsPerSecond(final int maxRequestsPerSecond) {
+        oscClient.setMaxStatusRequestsPerSecond(maxRequestsPerSecond);
+    }
+
+    /**
+     * Returns number of the status requests sent to this THETA by {@link #awaitDone(CommandResponse)}.
+     *
+     * @return Number of the status requests.
+     * @see OSCClient#getStatusRequestCount()
+     */
+    public long getStatusRequestCount() {
+        return oscClient.getStatusRequestCount();
+    }
+
+    /**
+     * Set TTL of the cached option values of this THETA. Default is 0, and the option values are not cached.
+     *
+     * @param ttl  TTL of the cached option values, or 0 to disable the cache.
+     * @param unit unit of ttl.
+     * @throws NullPointerException     if unit is null.
+     * @throws IllegalArgumentException if ttl is negative.
+     * @see OSCClient#setOptionCacheTtl(long, TimeUnit)
+     */
+    public void setOptionCacheTtl(final long ttl, @Nonnull final TimeUnit unit) {
+        oscClient.setOptionCacheTtl(ttl, unit);
+    }
+
+    /**
+     * Set TTL of the cached value of the option of this THETA.
+     *
+     * @param option Option to set TTL.
+     * @param ttl    TTL of the cached value, or 0 not to cache the option.
+     * @param unit   unit of ttl.
+     * @throws NullPointerException     if option or unit is null.
+     * @throws IllegalArgumentException if ttl is negative.
+     * @see OSCClient#setOptionCacheTtl(Option, long, TimeUnit)
+     */
+    public void setOptionCacheTtl(@Nonnull final Option<?> option, final long ttl, @Nonnull final TimeUnit unit) {
+        oscClient.setOptionCacheTtl(option, ttl, unit);
+    }
+
+    /**
+     * Enable or disable the batching of the getOptions calls to this THETA. Default is disabled.
+     *
+     * @param enabled true to batch the getOptions calls.
+     * @see OSCClient#setOptionBatchingEnabled(boolean)
+     */
+    public void setOptionBatchingEnabled(final boolean enabled) {
+        oscClient.setOptionBatchingEnabled(enabled);
+    }
+
+    /**
+     * Set time to wait for the other getOptions calls before sending a batch. Default is 5 milliseconds.
+     *
+     * @param window time to wait for the other calls.
+     * @param unit   unit of window.
+     * @throws NullPointerException     if unit is null.
+     * @throws IllegalArgumentException if window is negative.
+     * @see OSCClient#setOptionBatchWindow(long, TimeUnit)
+     */
+    public void setOptionBatchWindow(final long window, @Nonnull final TimeUnit unit) {
+        oscClient.setOptionBatchWindow(window, unit);
+    }
+
+    /**
+     * Returns number of the getOptions requests sent to this THETA by the batching.
+     *
+     * @return Number of the batched requests.
+     * @see OSCClient#getOptionBatchRequestCount()
+     */
+    public long getOptionBatchRequestCount() {
+        return oscClient.getOptionBatchRequestCount();
+    }
+
+    /**
+     * Clear the cached option values of this THETA.
+     *
+     * @see OSCClient#invalidateOptionCache()
+     */
+    public void invalidateOptionCache() {
+        oscClient.invalidateOptionCache();
+    }
+
+    /**
+     * Returns number of the option values served from the cache.
+     *
+     * @return Number of the cache hits.
+     * @see OSCClient#getOptionCacheHitCount()
+     */
+    public long getOptionCacheHitCount() {
+        return oscClient.getOptionCacheHitCount();
+    }
+
+    /**
+     * Returns number of the option values requested to this THETA while the cache is enabled.
+     *
+     * @return Number of the cache misses.
+     * @see OSCClient#getOptionCacheMissCount()
+     */
+    public long getOptionCacheMissCount() {
+        return oscClient.getOptionCacheMissCount();
+    }
+
+    /**
+     * Returns number of the getOptions requests saved by the cache.
+     *
+     * @return Number of the saved requests.
+     * @see OSCClient#getOptionCacheSavedRequestCount()
+     */
+    public long getOptionCacheSavedRequestCount() {
+        return oscClient.getOptionCacheSavedRequestCount();
+    }
+
     /**
      * Get single option value.
      *
@@ -170,6 +412,22 @@ public final class Theta {
         return oscClient.getOption(option);
     }
 
+    /**
+     * Get single option value asynchronously.
+     *
+     * @param option Option to get value.
+     * @param <T>    Type of option value.
+     * @return Future of the acquired option value.
+     * @throws NullPointerException if option is null.
+     * @see Theta#getOption(Option)
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> getOptionAsync(@Nonnull final Option<T> option) {
+        Objects.requireNonNull(option, "option can not be null.");
+
+        return oscClient.getOptionAsync(option);
+    }
+
     /**
      * Get single option value.
      *
@@ -188,6 +446,22 @@ public final class Theta {
         return oscClient.getOption(option);
     }
 
+    /**
+     * Get single option value asynchronously.
+     *
+     * @param option Option to get value.
+     * @param <T>    Type of option value.
+     * @return Future of the acquired option value.
+     * @throws NullPointerException if option is null.
+     * @see Theta#getOption(ArrayOption)
+     */
+    @Nonnull
+    public <T> CompletableFuture<List<T>> getOptionAsync(@Nonnull final ArrayOption<T> option) {
+        Objects.requireNonNull(option, "option can not be null.");
+
+        return oscClient.getOptionAsync(option);
+    }
+
     /**
      * Get option values.
      *
@@ -204,6 +478,20 @@ public final class Theta {
         return oscClient.getOptions(options);
     }
 
+    /**
+     * Get option values asynchronously.
+     *
+     * @param options Options to get values.
+     * @return Future of the acquired option values.
+     * @throws NullPointerException     if options is null or contains null.
+     * @throws IllegalArgumentException if options length less than 1.
+     * @see Theta#getOptions(Option...)
+     */
+    @Nonnull
+    public CompletableFuture<OptionSet> getOptionsAsync(@Nonnull final Option... options) {
+        return oscClient.getOptionsAsync(options);
+    }
+
     /**
      * Get option values.
      *
@@ -220,6 +508,20 @@ public final class Theta {
         return oscClient.getOptions(options);
     }
 
+    /**
+     * Get option values asynchronously.
+     *
+     * @param options Options to get values.
+     * @return Future of the acquired option values.
+     * @throws NullPointerException     if options is null or contains null.
+     * @throws IllegalArgumentException if options length less than 1.
+     * @see Theta#getOptions(Collection)
+     */
+    @Nonnull
+    public CompletableFuture<OptionSet> getOptionsAsync(@Nonnull final Collection<Option> options) {
+        return oscClient.getOptionsAsync(options);
+    }
+
     /**
      * Set single option value.
      *
@@ -239,6 +541,24 @@ public final class Theta {
         oscClient.setOption(option, value);
     }
 
+    /**
+     * Set single option value asynchronously.
+     *
+     * @param option Option to set value.
+     * @param value  Value to set.
+     * @param <T>    Type of option value.
+     * @return Future which is completed when the value is set.
+     * @throws NullPointerException if option or value is null.
+     * @see Theta#setOption(Option, Object)
+     */
+    @Nonnull
+    public <T> CompletableFuture<Void> setOptionAsync(@Nonnull final Option<T> option, T value) {
+        Objects.requireNonNull(option, "option can not be null.");
+        Objects.requireNonNull(value, "value can not be null.");
+
+        return oscClient.setOptionAsync(option, value);
+    }
+
     /**
      * Set option values.
      *
@@ -255,6 +575,21 @@ public final class Theta {
         oscClient.setOptions(optionSet);
     }
 
+    /**
+     * Set option values asynchronously.
+     *
+     * @param optionSet Options to set.
+     * @return Future which is completed when the values are set.
+     * @throws NullPointerException if optionSet is null.
+     * @see Theta#setOptions(OptionSet)
+     */
+    @Nonnull
+    public CompletableFuture<Void> setOptionsAsync(@Nonnull final OptionSet optionSet) {
+        Objects.requireNonNull(optionSet, "optionSet can not be null.");
+
+        return oscClient.setOptionsAsync(optionSet);
+    }
+
     /**
      * Turns the wireless LAN off.
      *
@@ -268,6 +603,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.FINISH_WLAN);
     }
 
+    /**
+     * Turns the wireless LAN off asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#finishWlan()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> finishWlanAsync() {
+        return oscClient.commandExecuteAsync(Commands.FINISH_WLAN);
+    }
+
     /**
      * Starts still image shooting.
      *
@@ -281,6 +627,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.TAKE_PICTURE);
     }
 
+    /**
+     * Starts still image shooting asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#takePicture()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<TakePicture.Result>> takePictureAsync() {
+        return oscClient.commandExecuteAsync(Commands.TAKE_PICTURE);
+    }
+
     /**
      * Starts continuous shooting.
      *
@@ -294,6 +651,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.START_CAPTURE);
     }
 
+    /**
+     * Starts continuous shooting asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#startCapture()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<StartCapture.Result>> startCaptureAsync() {
+        return oscClient.commandExecuteAsync(Commands.START_CAPTURE);
+    }
+
     /**
      * Starts continuous shooting.
      *
@@ -312,6 +680,22 @@ public final class Theta {
         return oscClient.commandExecute(Commands.START_CAPTURE, parameters);
     }
 
+    /**
+     * Starts continuous shooting asynchronously.
+     *
+     * @param captureMode Capture mode.
+     * @return Future of the command response.
+     * @throws NullPointerException if captureMode is null.
+     * @see Theta#startCapture(StartCapture.CaptureMode)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<StartCapture.Result>> startCaptureAsync(@Nonnull StartCapture.CaptureMode captureMode) {
+        Objects.requireNonNull(captureMode, "captureMode can not be null.");
+
+        final StartCapture.Parameter parameters = new StartCapture.Parameter(captureMode);
+        return oscClient.commandExecuteAsync(Commands.START_CAPTURE, parameters);
+    }
+
     /**
      * Stops continuous shooting.
      *
@@ -325,6 +709,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.STOP_CAPTURE);
     }
 
+    /**
+     * Stops continuous shooting asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#stopCapture()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<StopCapture.Result>> stopCaptureAsync() {
+        return oscClient.commandExecuteAsync(Commands.STOP_CAPTURE);
+    }
+
     /**
      * Acquires a list of still image files and movie files.
      *
@@ -339,7 +734,86 @@ public final class Theta {
     public CommandResponse<ListFiles.Result> listFiles(@Nonnull final ListFiles.Parameter parameter) throws IOException {
         Objects.requireNonNull(parameter, "parameter can not be null.");
 
-        return oscClient.commandExecute(Commands.LIST_FILES, parameter);
+        return oscClient.commandExecute(listFilesCommand(parameter), parameter);
+    }
+
+    /**
+     * Acquires a list of still image files and movie files asynchronously.
+     *
+     * @param parameter Command parameter.
+     * @return Future of the command response.
+     * @throws NullPointerException if parameter is null.
+     * @see Theta#listFiles(ListFiles.Parameter)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<ListFiles.Result>> listFilesAsync(@Nonnull final ListFiles.Parameter parameter) {
+        Objects.requireNonNull(parameter, "parameter can not be null.");
+
+        return oscClient.commandExecuteAsync(listFilesCommand(parameter), parameter);
+    }
+
+    /**
+     * Iterate the whole file list, requesting the pages as needed.
+     * The next page is prefetched while the current page is consumed, and the entry count of a page is tuned
+     * by the response time. The entryCount of the parameter is used as the initial entry count,
+     * and the startPosition of the parameter is used as the first position if set.
+     * You should call {@link ListFilesIterator#close()} if you stop iterating before the end.
+     *
+     * @param parameter Parameter of the pages.
+     * @return Iterator over the files.
+     * @throws NullPointerException if parameter is null.
+     * @see ListFilesIterator
+     */
+    @Nonnull
+    public ListFilesIterator iterateFiles(@Nonnull final ListFiles.Parameter parameter) {
+        Objects.requireNonNull(parameter, "parameter can not be null.");
+
+        return new ListFilesIterator(this, parameter);
+    }
+
+    /**
+     * Stream of the whole file list, requesting the pages as needed.
+     * You should close the stream if you stop consuming before the end. The I/O errors are thrown as {@link java.io.UncheckedIOException}.
+     *
+     * @param parameter Parameter of the pages.
+     * @return Stream of the files.
+     * @throws NullPointerException if parameter is null.
+     * @see Theta#iterateFiles(ListFiles.Parameter)
+     */
+    @Nonnull
+    public Stream<FileInfo> streamFiles(@Nonnull final ListFiles.Parameter parameter) {
+        final ListFilesIterator iterator = iterateFiles(parameter);
+        final Spliterator<FileInfo> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Acquires the whole file list at once with the concurrent page requests.
+     * The first page tells the total entries, then the remaining pages are requested concurrently,
+     * and merged back in the sort order. If the file list is changed during the scan, the scan is retried.
+     * The entryCount of the parameter is used as the page size,
+     * and the startPosition of the parameter is used as the first position if set.
+     *
+     * @param parameter   Parameter of the pages.
+     * @param concurrency Max number of the concurrent page requests.
+     * @return List of the files.
+     * @throws IOException              I/O error is occurred, or the file list kept changing during the scans.
+     * @throws OSCException             Server returned error response.
+     * @throws NullPointerException     if parameter is null.
+     * @throws IllegalArgumentException if concurrency or entryCount of the parameter is less than 1.
+     * @see Theta#streamFiles(ListFiles.Parameter)
+     */
+    @Nonnull
+    public List<FileInfo> listAllFiles(@Nonnull final ListFiles.Parameter parameter, final int concurrency) throws IOException {
+        Objects.requireNonNull(parameter, "parameter can not be null.");
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be 1 or more.");
+        }
+        if (parameter.getEntryCount() < 1) {
+            throw new IllegalArgumentException("entryCount must be 1 or more.");
+        }
+
+        return ParallelListFiles.list(this, parameter, concurrency);
     }
 
     /**
@@ -358,6 +832,20 @@ public final class Theta {
         return delete(Arrays.asList(fileUrls));
     }
 
+    /**
+     * Deletes still image or video files asynchronously.
+     *
+     * @param fileUrls Files to delete from THETA.
+     * @return Future of the command response.
+     * @throws NullPointerException     if fileUrls is null or contains null.
+     * @throws IllegalArgumentException if fileUrls length less than 1.
+     * @see Theta#delete(URL...)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> deleteAsync(@Nonnull final URL... fileUrls) {
+        return deleteAsync(Arrays.asList(fileUrls));
+    }
+
     /**
      * Get live preview stream of the camera.
      * You must call {@link MJpegInputStream#close()} of returned value to terminate stream.
@@ -367,51 +855,248 @@ public final class Theta {
      * @throws OSCException Server returned error response.
      */
     @Nonnull
-    public MJpegInputStream getLivePreview() throws IOException {
-        return oscClient.getLivePreview();
+    public MJpegInputStream getLivePreview() throws IOException {
+        return oscClient.getLivePreview();
+    }
+
+    /**
+     * Start live preview on dedicated threads, and deliver the latest frame to the listener.
+     * Stale frames are dropped if the listener is slower than the camera.
+     * You must call {@link LivePreviewPump#close()} of returned value to terminate stream.
+     *
+     * @param pool     Pool of the frame buffers.
+     * @param listener Listener to receive the frames.
+     * @return Started pump.
+     * @throws IOException          I/O error is occurred.
+     * @throws OSCException         Server returned error response.
+     * @throws NullPointerException if pool or listener is null.
+     * @see LivePreviewPump
+     */
+    @Nonnull
+    public LivePreviewPump startLivePreview(@Nonnull final FramePool pool, @Nonnull final LivePreviewPump.Listener listener) throws IOException {
+        Objects.requireNonNull(pool, "pool can not be null.");
+        Objects.requireNonNull(listener, "listener can not be null.");
+
+        return LivePreviewPump.start(oscClient.getLivePreview(), pool, listener);
+    }
+
+    /**
+     * Deletes still image or video files.
+     *
+     * @param fileUrls Files to delete from THETA.
+     * @return Command response.
+     * @throws IOException              I/O error is occurred.
+     * @throws OSCException             Server returned error response.
+     * @throws NullPointerException     if fileUrls is null or contains null.
+     * @throws IllegalArgumentException if fileUrls length less than 1.
+     * @see <a href="https://developers.theta360.com/en/docs/v2.1/api_reference/commands/camera.delete.html">camera.delete · commands · API Reference · v2.1 · API &amp; SDK | RICOH THETA Developers</a>
+     */
+    @Nonnull
+    public CommandResponse<Void> delete(@Nonnull final Collection<URL> fileUrls) throws IOException {
+        return oscClient.commandExecute(Commands.DELETE, toDeleteParameter(fileUrls));
+    }
+
+    /**
+     * Deletes still image or video files asynchronously.
+     *
+     * @param fileUrls Files to delete from THETA.
+     * @return Future of the command response.
+     * @throws NullPointerException     if fileUrls is null or contains null.
+     * @throws IllegalArgumentException if fileUrls length less than 1.
+     * @see Theta#delete(Collection)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> deleteAsync(@Nonnull final Collection<URL> fileUrls) {
+        return oscClient.commandExecuteAsync(Commands.DELETE, toDeleteParameter(fileUrls));
+    }
+
+    /**
+     * Deletes many still image or video files in chunks, and waits for the completion.
+     * The request of the next chunk is sent while the previous chunk is in progress.
+     * Use {@link BulkDelete.Builder} to configure the chunks or to receive the progress.
+     *
+     * @param fileUrls Files to delete from THETA.
+     * @return Summary of the deletion.
+     * @throws IOException          I/O error is occurred.
+     * @throws OSCException         Server returned error response.
+     * @throws NullPointerException if fileUrls is null or contains null.
+     * @see BulkDelete#delete(Collection)
+     */
+    @Nonnull
+    public BulkDelete.Result bulkDelete(@Nonnull final Collection<URL> fileUrls) throws IOException {
+        return new BulkDelete.Builder(this).build().delete(fileUrls);
+    }
+
+    /**
+     * Shows the meta information for the specified still image.
+     *
+     * @param fileUrl File to acquire metadata.
+     * @return Command response.
+     * @throws IOException          I/O error is occurred.
+     * @throws OSCException         Server returned error response.
+     * @throws NullPointerException if fileUrl is null.
+     * @see <a href="https://developers.theta360.com/en/docs/v2.1/api_reference/commands/camera._get_metadata.html">camera._getMetadata · commands · API Reference · v2.1 · API &amp; SDK | RICOH THETA Developers</a>
+     */
+    @Nonnull
+    public CommandResponse<Metadata> getMetadata(@Nonnull final URL fileUrl) throws IOException {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+
+        final GetMetadata.Parameter parameter = new GetMetadata.Parameter(fileUrl);
+        return oscClient.commandExecute(Commands.GET_METADATA, parameter);
+    }
+
+    /**
+     * Shows the meta information for the specified still image asynchronously.
+     *
+     * @param fileUrl File to acquire metadata.
+     * @return Future of the command response.
+     * @throws NullPointerException if fileUrl is null.
+     * @see Theta#getMetadata(URL)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Metadata>> getMetadataAsync(@Nonnull final URL fileUrl) {
+        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+
+        final GetMetadata.Parameter parameter = new GetMetadata.Parameter(fileUrl);
+        return oscClient.commandExecuteAsync(Commands.GET_METADATA, parameter);
+    }
+
+    /**
+     * Download the still image or video file to the path.
+     * If the file already exists, it is overwritten.
+     *
+     * @param fileUrl File to download. For example {@link FileInfo#getFileUrl()}.
+     * @param path    Path to save the file.
+     * @return Byte count and elapsed time of the download.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if fileUrl or path is null.
+     * @see OSCClient#download(URL, Path)
+     */
+    @Nonnull
+    public DownloadResult download(@Nonnull final URL fileUrl, @Nonnull final Path path) throws IOException {
+        return oscClient.download(fileUrl, path);
+    }
+
+    /**
+     * Download the still image or video file to the path with progress notification.
+     * The listener is called on the calling thread.
+     *
+     * @param fileUrl  File to download. For example {@link FileInfo#getFileUrl()}.
+     * @param path     Path to save the file.
+     * @param listener Listener of the progress. Set null if the progress is not need.
+     * @return Byte count and elapsed time of the download.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if fileUrl or path is null.
+     * @see OSCClient#download(URL, Path, OSCClient.ProgressListener)
+     */
+    @Nonnull
+    public DownloadResult download(@Nonnull final URL fileUrl, @Nonnull final Path path, @Nullable final OSCClient.ProgressListener listener) throws IOException {
+        return oscClient.download(fileUrl, path, listener);
+    }
+
+    /**
+     * Download the still image or video file to the path, resuming the previous interrupted download if any.
+     * While downloading, the bytes are written to "name.part" and the completed byte ranges are recorded in "name.journal"
+     * next to the path. If the download is interrupted, calling this method again requests only the missing ranges,
+     * even after the restart of the JVM.
+     * The part file is moved to the path after its size is verified with {@link FileInfo#getSize()}.
+     * The listener is called on the calling thread.
+     *
+     * @param file     File to download.
+     * @param path     Path to save the file.
+     * @param listener Listener of the progress. Set null if the progress is not need.
+     * @return Byte count downloaded by this call and elapsed time.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if file or path is null.
+     */
+    @Nonnull
+    public DownloadResult downloadResumable(@Nonnull final FileInfo file, @Nonnull final Path path, @Nullable final OSCClient.ProgressListener listener) throws IOException {
+        Objects.requireNonNull(file, "file can not be null.");
+        Objects.requireNonNull(path, "path can not be null.");
+
+        return ResumableDownload.download(oscClient, file.getFileUrl(), file.getSize(), path, listener);
+    }
+
+    /**
+     * Download the still image or video file to the path in parallel byte ranges, resuming the previous interrupted download if any.
+     * A single connection often can not use the full throughput of the wireless LAN.
+     * This method splits the file into chunks and downloads them on up to maxConnections connections.
+     * The chunk size and the number of the connections adapt to the measured throughput.
+     * The listener is called on the download threads, but not concurrently.
+     *
+     * @param file           File to download.
+     * @param path           Path to save the file.
+     * @param maxConnections Max number of the connections for the file.
+     * @param listener       Listener of the progress. Set null if the progress is not need.
+     * @return Byte count downloaded by this call and elapsed time.
+     * @throws IOException              I/O error is occurred.
+     * @throws NullPointerException     if file or path is null.
+     * @throws IllegalArgumentException if maxConnections is less than 1.
+     * @see Theta#downloadResumable(FileInfo, Path, OSCClient.ProgressListener)
+     */
+    @Nonnull
+    public DownloadResult downloadResumable(@Nonnull final FileInfo file, @Nonnull final Path path, final int maxConnections, @Nullable final OSCClient.ProgressListener listener) throws IOException {
+        Objects.requireNonNull(file, "file can not be null.");
+        Objects.requireNonNull(path, "path can not be null.");
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be 1 or more.");
+        }
+
+        return ResumableDownload.download(oscClient, file.getFileUrl(), file.getSize(), path, maxConnections, listener);
+    }
+
+    /**
+     * Download the still image or video file to the stream.
+     * The stream is not closed by this method.
+     *
+     * @param fileUrl File to download. For example {@link FileInfo#getFileUrl()}.
+     * @param out     Stream to write the file.
+     * @return Byte count and elapsed time of the download.
+     * @throws IOException          I/O error is occurred.
+     * @throws NullPointerException if fileUrl or out is null.
+     * @see OSCClient#download(URL, OutputStream)
+     */
+    @Nonnull
+    public DownloadResult download(@Nonnull final URL fileUrl, @Nonnull final OutputStream out) throws IOException {
+        return oscClient.download(fileUrl, out);
     }
 
     /**
-     * Deletes still image or video files.
+     * Download the still image or video file from the position until the end to the stream.
+     * The stream is not closed by this method.
      *
-     * @param fileUrls Files to delete from THETA.
-     * @return Command response.
-     * @throws IOException              I/O error is occurred.
-     * @throws OSCException             Server returned error response.
-     * @throws NullPointerException     if fileUrls is null or contains null.
-     * @throws IllegalArgumentException if fileUrls length less than 1.
-     * @see <a href="https://developers.theta360.com/en/docs/v2.1/api_reference/commands/camera.delete.html">camera.delete · commands · API Reference · v2.1 · API &amp; SDK | RICOH THETA Developers</a>
+     * @param fileUrl  File to download. For example {@link FileInfo#getFileUrl()}.
+     * @param out      Stream to write the bytes.
+     * @param position Position of the first byte to download.
+     * @return Byte count and elapsed time of the download.
+     * @throws RangeNotSupportedException if the server ignored the range not starting at 0.
+     * @throws IOException                I/O error is occurred.
+     * @throws NullPointerException       if fileUrl or out is null.
+     * @throws IllegalArgumentException   if position is negative.
+     * @see OSCClient#downloadRange(URL, OutputStream, long)
      */
     @Nonnull
-    public CommandResponse<Void> delete(@Nonnull final Collection<URL> fileUrls) throws IOException {
-        Objects.requireNonNull(fileUrls, "fileUrls can not be null.");
-        if (fileUrls.size() < 1) {
-            throw new IllegalArgumentException("fileUrls must have 1 or more entries");
-        }
-        if (fileUrls.contains(null)) {
-            throw new NullPointerException("fileUrls can not contain null.");
-        }
-
-        final Delete.Parameter parameter = new Delete.Parameter(fileUrls);
-        return oscClient.commandExecute(Commands.DELETE, parameter);
+    public DownloadResult downloadRange(@Nonnull final URL fileUrl, @Nonnull final OutputStream out, final long position) throws IOException {
+        return oscClient.downloadRange(fileUrl, out, position);
     }
 
     /**
-     * Shows the meta information for the specified still image.
+     * Mirror the files of THETA into the local directory.
+     * Only the files missing or incomplete in the directory are downloaded.
+     * Use {@link StorageSync.Builder} to configure the transfers or to delete the copied files from THETA.
      *
-     * @param fileUrl File to acquire metadata.
-     * @return Command response.
+     * @param localDir Directory to mirror the files.
+     * @return Summary of the synchronization.
      * @throws IOException          I/O error is occurred.
      * @throws OSCException         Server returned error response.
-     * @throws NullPointerException if fileUrl is null.
-     * @see <a href="https://developers.theta360.com/en/docs/v2.1/api_reference/commands/camera._get_metadata.html">camera._getMetadata · commands · API Reference · v2.1 · API &amp; SDK | RICOH THETA Developers</a>
+     * @throws NullPointerException if localDir is null.
+     * @see StorageSync#sync()
      */
     @Nonnull
-    public CommandResponse<Metadata> getMetadata(@Nonnull final URL fileUrl) throws IOException {
-        Objects.requireNonNull(fileUrl, "fileUrl can not be null.");
+    public StorageSync.Result sync(@Nonnull final Path localDir) throws IOException {
+        Objects.requireNonNull(localDir, "localDir can not be null.");
 
-        final GetMetadata.Parameter parameter = new GetMetadata.Parameter(fileUrl);
-        return oscClient.commandExecute(Commands.GET_METADATA, parameter);
+        return new StorageSync.Builder(this, localDir).build().sync();
     }
 
     /**
@@ -427,6 +1112,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.RESET);
     }
 
+    /**
+     * Reset all device settings and capture settings asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#reset()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> resetAsync() {
+        return oscClient.commandExecuteAsync(Commands.RESET);
+    }
+
     /**
      * Acquires the default shooting property for boot time.
      *
@@ -443,6 +1139,21 @@ public final class Theta {
         return getMySettings(captureMode, option).get(option);
     }
 
+    /**
+     * Acquires the default shooting property for boot time asynchronously.
+     *
+     * @param captureMode Capture mode.
+     * @param option      Option to acquire value.
+     * @param <T>         Type of option.
+     * @return Future of the acquired property.
+     * @throws NullPointerException if argument is null or contains null.
+     * @see Theta#getMySetting(CaptureMode, Option)
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> getMySettingAsync(@Nonnull final CaptureMode captureMode, @Nonnull final Option<T> option) {
+        return thenApply(getMySettingsAsync(captureMode, option), optionSet -> optionSet.get(option));
+    }
+
     /**
      * Acquires the default shooting properties for boot time.
      *
@@ -459,6 +1170,20 @@ public final class Theta {
         return getMySettings(captureMode, Arrays.asList(options));
     }
 
+    /**
+     * Acquires the default shooting properties for boot time asynchronously.
+     *
+     * @param captureMode Capture mode.
+     * @param options     Options to acquire values.
+     * @return Future of the acquired properties.
+     * @throws NullPointerException if argument is null or contains null.
+     * @see Theta#getMySettings(CaptureMode, Option...)
+     */
+    @Nonnull
+    public CompletableFuture<OptionSet> getMySettingsAsync(@Nonnull final CaptureMode captureMode, @Nonnull final Option... options) {
+        return getMySettingsAsync(captureMode, Arrays.asList(options));
+    }
+
     /**
      * Acquires the default shooting properties for boot time.
      *
@@ -472,17 +1197,25 @@ public final class Theta {
      */
     @Nonnull
     public OptionSet getMySettings(@Nonnull final CaptureMode captureMode, @Nonnull final Collection<Option> options) throws IOException {
-        Objects.requireNonNull(captureMode, "captureMode can not be null.");
-        Objects.requireNonNull(options, "options can not be null.");
-        if (options.contains(null)) {
-            throw new NullPointerException("options can not contain null.");
-        }
-
-        final List<String> optionNames = options.stream().map(Option::getName).collect(Collectors.toList());
-        final GetMySetting.Parameter parameter = new GetMySetting.Parameter(captureMode, optionNames);
+        final GetMySetting.Parameter parameter = toGetMySettingParameter(captureMode, options);
         return oscClient.commandExecute(Commands.GET_MY_SETTINGS, parameter).getResult();
     }
 
+    /**
+     * Acquires the default shooting properties for boot time asynchronously.
+     *
+     * @param captureMode Capture mode.
+     * @param options     Options to acquire values.
+     * @return Future of the acquired properties.
+     * @throws NullPointerException if argument is null or contains null.
+     * @see Theta#getMySettings(CaptureMode, Collection)
+     */
+    @Nonnull
+    public CompletableFuture<OptionSet> getMySettingsAsync(@Nonnull final CaptureMode captureMode, @Nonnull final Collection<Option> options) {
+        final GetMySetting.Parameter parameter = toGetMySettingParameter(captureMode, options);
+        return thenApply(oscClient.commandExecuteAsync(Commands.GET_MY_SETTINGS, parameter), CommandResponse::getResult);
+    }
+
     /**
      * Set the default shooting properties for boot time.
      *
@@ -505,6 +1238,28 @@ public final class Theta {
         setMySettings(captureMode, optionSet);
     }
 
+    /**
+     * Set the default shooting properties for boot time asynchronously.
+     *
+     * @param captureMode Capture mode.
+     * @param option      Option to set value.
+     * @param value       Value to set.
+     * @param <T>         Type of option.
+     * @return Future which is completed when the property is set.
+     * @throws NullPointerException if argument is null or contains null.
+     * @see Theta#setMySetting(CaptureMode, Option, Object)
+     */
+    @Nonnull
+    public <T> CompletableFuture<Void> setMySettingAsync(@Nonnull final CaptureMode captureMode, @Nonnull final Option<T> option, T value) {
+        Objects.requireNonNull(option, "option can not be null.");
+        Objects.requireNonNull(value, "value can not be null.");
+
+        final OptionSet optionSet = new OptionSet.Builder()
+                .put(option, value)
+                .build();
+        return setMySettingsAsync(captureMode, optionSet);
+    }
+
     /**
      * Set the default shooting properties for boot time.
      *
@@ -523,6 +1278,24 @@ public final class Theta {
         oscClient.commandExecute(Commands.SET_MY_SETTINGS, parameter);
     }
 
+    /**
+     * Set the default shooting properties for boot time asynchronously.
+     *
+     * @param captureMode Capture mode.
+     * @param optionSet   Set of options to store.
+     * @return Future which is completed when the properties are set.
+     * @throws NullPointerException if argument is null.
+     * @see Theta#setMySettings(CaptureMode, OptionSet)
+     */
+    @Nonnull
+    public CompletableFuture<Void> setMySettingsAsync(@Nonnull final CaptureMode captureMode, @Nonnull final OptionSet optionSet) {
+        Objects.requireNonNull(captureMode, "captureMode can not be null.");
+        Objects.requireNonNull(optionSet, "optionSet can not be null.");
+
+        final SetMySetting.Parameter parameter = new SetMySetting.Parameter(captureMode, optionSet);
+        return thenApply(oscClient.commandExecuteAsync(Commands.SET_MY_SETTINGS, parameter), response -> null);
+    }
+
     /**
      * Delete the default shooting properties for boot time.
      *
@@ -538,6 +1311,22 @@ public final class Theta {
         oscClient.commandExecute(Commands.DELETE_MY_SETTING, parameter);
     }
 
+    /**
+     * Delete the default shooting properties for boot time asynchronously.
+     *
+     * @param captureMode Capture mode to delete the settings.
+     * @return Future which is completed when the properties are deleted.
+     * @throws NullPointerException if argument is null.
+     * @see Theta#deleteMySettings(CaptureMode)
+     */
+    @Nonnull
+    public CompletableFuture<Void> deleteMySettingsAsync(@Nonnull final CaptureMode captureMode) {
+        Objects.requireNonNull(captureMode, "captureMode can not be null.");
+
+        final DeleteMySetting.Parameter parameter = new DeleteMySetting.Parameter(captureMode);
+        return thenApply(oscClient.commandExecuteAsync(Commands.DELETE_MY_SETTING, parameter), response -> null);
+    }
+
     /**
      * Stop running self-timer.
      *
@@ -551,6 +1340,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.STOP_SELF_TIMER);
     }
 
+    /**
+     * Stop running self-timer asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#stopSelfTimer()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> stopSelfTimerAsync() {
+        return oscClient.commandExecuteAsync(Commands.STOP_SELF_TIMER);
+    }
+
     /**
      * Converts the movie format of a saved movie.
      *
@@ -568,6 +1368,21 @@ public final class Theta {
         return oscClient.commandExecute(Commands.CONVERT_VIDEO_FORMATS, parameter);
     }
 
+    /**
+     * Converts the movie format of a saved movie asynchronously.
+     *
+     * @param parameter Command parameter.
+     * @return Future of the command response.
+     * @throws NullPointerException if parameter is null.
+     * @see Theta#convertVideoFormats(ConvertVideoFormats.Parameter)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<ConvertVideoFormats.Result>> convertVideoFormatsAsync(@Nonnull final ConvertVideoFormats.Parameter parameter) {
+        Objects.requireNonNull(parameter, "parameter can not be null.");
+
+        return oscClient.commandExecuteAsync(Commands.CONVERT_VIDEO_FORMATS, parameter);
+    }
+
     /**
      * Cancels the movie format conversion.
      *
@@ -581,6 +1396,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.CANCEL_VIDEO_CONVERT);
     }
 
+    /**
+     * Cancels the movie format conversion asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#cancelVideoConvert()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> cancelVideoConvertAsync() {
+        return oscClient.commandExecuteAsync(Commands.CANCEL_VIDEO_CONVERT);
+    }
+
     /**
      * Registers identification information (UUID) of a BLE device to the camera.
      *
@@ -599,6 +1425,22 @@ public final class Theta {
         return oscClient.commandExecute(Commands.SET_BLUETOOTH_DEVICE, parameter);
     }
 
+    /**
+     * Registers identification information (UUID) of a BLE device to the camera asynchronously.
+     *
+     * @param uuid UUID for a BLE device.
+     * @return Future of the command response.
+     * @throws NullPointerException if uuid is null.
+     * @see Theta#setBluetoothDevice(String)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<SetBluetoothDevice.Result>> setBluetoothDeviceAsync(@Nonnull final String uuid) {
+        Objects.requireNonNull(uuid, "uuid can not be null.");
+
+        final SetBluetoothDevice.Parameter parameter = new SetBluetoothDevice.Parameter(uuid);
+        return oscClient.commandExecuteAsync(Commands.SET_BLUETOOTH_DEVICE, parameter);
+    }
+
     /**
      * Acquires the access point list used in client mode.
      *
@@ -612,6 +1454,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.LIST_ACCESS_POINTS);
     }
 
+    /**
+     * Acquires the access point list used in client mode asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#listAccessPoints()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<ListAccessPoints.Result>> listAccessPointsAsync() {
+        return oscClient.commandExecuteAsync(Commands.LIST_ACCESS_POINTS);
+    }
+
     /**
      * Sets the access point information used in client mode.
      *
@@ -629,6 +1482,21 @@ public final class Theta {
         return oscClient.commandExecute(Commands.SET_ACCESS_POINT, accessPoint);
     }
 
+    /**
+     * Sets the access point information used in client mode asynchronously.
+     *
+     * @param accessPoint Access point information to register.
+     * @return Future of the command response.
+     * @throws NullPointerException if accessPoint is null.
+     * @see Theta#setAccessPoint(AccessPoint)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> setAccessPointAsync(@Nonnull final AccessPoint accessPoint) {
+        Objects.requireNonNull(accessPoint, "accessPoint can not be null.");
+
+        return oscClient.commandExecuteAsync(Commands.SET_ACCESS_POINT, accessPoint);
+    }
+
     /**
      * Deletes access point information used in client mode.
      *
@@ -647,6 +1515,22 @@ public final class Theta {
         return oscClient.commandExecute(Commands.DELETE_ACCESS_POINT, parameter);
     }
 
+    /**
+     * Deletes access point information used in client mode asynchronously.
+     *
+     * @param ssid SSID of access point to delete.
+     * @return Future of the command response.
+     * @throws NullPointerException if ssid is null.
+     * @see Theta#deleteAccessPoint(String)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> deleteAccessPointAsync(@Nonnull final String ssid) {
+        Objects.requireNonNull(ssid, "ssid can not be null.");
+
+        final DeleteAccessPoint.Parameter parameter = new DeleteAccessPoint.Parameter(ssid);
+        return oscClient.commandExecuteAsync(Commands.DELETE_ACCESS_POINT, parameter);
+    }
+
     /**
      * Acquires a list of installed plugins.
      *
@@ -660,6 +1544,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.LIST_PLUGINS);
     }
 
+    /**
+     * Acquires a list of installed plugins asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#listPlugins()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<ListPlugins.Result>> listPluginsAsync() {
+        return oscClient.commandExecuteAsync(Commands.LIST_PLUGINS);
+    }
+
     /**
      * Sets the installed pug-in for boot.
      *
@@ -678,6 +1573,22 @@ public final class Theta {
         return oscClient.commandExecute(Commands.SET_PLUGIN, parameter);
     }
 
+    /**
+     * Sets the installed pug-in for boot asynchronously.
+     *
+     * @param packageName Package name of the plug-in for boot.
+     * @return Future of the command response.
+     * @throws NullPointerException if packageName is null.
+     * @see Theta#setPlugin(String)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> setPluginAsync(@Nonnull final String packageName) {
+        Objects.requireNonNull(packageName, "packageName can not be null.");
+
+        final SetPlugin.Parameter parameter = new SetPlugin.Parameter(packageName, true);
+        return oscClient.commandExecuteAsync(Commands.SET_PLUGIN, parameter);
+    }
+
     /**
      * Controls the plug-in.
      *
@@ -693,6 +1604,19 @@ public final class Theta {
         return pluginControl(action, null);
     }
 
+    /**
+     * Controls the plug-in asynchronously.
+     *
+     * @param action Action
+     * @return Future of the command response.
+     * @throws NullPointerException if action is null.
+     * @see Theta#pluginControl(PluginAction)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> pluginControlAsync(@Nonnull final PluginAction action) {
+        return pluginControlAsync(action, null);
+    }
+
     /**
      * Controls the plug-in.
      *
@@ -712,6 +1636,23 @@ public final class Theta {
         return oscClient.commandExecute(Commands.PLUGIN_CONTROL, parameter);
     }
 
+    /**
+     * Controls the plug-in asynchronously.
+     *
+     * @param action      Action
+     * @param packageName Package name of the plugin to control.
+     * @return Future of the command response.
+     * @throws NullPointerException if action is null.
+     * @see Theta#pluginControl(PluginAction, String)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> pluginControlAsync(@Nonnull final PluginAction action, @Nullable final String packageName) {
+        Objects.requireNonNull(action, "action can not be null.");
+
+        final PluginControl.Parameter parameter = new PluginControl.Parameter(action, packageName);
+        return oscClient.commandExecuteAsync(Commands.PLUGIN_CONTROL, parameter);
+    }
+
     /**
      * Get the package names of the start-up plug-in.
      *
@@ -723,6 +1664,17 @@ public final class Theta {
         return oscClient.commandExecute(Commands.GET_PLUGIN_ORDERS);
     }
 
+    /**
+     * Get the package names of the start-up plug-in asynchronously.
+     *
+     * @return Future of the command response.
+     * @see Theta#getPluginOrders()
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<GetPluginOrders.Result>> getPluginOrdersAsync() {
+        return oscClient.commandExecuteAsync(Commands.GET_PLUGIN_ORDERS);
+    }
+
     /**
      * Set the package names of the start-up plug-in.
      *
@@ -741,4 +1693,66 @@ public final class Theta {
         final SetPluginOrders.Parameter parameter = new SetPluginOrders.Parameter(packageNames);
         return oscClient.commandExecute(Commands.SET_PLUGIN_ORDERS, parameter);
     }
+
+    /**
+     * Set the package names of the start-up plug-in asynchronously.
+     *
+     * @param packageNames List of package names of the start-up plug-in.
+     * @return Future of the command response.
+     * @throws NullPointerException if packageNames is null or contains null.
+     * @see Theta#setPluginOrders(List)
+     */
+    @Nonnull
+    public CompletableFuture<CommandResponse<Void>> setPluginOrdersAsync(@Nonnull final List<String> packageNames) {
+        Objects.requireNonNull(packageNames, "packageNames can not be null.");
+        if (packageNames.contains(null)) {
+            throw new NullPointerException("packageNames can not contain null.");
+        }
+
+        final SetPluginOrders.Parameter parameter = new SetPluginOrders.Parameter(packageNames);
+        return oscClient.commandExecuteAsync(Commands.SET_PLUGIN_ORDERS, parameter);
+    }
+
+    // Helpers
+
+    private static Command<ListFiles.Parameter, ListFiles.Result> listFilesCommand(final ListFiles.Parameter parameter) {
+        return parameter.isThumbnailSkipped() ? Commands.LIST_FILES_SKIPPING_THUMBNAIL : Commands.LIST_FILES;
+    }
+
+    private static Delete.Parameter toDeleteParameter(final Collection<URL> fileUrls) {
+        Objects.requireNonNull(fileUrls, "fileUrls can not be null.");
+        if (fileUrls.size() < 1) {
+            throw new IllegalArgumentException("fileUrls must have 1 or more entries");
+        }
+        if (fileUrls.contains(null)) {
+            throw new NullPointerException("fileUrls can not contain null.");
+        }
+
+        return new Delete.Parameter(fileUrls);
+    }
+
+    private static GetMySetting.Parameter toGetMySettingParameter(final CaptureMode captureMode, final Collection<Option> options) {
+        Objects.requireNonNull(captureMode, "captureMode can not be null.");
+        Objects.requireNonNull(options, "options can not be null.");
+        if (options.contains(null)) {
+            throw new NullPointerException("options can not contain null.");
+        }
+
+        final List<String> optionNames = options.stream().map(Option::getName).collect(Collectors.toList());
+        return new GetMySetting.Parameter(captureMode, optionNames);
+    }
+
+    /**
+     * Same as {@link CompletableFuture#thenApply(Function)},
+     * but cancelling the returned future also cancels the source future.
+     */
+    private static <T, U> CompletableFuture<U> thenApply(final CompletableFuture<T> source, final Function<? super T, ? extends U> fn) {
+        final CompletableFuture<U> future = source.thenApply(fn);
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return future;
+    }
 }
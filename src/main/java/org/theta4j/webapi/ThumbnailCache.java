@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Two-tier cache of the decoded thumbnails.
+ * The memory tier is a LRU cache bounded by bytes, and the disk tier keeps a file per thumbnail in the directory.
+ * The disk files are read into heap buffers, not mapped,
+ * so the memory tier is bounded by the heap it really uses and a disk file can be replaced or deleted while its thumbnail is in use.
+ * <p>
+ * A thumbnail is keyed by the file URL, the size and the date time of the file,
+ * so the thumbnail of a file overwritten by another one with the same name is not returned.
+ * Call {@link #retainAll(Collection)} with the result of the listing to remove the thumbnails of the deleted files.
+ * This class is thread-safe.
+ */
+public final class ThumbnailCache {
+    private static final String SUFFIX = ".thumb";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+
+    private final long maxMemoryBytes;
+
+    // guarded by this
+    private final LinkedHashMap<String, ByteBuffer> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    // guarded by this
+    private long memoryBytes;
+
+    private ThumbnailCache(final Path directory, final long maxMemoryBytes) {
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * Create ThumbnailCache.
+     *
+     * @param directory      Directory of the disk tier. Created if it does not exist.
+     * @param maxMemoryBytes Max bytes of the thumbnails kept in the memory tier.
+     * @return Created instance.
+     * @throws IOException              I/O error is occurred on creating the directory.
+     * @throws NullPointerException     if directory is null.
+     * @throws IllegalArgumentException if maxMemoryBytes is negative.
+     */
+    @Nonnull
+    public static ThumbnailCache create(@Nonnull final Path directory, final long maxMemoryBytes) throws IOException {
+        Objects.requireNonNull(directory, "directory can not be null.");
+        if (maxMemoryBytes < 0) {
+            throw new IllegalArgumentException("maxMemoryBytes can not be negative.");
+        }
+
+        Files.createDirectories(directory);
+        return new ThumbnailCache(directory, maxMemoryBytes);
+    }
+
+    /**
+     * Store the thumbnail of the file to both tiers.
+     * Nothing is done if the file does not have a thumbnail.
+     *
+     * @param file File having the thumbnail, acquired with maxThumbSize option.
+     * @throws IOException          I/O error is occurred on the disk tier.
+     * @throws NullPointerException if file is null.
+     */
+    public void put(@Nonnull final FileInfo file) throws IOException {
+        Objects.requireNonNull(file, "file can not be null.");
+        final ByteBuffer decoded = file.decodeThumbnail(null);
+        if (decoded == null) {
+            return;
+        }
+
+        final String key = key(file);
+        final Path path = directory.resolve(key + SUFFIX);
+        final Path temp = directory.resolve(key + SUFFIX + ".tmp");
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer src = decoded.duplicate();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+
+        // copy to the exact size, the decode buffer has some spare capacity.
+        final byte[] bytes = new byte[decoded.remaining()];
+        decoded.get(bytes);
+        putMemory(key, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Returns the thumbnail of the file. The memory tier is looked up first, and then the disk tier.
+     *
+     * @param file File to get the thumbnail.
+     * @return Read-only buffer of the thumbnail image, or null if not cached.
+     * @throws IOException          I/O error is occurred on the disk tier.
+     * @throws NullPointerException if file is null.
+     */
+    @Nullable
+    public ByteBuffer get(@Nonnull final FileInfo file) throws IOException {
+        Objects.requireNonNull(file, "file can not be null.");
+
+        final String key = key(file);
+        synchronized (this) {
+            final ByteBuffer cached = memory.get(key);
+            if (cached != null) {
+                return cached.asReadOnlyBuffer();
+            }
+        }
+
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(directory.resolve(key + SUFFIX), StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    throw new EOFException("thumbnail file is truncated: " + key + SUFFIX);
+                }
+            }
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+        buffer.flip();
+        putMemory(key, buffer);
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Remove the thumbnails of the files not contained in the given files from both tiers.
+     * Call this with the whole file list, to invalidate the thumbnails of the deleted files.
+     *
+     * @param files Files present on THETA.
+     * @throws IOException          I/O error is occurred on the disk tier.
+     * @throws NullPointerException if files is null or contains null.
+     */
+    public void retainAll(@Nonnull final Collection<FileInfo> files) throws IOException {
+        Objects.requireNonNull(files, "files can not be null.");
+
+        final Set<String> keys = new HashSet<>(files.size() * 2);
+        for (final FileInfo file : files) {
+            keys.add(key(Objects.requireNonNull(file, "files can not contain null.")));
+        }
+
+        synchronized (this) {
+            final Iterator<Map.Entry<String, ByteBuffer>> iterator = memory.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, ByteBuffer> entry = iterator.next();
+                if (!keys.contains(entry.getKey())) {
+                    memoryBytes -= entry.getValue().capacity();
+                    iterator.remove();
+                }
+            }
+        }
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                if (!keys.contains(name.substring(0, name.length() - SUFFIX.length()))) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bytes of the thumbnails in the memory tier.
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    private synchronized void putMemory(final String key, final ByteBuffer buffer) {
+        if (buffer.capacity() > maxMemoryBytes) {
+            return;
+        }
+        final ByteBuffer previous = memory.put(key, buffer);
+        if (previous != null) {
+            memoryBytes -= previous.capacity();
+        }
+        memoryBytes += buffer.capacity();
+
+        final Iterator<ByteBuffer> eldest = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes) {
+            memoryBytes -= eldest.next().capacity();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Hash of the file URL, the size and the date time.
+     */
+    private static String key(final FileInfo file) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError(e); // SHA-256 is supported by every Java platform.
+        }
+        final String source = file.getFileUrl() + "\n" + file.getSize() + "\n" + file.getDateTime();
+        final byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+
+        final char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandAwaiterTest {
+    private static final String NAME = "camera.takePicture";
+
+    /**
+     * Fake camera.
+     */
+    private static final class Camera implements Function<CommandResponse<Void>, CompletableFuture<CommandResponse<Void>>> {
+        private final Map<String, Long> doneAt = new ConcurrentHashMap<>();
+
+        private final Map<String, List<Long>> requestedAt = new ConcurrentHashMap<>();
+
+        private int count;
+
+        synchronized CommandResponse<Void> execute(final long durationMillis) {
+            final String id = String.valueOf(++count);
+            doneAt.put(id, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis));
+            requestedAt.put(id, new CopyOnWriteArrayList<>());
+            return response(id, "inProgress");
+        }
+
+        @Override
+        public CompletableFuture<CommandResponse<Void>> apply(final CommandResponse<Void> response) {
+            final long now = System.nanoTime();
+            requestedAt.get(response.getID()).add(now);
+            final boolean done = now - doneAt.get(response.getID()) >= 0;
+            return CompletableFuture.completedFuture(response(response.getID(), done ? "done" : "inProgress"));
+        }
+
+        private static CommandResponse<Void> response(final String id, final String state) {
+            final JsonObject json = new JsonObject();
+            json.addProperty("name", NAME);
+            json.addProperty("state", state);
+            json.addProperty("id", id);
+            return CommandResponse.valueOf(json, Void.class);
+        }
+    }
+
+    @Test
+    void testManyCommandsInRounds() throws Exception {
+        final CommandAwaiter awaiter = new CommandAwaiter();
+        awaiter.setMaxRequestsPerSecond(1000);
+        final Camera camera = new Camera();
+
+        final List<CompletableFuture<CommandResponse<Void>>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(awaiter.await(camera.execute(250), camera, TimeUnit.SECONDS.toNanos(10)));
+            Thread.sleep(1);
+        }
+        for (final CompletableFuture<CommandResponse<Void>> future : futures) {
+            assertEquals(CommandState.DONE, future.get(10, TimeUnit.SECONDS).getState());
+        }
+
+        // the commands started within the round window are polled by the same round.
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (final List<Long> times : camera.requestedAt.values()) {
+            first = Math.min(first, times.get(0));
+            last = Math.max(last, times.get(0));
+        }
+        assertTrue(last - first < TimeUnit.MILLISECONDS.toNanos(20), "spread: " + (last - first));
+        assertEquals(camera.requestedAt.values().stream().mapToInt(List::size).sum(), awaiter.getRequestCount());
+    }
+
+    @Test
+    void testRateLimit() throws Exception {
+        final CommandAwaiter awaiter = new CommandAwaiter();
+        awaiter.setMaxRequestsPerSecond(10);
+        final Camera camera = new Camera();
+
+        final long start = System.nanoTime();
+        final List<CompletableFuture<CommandResponse<Void>>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            futures.add(awaiter.await(camera.execute(0), camera, TimeUnit.SECONDS.toNanos(10)));
+        }
+        for (final CompletableFuture<CommandResponse<Void>> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        // 2 requests of the burst, then 10 requests per second.
+        assertEquals(12, awaiter.getRequestCount());
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(800), "elapsed: " + elapsed);
+    }
+
+    @Test
+    void testLearnedInterval() throws Exception {
+        final CommandAwaiter awaiter = new CommandAwaiter();
+        final Camera camera = new Camera();
+        assertEquals(-1, awaiter.getEstimatedNanos(NAME));
+
+        awaiter.await(camera.execute(500), camera, TimeUnit.SECONDS.toNanos(10)).get();
+
+        assertTrue(awaiter.getEstimatedNanos(NAME) >= TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(awaiter.getEstimatedNanos(NAME) / 10, awaiter.getIntervalNanos(NAME));
+    }
+
+    @Test
+    void testTimeout() {
+        final CommandAwaiter awaiter = new CommandAwaiter();
+        final Camera camera = new Camera();
+
+        final CompletableFuture<CommandResponse<Void>> future = awaiter.await(camera.execute(5000), camera, TimeUnit.MILLISECONDS.toNanos(250));
+
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof InterruptedIOException);
+    }
+
+    @Test
+    void testCancel() throws InterruptedException {
+        final CommandAwaiter awaiter = new CommandAwaiter();
+        final Camera camera = new Camera();
+
+        final CompletableFuture<CommandResponse<Void>> future = awaiter.await(camera.execute(5000), camera, TimeUnit.SECONDS.toNanos(10));
+        Thread.sleep(250);
+        future.cancel(false);
+        Thread.sleep(150);
+        final long count = awaiter.getRequestCount();
+        Thread.sleep(300);
+
+        assertEquals(count, awaiter.getRequestCount());
+    }
+}
@@ -17,9 +17,12 @@
 package org.theta4j.osc;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.junit.jupiter.api.Test;
 import org.theta4j.webapi.TakePicture;
 
+import java.io.StringReader;
+import java.math.BigDecimal;
 import java.net.URL;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,4 +50,46 @@ class CommandResponseTest {
         assertNull(response.getError());
         assertNull(response.getProgress());
     }
+
+    @Test
+    void testValueOfJsonReader() throws Exception {
+        final String json = "{\"name\": \"camera.takePicture\", \"state\": \"done\", \"id\": \"foo\"," +
+                " \"unknown\": {\"a\": [1, 2]}, \"results\": {\"fileUrl\": \"http://example.com/foo\"}}";
+
+        final CommandResponse<TakePicture.Result> response =
+                CommandResponse.valueOf(new JsonReader(new StringReader(json)), TakePicture.Result.class);
+
+        assertEquals(response.getName(), "camera.takePicture");
+        assertEquals(response.getState(), CommandState.DONE);
+        assertEquals(response.getID(), "foo");
+        assertNotNull(response.getResult());
+        assertEquals(response.getResult().getFileUrl(), new URL("http://example.com/foo"));
+        assertNull(response.getError());
+        assertNull(response.getProgress());
+    }
+
+    @Test
+    void testValueOfJsonReaderInProgressAndError() throws Exception {
+        final String inProgress = "{\"name\": \"camera.takePicture\", \"state\": \"inProgress\", \"id\": \"1\"," +
+                " \"progress\": {\"completion\": 0.5}}";
+
+        final CommandResponse<TakePicture.Result> response =
+                CommandResponse.valueOf(new JsonReader(new StringReader(inProgress)), TakePicture.Result.class);
+
+        assertEquals(response.getState(), CommandState.IN_PROGRESS);
+        assertNull(response.getResult());
+        assertNotNull(response.getProgress());
+        assertEquals(response.getProgress().getCompletion(), new BigDecimal("0.5"));
+
+        final String error = "{\"name\": \"camera.takePicture\", \"state\": \"error\"," +
+                " \"error\": {\"code\": \"disabledCommand\", \"message\": \"foo\"}}";
+
+        final CommandResponse<TakePicture.Result> errorResponse =
+                CommandResponse.valueOf(new JsonReader(new StringReader(error)), TakePicture.Result.class);
+
+        assertEquals(errorResponse.getState(), CommandState.ERROR);
+        assertNotNull(errorResponse.getError());
+        assertEquals(errorResponse.getError().getCode(), "disabledCommand");
+        assertEquals(errorResponse.getError().getMessage(), "foo");
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LivePreviewHubTest {
+    private static MJpegInputStream stream(final int frameCount) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (int i = 0; i < frameCount; i++) {
+            final byte[] body = ("frame" + i).getBytes(StandardCharsets.US_ASCII);
+            baos.write(("---osclivepreview---\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            baos.write(body);
+            baos.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        return MJpegInputStream.fromHttpStream("---osclivepreview---", new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    private static final class CountingListener implements LivePreviewPump.Listener {
+        private final long delay;
+
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        private volatile boolean readOnly = true;
+
+        private CountingListener(final long delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public void onFrame(@Nonnull final Frame frame) {
+            final ByteBuffer buffer = frame.getBuffer();
+            readOnly &= buffer.isReadOnly();
+            try {
+                Thread.sleep(delay);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            frame.close();
+        }
+
+        @Override
+        public void onError(@Nonnull final IOException e) {
+            terminated.countDown();
+        }
+    }
+
+    @Test
+    void testFanOut() throws Exception {
+        final FramePool pool = FramePool.create(16);
+        final CountingListener fast = new CountingListener(0);
+        final CountingListener slow = new CountingListener(5);
+
+        try (final LivePreviewHub hub = LivePreviewHub.create(stream(100), pool)) {
+            final LivePreviewHub.Subscription fastSubscription = hub.subscribe(200, LivePreviewHub.DropPolicy.DROP_NEWEST, fast);
+            final LivePreviewHub.Subscription slowSubscription = hub.subscribe(2, LivePreviewHub.DropPolicy.DROP_OLDEST, slow);
+            hub.start();
+
+            assertTrue(fast.terminated.await(10, TimeUnit.SECONDS));
+            assertTrue(slow.terminated.await(10, TimeUnit.SECONDS));
+
+            assertEquals(100, hub.getReadCount());
+            assertEquals(100, fastSubscription.getDeliveredCount());
+            assertEquals(0, fastSubscription.getDroppedCount());
+            assertEquals(100, slowSubscription.getDeliveredCount() + slowSubscription.getDroppedCount());
+            assertTrue(slowSubscription.getDroppedCount() > 0);
+            assertTrue(fast.readOnly);
+            assertTrue(slow.readOnly);
+        }
+
+        // all frames are returned to the pool, so they are reused without allocation.
+        final long allocationCount = pool.getAllocationCount();
+        try (final MJpegInputStream mjpeg = stream(1); final Frame frame = mjpeg.nextFrame(pool)) {
+            assertFalse(frame.getBuffer().isReadOnly());
+        }
+        assertEquals(allocationCount, pool.getAllocationCount());
+    }
+}
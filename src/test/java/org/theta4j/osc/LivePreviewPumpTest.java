@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LivePreviewPumpTest {
+    private static MJpegInputStream stream(final int frameCount) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (int i = 0; i < frameCount; i++) {
+            final byte[] body = ("frame" + i).getBytes(StandardCharsets.US_ASCII);
+            baos.write(("---osclivepreview---\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            baos.write(body);
+            baos.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        return MJpegInputStream.fromHttpStream("---osclivepreview---", new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    void testDropStaleFrames() throws Exception {
+        final CountDownLatch terminated = new CountDownLatch(1);
+        final AtomicReference<IOException> error = new AtomicReference<>();
+
+        final LivePreviewPump pump = LivePreviewPump.start(stream(200), FramePool.create(3), new LivePreviewPump.Listener() {
+            @Override
+            public void onFrame(@Nonnull final Frame frame) {
+                try {
+                    Thread.sleep(5); // slow consumer
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                frame.close();
+            }
+
+            @Override
+            public void onError(@Nonnull final IOException e) {
+                error.set(e);
+                terminated.countDown();
+            }
+        });
+
+        assertTrue(terminated.await(10, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof EOFException);
+        assertEquals(200, pump.getReadCount());
+        assertEquals(pump.getReadCount(), pump.getDeliveredCount() + pump.getDroppedCount());
+        assertTrue(pump.getDroppedCount() > 0);
+        pump.close();
+    }
+}
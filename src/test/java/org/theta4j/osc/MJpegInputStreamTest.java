@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MJpegInputStreamTest {
+    private static final String BOUNDARY = "---osclivepreview---";
+
+    private static byte[] part(final byte[] body) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write((BOUNDARY + "\r\nContent-type: image/jpeg\r\ncontent-length:  " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        baos.write(body);
+        baos.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        return baos.toByteArray();
+    }
+
+    private static byte[] readAll(final InputStream is) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[7];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            baos.write(buffer, 0, n);
+        }
+        return baos.toByteArray();
+    }
+
+    private static MJpegInputStream stream(final byte[]... parts) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (final byte[] part : parts) {
+            baos.write(part);
+        }
+        return MJpegInputStream.fromHttpStream(BOUNDARY, new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    void testNextFrame() throws Exception {
+        final byte[] frame1 = "frame1".getBytes(StandardCharsets.US_ASCII);
+        final byte[] frame2 = new byte[40000];
+        for (int i = 0; i < frame2.length; i++) {
+            frame2[i] = (byte) i;
+        }
+
+        try (final MJpegInputStream mjpeg = stream(part(frame1), part(frame2))) {
+            assertArrayEquals(frame1, readAll(mjpeg.nextFrame()));
+            assertArrayEquals(frame2, readAll(mjpeg.nextFrame()));
+            assertThrows(EOFException.class, mjpeg::nextFrame);
+        }
+    }
+
+    @Test
+    void testSkipUnreadFrame() throws Exception {
+        final byte[] frame1 = "frame1".getBytes(StandardCharsets.US_ASCII);
+        final byte[] frame2 = "frame2".getBytes(StandardCharsets.US_ASCII);
+
+        try (final MJpegInputStream mjpeg = stream(part(frame1), part(frame2))) {
+            final InputStream first = mjpeg.nextFrame();
+            assertEquals('f', first.read());
+
+            assertArrayEquals(frame2, readAll(mjpeg.nextFrame()));
+            assertEquals(-1, first.read());
+        }
+    }
+
+    @Test
+    void testNextFrameWithPool() throws Exception {
+        final byte[] frame1 = "frame1".getBytes(StandardCharsets.US_ASCII);
+        final byte[] frame2 = "frame2-longer".getBytes(StandardCharsets.US_ASCII);
+
+        for (final FramePool pool : new FramePool[]{FramePool.create(1), FramePool.createDirect(1)}) {
+            try (final MJpegInputStream mjpeg = stream(part(frame1), part(frame2), part(frame1))) {
+                final Frame frame = mjpeg.nextFrame(pool);
+                assertEquals(ByteBuffer.wrap(frame1), frame.getBuffer());
+                frame.close();
+                assertThrows(IllegalStateException.class, frame::getBuffer);
+
+                try (final Frame reused = mjpeg.nextFrame(pool)) {
+                    assertSame(frame, reused);
+                    assertEquals(ByteBuffer.wrap(frame2), reused.getBuffer());
+                }
+
+                try (final Frame f = mjpeg.nextFrame(pool)) {
+                    assertEquals(ByteBuffer.wrap(frame1), f.getBuffer());
+                }
+                assertEquals(1, pool.getAllocationCount());
+            }
+        }
+    }
+
+    @Test
+    void testInvalidBoundary() throws Exception {
+        final byte[] invalid = "--unknown--\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        try (final MJpegInputStream mjpeg = stream(invalid)) {
+            assertThrows(IOException.class, mjpeg::nextFrame);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OSCClientTest {
+    private static final byte[] FILE = new byte[1024 * 1024 + 123];
+
+    static {
+        new Random(0).nextBytes(FILE);
+    }
+
+    private HttpServer server;
+
+    private String endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/", exchange -> {
+            exchange.sendResponseHeaders(200, FILE.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                os.write(FILE);
+            }
+        });
+        server.createContext("/missing/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testDownloadToPath(@TempDir final Path dir) throws IOException {
+        final OSCClient client = OSCClient.create(endpoint);
+        final Path path = dir.resolve("R0010001.JPG");
+
+        final DownloadResult result = client.download(new URL(endpoint + "/files/R0010001.JPG"), path);
+
+        assertEquals(FILE.length, result.getBytes());
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+    }
+
+    @Test
+    void testDownloadToStream() throws IOException {
+        final OSCClient client = OSCClient.create(endpoint);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final DownloadResult result = client.download(new URL(endpoint + "/files/R0010001.JPG"), out);
+
+        assertEquals(FILE.length, result.getBytes());
+        assertArrayEquals(FILE, out.toByteArray());
+    }
+
+    @Test
+    void testDownloadNotFound(@TempDir final Path dir) {
+        final OSCClient client = OSCClient.create(endpoint);
+
+        assertThrows(IOException.class, () -> client.download(new URL(endpoint + "/missing/R0010001.JPG"), dir.resolve("R0010001.JPG")));
+    }
+
+    @Test
+    void testDownloadRangeNotSupported(@TempDir final Path dir) throws IOException {
+        final OSCClient client = OSCClient.create(endpoint);
+        final URL fileUrl = new URL(endpoint + "/files/R0010001.JPG");
+
+        try (final FileChannel channel = FileChannel.open(dir.resolve("R0010001.JPG"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // The server ignores the range, so the range from 0 is cut from the whole file.
+            assertEquals(100, client.downloadRange(fileUrl, channel, 0, 100, null).getBytes());
+            assertThrows(RangeNotSupportedException.class, () -> client.downloadRange(fileUrl, channel, 100, 100, null));
+        }
+        assertArrayEquals(Arrays.copyOf(FILE, 100), Files.readAllBytes(dir.resolve("R0010001.JPG")));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptionBatcherTest {
+    private static final Gson GSON = new Gson();
+
+    private static final Option<String> CAPTURE_MODE = Option.create("captureMode", String.class);
+
+    private static final Option<Integer> ISO = Option.create("iso", Integer.class);
+
+    private static final Option<Integer> REMAINING_PICTURES = Option.create("remainingPictures", Integer.class);
+
+    private static final Option<Integer> UNKNOWN = Option.create("unknown", Integer.class);
+
+    private HttpServer server;
+
+    private OSCClient client;
+
+    private final List<List<String>> requestedNames = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile long delayMillis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/osc/commands/execute", this::execute);
+        server.start();
+        client = OSCClient.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void execute(final HttpExchange exchange) throws IOException {
+        final JsonObject request;
+        try (final InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            request = GSON.fromJson(reader, JsonObject.class);
+        }
+        final List<String> names = new ArrayList<>();
+        for (final JsonElement name : request.getAsJsonObject("parameters").getAsJsonArray("optionNames")) {
+            names.add(name.getAsString());
+        }
+        requestedNames.add(names);
+        try {
+            Thread.sleep(delayMillis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final JsonObject response = new JsonObject();
+        response.addProperty("name", "camera.getOptions");
+        if (names.contains("unknown")) {
+            final JsonObject error = new JsonObject();
+            error.addProperty("code", "invalidParameterValue");
+            error.addProperty("message", "unknown option");
+            response.addProperty("state", "error");
+            response.add("error", error);
+        } else {
+            final JsonObject options = new JsonObject();
+            options.addProperty("captureMode", "image");
+            options.addProperty("iso", 200);
+            options.addProperty("remainingPictures", 100);
+            final JsonObject values = new JsonObject();
+            for (final String name : names) {
+                values.add(name, options.get(name));
+            }
+            final JsonObject results = new JsonObject();
+            results.add("options", values);
+            response.addProperty("state", "done");
+            response.add("results", results);
+        }
+
+        final byte[] body = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    @Test
+    void testDisabledByDefault() {
+        final CompletableFuture<String> captureMode = client.getOptionAsync(CAPTURE_MODE);
+        final CompletableFuture<Integer> iso = client.getOptionAsync(ISO);
+
+        assertEquals("image", captureMode.join());
+        assertEquals(200, iso.join());
+        assertEquals(2, requestedNames.size());
+        assertEquals(0, client.getOptionBatchRequestCount());
+    }
+
+    @Test
+    void testMergeWithinWindow() {
+        client.setOptionBatchingEnabled(true);
+        client.setOptionBatchWindow(100, TimeUnit.MILLISECONDS);
+
+        final CompletableFuture<String> captureMode = client.getOptionAsync(CAPTURE_MODE);
+        final CompletableFuture<Integer> iso = client.getOptionAsync(ISO);
+        final CompletableFuture<OptionSet> optionSet = client.getOptionsAsync(ISO, REMAINING_PICTURES);
+
+        assertEquals("image", captureMode.join());
+        assertEquals(200, iso.join());
+        assertEquals(200, optionSet.join().get(ISO));
+        assertEquals(100, optionSet.join().get(REMAINING_PICTURES));
+        assertNull(optionSet.join().get(CAPTURE_MODE));
+
+        assertEquals(1, requestedNames.size());
+        assertEquals(new HashSet<>(Arrays.asList("captureMode", "iso", "remainingPictures")), new HashSet<>(requestedNames.get(0)));
+        assertEquals(3, requestedNames.get(0).size());
+        assertEquals(1, client.getOptionBatchRequestCount());
+    }
+
+    @Test
+    void testMergeWhileInFlight() throws IOException, InterruptedException {
+        client.setOptionBatchingEnabled(true);
+        client.setOptionBatchWindow(0, TimeUnit.MILLISECONDS);
+        delayMillis = 200;
+
+        final CompletableFuture<String> first = client.getOptionAsync(CAPTURE_MODE);
+        Thread.sleep(50);
+        final CompletableFuture<Integer> second = client.getOptionAsync(ISO);
+        final CompletableFuture<Integer> third = client.getOptionAsync(REMAINING_PICTURES);
+
+        assertEquals("image", first.join());
+        assertEquals(200, second.join());
+        assertEquals(100, third.join());
+        assertEquals(Arrays.asList(Collections.singletonList("captureMode"), Arrays.asList("iso", "remainingPictures")), requestedNames);
+
+        // The blocking call is also served.
+        assertEquals(200, client.getOption(ISO));
+        assertEquals(3, client.getOptionBatchRequestCount());
+    }
+
+    @Test
+    void testErrorDoesNotFailOtherCalls() {
+        client.setOptionBatchingEnabled(true);
+        client.setOptionBatchWindow(100, TimeUnit.MILLISECONDS);
+
+        final CompletableFuture<Integer> iso = client.getOptionAsync(ISO);
+        final CompletableFuture<Integer> unknown = client.getOptionAsync(UNKNOWN);
+
+        assertEquals(200, iso.join());
+        final CompletionException e = assertThrows(CompletionException.class, unknown::join);
+        assertTrue(e.getCause() instanceof OSCException);
+        assertEquals("invalidParameterValue", ((OSCException) e.getCause()).getCode());
+        assertEquals(3, requestedNames.size());
+    }
+
+    @Test
+    void testBlockingCallThrowsError() {
+        client.setOptionBatchingEnabled(true);
+
+        final OSCException e = assertThrows(OSCException.class, () -> client.getOption(UNKNOWN));
+        assertEquals("invalidParameterValue", e.getCode());
+    }
+
+    @Test
+    void testIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> client.setOptionBatchWindow(-1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> client.setOptionBatchWindow(1, null));
+    }
+}
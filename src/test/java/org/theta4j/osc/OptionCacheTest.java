@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.osc;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptionCacheTest {
+    private static final Gson GSON = new Gson();
+
+    private static final Option<String> CAPTURE_MODE = Option.create("captureMode", String.class);
+
+    private static final Option<Integer> REMAINING_PICTURES = Option.create("remainingPictures", Integer.class);
+
+    private static final ArrayOption<Integer> ISO_SUPPORT = ArrayOption.create("isoSupport", Integer.class);
+
+    private HttpServer server;
+
+    private OSCClient client;
+
+    private final JsonObject options = new JsonObject();
+
+    private final AtomicInteger getOptionsCount = new AtomicInteger();
+
+    private final List<List<String>> requestedNames = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile String fingerprint = "FIG_0";
+
+    // camera.setOptions waits for this after it is received, then applies the options and responds the error.
+    private volatile CountDownLatch setOptionsFailure;
+
+    private final CountDownLatch setOptionsReceived = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        options.addProperty("captureMode", "image");
+        options.addProperty("remainingPictures", 100);
+        options.add("isoSupport", GSON.toJsonTree(Arrays.asList(100, 200, 400)));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/osc/commands/execute", this::execute);
+        server.createContext("/osc/state", exchange -> {
+            final JsonObject response = new JsonObject();
+            response.addProperty("fingerprint", fingerprint);
+            response.add("state", new JsonObject());
+            respond(exchange, response);
+        });
+        server.createContext("/osc/checkForUpdates", exchange -> {
+            final JsonObject response = new JsonObject();
+            response.addProperty("stateFingerprint", fingerprint);
+            response.addProperty("throttleTimeout", 0);
+            respond(exchange, response);
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = OSCClient.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void execute(final HttpExchange exchange) throws IOException {
+        final JsonObject request;
+        try (final InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            request = GSON.fromJson(reader, JsonObject.class);
+        }
+        final String name = request.get("name").getAsString();
+        final JsonObject parameters = request.getAsJsonObject("parameters");
+        final CountDownLatch failure = setOptionsFailure;
+        if (name.equals("camera.setOptions") && failure != null) {
+            setOptionsReceived.countDown();
+            try {
+                failure.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final JsonObject results = new JsonObject();
+        synchronized (options) {
+            if (name.equals("camera.getOptions")) {
+                getOptionsCount.incrementAndGet();
+                final List<String> names = new ArrayList<>();
+                final JsonObject values = new JsonObject();
+                for (final JsonElement optionName : parameters.getAsJsonArray("optionNames")) {
+                    names.add(optionName.getAsString());
+                    values.add(optionName.getAsString(), options.get(optionName.getAsString()));
+                }
+                requestedNames.add(names);
+                results.add("options", values);
+            } else {
+                for (final Map.Entry<String, JsonElement> entry : parameters.getAsJsonObject("options").entrySet()) {
+                    options.add(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        final JsonObject response = new JsonObject();
+        response.addProperty("name", name);
+        response.addProperty("state", "done");
+        if (results.size() > 0) {
+            response.add("results", results);
+        }
+        if (name.equals("camera.setOptions") && failure != null) {
+            final JsonObject error = new JsonObject();
+            error.addProperty("code", "invalidParameterValue");
+            error.addProperty("message", "partially applied");
+            response.addProperty("state", "error");
+            response.add("error", error);
+        }
+        respond(exchange, response);
+    }
+
+    private static void respond(final HttpExchange exchange, final JsonObject response) throws IOException {
+        final byte[] body = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private void putOption(final String name, final Object value) {
+        synchronized (options) {
+            options.add(name, GSON.toJsonTree(value));
+        }
+    }
+
+    @Test
+    void testDisabledByDefault() throws IOException {
+        assertEquals("image", client.getOption(CAPTURE_MODE));
+        assertEquals("image", client.getOption(CAPTURE_MODE));
+
+        assertEquals(2, getOptionsCount.get());
+        assertEquals(0, client.getOptionCacheHitCount());
+        assertEquals(0, client.getOptionCacheMissCount());
+    }
+
+    @Test
+    void testRequestOnlyMissingOptions() throws IOException {
+        client.setOptionCacheTtl(1, TimeUnit.MINUTES);
+
+        assertEquals("image", client.getOption(CAPTURE_MODE));
+        final OptionSet optionSet = client.getOptions(CAPTURE_MODE, REMAINING_PICTURES);
+        assertEquals("image", optionSet.get(CAPTURE_MODE));
+        assertEquals(100, optionSet.get(REMAINING_PICTURES));
+        assertEquals(100, client.getOptionAsync(REMAINING_PICTURES).join());
+
+        assertEquals(Arrays.asList(Collections.singletonList("captureMode"), Collections.singletonList("remainingPictures")), requestedNames);
+        assertEquals(2, client.getOptionCacheHitCount());
+        assertEquals(2, client.getOptionCacheMissCount());
+        assertEquals(1, client.getOptionCacheSavedRequestCount());
+    }
+
+    @Test
+    void testExpire() throws IOException, InterruptedException {
+        client.setOptionCacheTtl(1, TimeUnit.MINUTES);
+        client.setOptionCacheTtl(REMAINING_PICTURES, 50, TimeUnit.MILLISECONDS);
+
+        client.getOptions(CAPTURE_MODE, REMAINING_PICTURES);
+        putOption("remainingPictures", 99);
+        Thread.sleep(100);
+
+        final OptionSet optionSet = client.getOptions(CAPTURE_MODE, REMAINING_PICTURES);
+        assertEquals(99, optionSet.get(REMAINING_PICTURES));
+        assertEquals(Collections.singletonList("remainingPictures"), requestedNames.get(1));
+    }
+
+    @Test
+    void testPerOptionTtlWithoutDefault() throws IOException {
+        client.setOptionCacheTtl(CAPTURE_MODE, 1, TimeUnit.MINUTES);
+
+        client.getOption(CAPTURE_MODE);
+        client.getOption(CAPTURE_MODE);
+        client.getOption(REMAINING_PICTURES);
+        client.getOption(REMAINING_PICTURES);
+
+        assertEquals(3, getOptionsCount.get());
+    }
+
+    @Test
+    void testInvalidateOnSetOptions() throws IOException {
+        client.setOptionCacheTtl(1, TimeUnit.MINUTES);
+
+        client.getOptions(CAPTURE_MODE, ISO_SUPPORT);
+        client.setOption(CAPTURE_MODE, "video");
+
+        assertEquals("video", client.getOption(CAPTURE_MODE));
+        assertEquals(Arrays.asList(100, 200, 400), client.getOption(ISO_SUPPORT));
+        assertEquals(2, getOptionsCount.get());
+    }
+
+    @Test
+    void testInvalidateOnSetOptionsAsyncError() throws IOException, InterruptedException {
+        client.setOptionCacheTtl(1, TimeUnit.MINUTES);
+        setOptionsFailure = new CountDownLatch(1);
+
+        final CompletableFuture<Void> future = client.setOptionAsync(CAPTURE_MODE, "video");
+        setOptionsReceived.await();
+        // cached while the command is in progress.
+        assertEquals("image", client.getOption(CAPTURE_MODE));
+        setOptionsFailure.countDown();
+
+        final ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof OSCException);
+        assertEquals("video", client.getOption(CAPTURE_MODE));
+        assertEquals(2, getOptionsCount.get());
+    }
+
+    @Test
+    void testInvalidateOnFingerprintChange() throws IOException {
+        client.setOptionCacheTtl(1, TimeUnit.MINUTES);
+        client.state(JsonObject.class);
+
+        client.getOptions(REMAINING_PICTURES, ISO_SUPPORT);
+        client.checkForUpdates(fingerprint);
+        assertEquals(100, client.getOption(REMAINING_PICTURES));
+        assertEquals(1, getOptionsCount.get());
+
+        putOption("remainingPictures", 99);
+        fingerprint = "FIG_1";
+        assertEquals("FIG_1", client.checkForUpdates("FIG_0"));
+
+        assertEquals(99, client.getOption(REMAINING_PICTURES));
+        assertEquals(Arrays.asList(100, 200, 400), client.getOption(ISO_SUPPORT));
+        assertEquals(2, getOptionsCount.get());
+    }
+
+    @Test
+    void testInvalidateAll() throws IOException {
+        client.setOptionCacheTtl(1, TimeUnit.MINUTES);
+
+        client.getOption(ISO_SUPPORT);
+        client.invalidateOptionCache();
+        client.getOption(ISO_SUPPORT);
+
+        assertEquals(2, getOptionsCount.get());
+    }
+
+    @Test
+    void testIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> client.setOptionCacheTtl(-1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> client.setOptionCacheTtl(1, null));
+        assertThrows(NullPointerException.class, () -> client.setOptionCacheTtl(null, 1, TimeUnit.SECONDS));
+    }
+}
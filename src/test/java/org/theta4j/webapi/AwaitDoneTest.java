@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.theta4j.osc.CommandResponse;
+import org.theta4j.osc.CommandState;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AwaitDoneTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testAwaitDone() throws IOException {
+        server.takePictureMillis = 200;
+
+        final CommandResponse<TakePicture.Result> response = theta.takePicture();
+        assertEquals(CommandState.IN_PROGRESS, response.getState());
+
+        final CommandResponse<TakePicture.Result> done = theta.awaitDone(response);
+
+        assertEquals(CommandState.DONE, done.getState());
+        assertTrue(done.getResult().getFileUrl().toString().endsWith("R0000001.JPG"));
+    }
+
+    @Test
+    void testAlreadyDone() throws IOException {
+        final CommandResponse<ListFiles.Result> response = theta.listFiles(new ListFiles.Parameter.Builder(10).build());
+
+        assertSame(response, theta.awaitDone(response));
+        assertEquals(0, server.statusCount.get());
+    }
+
+    @Test
+    void testIntervalAdapts() throws IOException {
+        server.takePictureMillis = 600;
+
+        theta.awaitDone(theta.takePicture());
+        final int firstPolls = server.statusCount.getAndSet(0);
+
+        // the first poll is scheduled near the learned completion time.
+        theta.awaitDone(theta.takePicture());
+        final int secondPolls = server.statusCount.get();
+
+        assertTrue(firstPolls >= 5, "first polls: " + firstPolls);
+        assertTrue(secondPolls < firstPolls, "second polls: " + secondPolls);
+    }
+
+    @Test
+    void testTimeout() throws IOException {
+        server.takePictureMillis = 5000;
+
+        final CommandResponse<TakePicture.Result> response = theta.takePicture();
+
+        assertThrows(InterruptedIOException.class, () -> theta.awaitDone(response, 300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testManyPendingCommands() throws Exception {
+        server.deleteMillis = 300;
+        server.addFiles(100);
+
+        final List<CompletableFuture<CommandResponse<Void>>> futures = new ArrayList<>();
+        for (final FileInfo file : theta.listAllFiles(new ListFiles.Parameter.Builder(100).build(), 1)) {
+            futures.add(theta.deleteAsync(file.getFileUrl()).thenCompose(theta::awaitDoneAsync));
+        }
+        for (final CompletableFuture<CommandResponse<Void>> future : futures) {
+            assertEquals(CommandState.DONE, future.get(10, TimeUnit.SECONDS).getState());
+        }
+        assertEquals(0, server.getFileCount());
+    }
+
+    @Test
+    void testAsyncTimeout() throws IOException {
+        server.takePictureMillis = 5000;
+
+        final CompletableFuture<CommandResponse<TakePicture.Result>> future = theta.awaitDoneAsync(theta.takePicture(), 200, TimeUnit.MILLISECONDS);
+
+        final ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof InterruptedIOException);
+    }
+
+    @Test
+    void testInvalidArguments() throws IOException {
+        final CommandResponse<TakePicture.Result> response = theta.takePicture();
+
+        assertThrows(NullPointerException.class, () -> theta.awaitDone(null));
+        assertThrows(IllegalArgumentException.class, () -> theta.awaitDone(response, 0, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkDeleteTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private List<URL> allFileUrls() throws IOException {
+        final List<URL> fileUrls = new ArrayList<>();
+        for (final FileInfo file : theta.listAllFiles(new ListFiles.Parameter.Builder(100).build(), 4)) {
+            fileUrls.add(file.getFileUrl());
+        }
+        return fileUrls;
+    }
+
+    @Test
+    void testChunks() throws IOException {
+        server.addFiles(250);
+        final List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+
+        final BulkDelete.Result result = new BulkDelete.Builder(theta)
+                .listener((fileUrls, deletedCount, totalCount) -> {
+                    assertEquals(250, totalCount);
+                    progress.add(deletedCount);
+                })
+                .build()
+                .delete(allFileUrls());
+
+        assertEquals(250, result.getDeletedCount());
+        assertEquals(3, result.getChunkCount());
+        assertEquals(3, server.deleteCommandCount.get());
+        assertEquals(0, server.getFileCount());
+        assertEquals(Arrays.asList(100, 200, 250), progress);
+    }
+
+    @Test
+    void testPipelined() throws IOException {
+        server.addFiles(40);
+        server.deleteMillis = 300;
+
+        final BulkDelete.Result result = new BulkDelete.Builder(theta)
+                .chunkSize(10)
+                .build()
+                .delete(allFileUrls());
+
+        assertEquals(40, result.getDeletedCount());
+        assertEquals(0, server.getFileCount());
+        // the next chunk is sent while the previous chunk is in progress.
+        assertEquals(2, server.maxDeletesInProgress.get());
+    }
+
+    @Test
+    void testNotPipelined() throws IOException {
+        server.addFiles(30);
+        server.deleteMillis = 200;
+
+        new BulkDelete.Builder(theta)
+                .chunkSize(10)
+                .pipelineDepth(1)
+                .build()
+                .delete(allFileUrls());
+
+        assertEquals(0, server.getFileCount());
+        assertEquals(1, server.maxDeletesInProgress.get());
+    }
+
+    @Test
+    void testEmpty() throws IOException {
+        final BulkDelete.Result result = theta.bulkDelete(Collections.emptyList());
+
+        assertEquals(0, result.getDeletedCount());
+        assertEquals(0, result.getChunkCount());
+        assertEquals(0, server.deleteCommandCount.get());
+    }
+
+    @Test
+    void testNull() {
+        final BulkDelete bulkDelete = new BulkDelete.Builder(theta).build();
+
+        assertThrows(NullPointerException.class, () -> bulkDelete.delete(null));
+        assertThrows(NullPointerException.class, () -> bulkDelete.delete(Collections.singletonList(null)));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapturePipelineTest {
+    @TempDir
+    Path directory;
+
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testRun() throws IOException {
+        server.takePictureMillis = 400;
+        server.deleteMillis = 100;
+        final List<URL> deleted = Collections.synchronizedList(new ArrayList<>());
+
+        final CapturePipeline.Result result = new CapturePipeline.Builder(theta, directory)
+                .listener(new CapturePipeline.Listener() {
+                    @Override
+                    public void onDeleted(final List<URL> fileUrls) {
+                        deleted.addAll(fileUrls);
+                    }
+                })
+                .build()
+                .run(4);
+
+        assertEquals(4, result.getShotCount());
+        assertEquals(4, deleted.size());
+        assertEquals(0, server.getFileCount());
+        for (int i = 1; i <= 4; i++) {
+            final String name = String.format("R%07d.JPG", i);
+            assertArrayEquals(FakeThetaServer.content(name, 1000 + i), Files.readAllBytes(directory.resolve("100RICOH").resolve(name)));
+        }
+
+        final CapturePipeline.StageMetrics capture = result.getMetrics(CapturePipeline.Stage.CAPTURE);
+        final CapturePipeline.StageMetrics download = result.getMetrics(CapturePipeline.Stage.DOWNLOAD);
+        final CapturePipeline.StageMetrics delete = result.getMetrics(CapturePipeline.Stage.DELETE);
+        assertEquals(4, capture.getCount());
+        assertEquals(4, download.getCount());
+        assertTrue(delete.getCount() >= 1);
+        assertTrue(capture.getMeanTime(TimeUnit.MILLISECONDS) >= 400);
+        assertEquals(CapturePipeline.Stage.CAPTURE, result.getBottleneck());
+
+        // the deletions overlap with the captures.
+        final long sequential = capture.getTotalTime(TimeUnit.NANOSECONDS)
+                + download.getTotalTime(TimeUnit.NANOSECONDS)
+                + delete.getTotalTime(TimeUnit.NANOSECONDS);
+        assertTrue(result.getElapsedTime(TimeUnit.NANOSECONDS) < sequential);
+    }
+
+    @Test
+    void testWithoutDelete() throws IOException {
+        final CapturePipeline.Result result = new CapturePipeline.Builder(theta, directory)
+                .deleteAfterDownload(false)
+                .queueCapacity(1)
+                .build()
+                .run(3);
+
+        assertEquals(3, result.getShotCount());
+        assertEquals(3, server.getFileCount());
+        assertEquals(0, server.deleteCommandCount.get());
+        assertEquals(0, result.getMetrics(CapturePipeline.Stage.DELETE).getCount());
+        assertTrue(Files.exists(directory.resolve("100RICOH").resolve("R0000003.JPG")));
+    }
+
+    @Test
+    void testFolderRollover() throws IOException {
+        final CapturePipeline.Result result = new CapturePipeline.Builder(theta, directory)
+                .listener(new CapturePipeline.Listener() {
+                    @Override
+                    public void onCaptured(final URL fileUrl) {
+                        server.rollOverFolder("101RICOH");
+                    }
+                })
+                .build()
+                .run(2);
+
+        assertEquals(2, result.getShotCount());
+        assertEquals(0, server.getFileCount());
+        // The second shot has the same name in the next folder, and does not overwrite the first one.
+        assertArrayEquals(FakeThetaServer.content("R0000001.JPG", 1001), Files.readAllBytes(directory.resolve("100RICOH/R0000001.JPG")));
+        assertArrayEquals(FakeThetaServer.content("R0000001.JPG", 1002), Files.readAllBytes(directory.resolve("101RICOH/R0000001.JPG")));
+    }
+
+    @Test
+    void testExistingFile() throws IOException {
+        final Path existing = directory.resolve("100RICOH").resolve("R0000001.JPG");
+        Files.createDirectories(existing.getParent());
+        Files.write(existing, new byte[]{1, 2, 3});
+        final CapturePipeline pipeline = new CapturePipeline.Builder(theta, directory).build();
+
+        assertThrows(FileAlreadyExistsException.class, () -> pipeline.run(1));
+
+        // The shot is not deleted, and the local file is not overwritten.
+        assertEquals(1, server.getFileCount());
+        assertEquals(0, server.deleteCommandCount.get());
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(existing));
+    }
+
+    @Test
+    void testNoPartFileLeft() throws IOException {
+        new CapturePipeline.Builder(theta, directory).build().run(2);
+
+        assertTrue(Files.exists(directory.resolve("100RICOH").resolve("R0000002.JPG")));
+        assertFalse(Files.exists(directory.resolve("100RICOH").resolve("R0000002.JPG.part")));
+    }
+
+    @Test
+    void testNoShot() throws IOException {
+        final CapturePipeline.Result result = new CapturePipeline.Builder(theta, directory).build().run(0);
+
+        assertEquals(0, result.getShotCount());
+        assertEquals(0.0, result.getShotsPerMinute());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        final CapturePipeline.Builder builder = new CapturePipeline.Builder(theta, directory);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.queueCapacity(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.build().run(-1));
+    }
+}
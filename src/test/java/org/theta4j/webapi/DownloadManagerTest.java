@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.theta4j.osc.DownloadResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadManagerTest {
+    private static final Gson GSON = new Gson();
+
+    private HttpServer server;
+
+    private String endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/", exchange -> {
+            final String name = exchange.getRequestURI().getPath().substring("/files/".length());
+            final byte[] body = name.getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private FileInfo fileInfo(final String path, final String dateTime) {
+        final String name = path.substring(path.lastIndexOf('/') + 1);
+        final String json = "{\"name\":\"" + name + "\",\"fileUrl\":\"" + endpoint + path + "\","
+                + "\"size\":" + path.substring("/files/".length()).length() + ",\"dateTime\":\"" + dateTime + "\"}";
+        return GSON.fromJson(json, FileInfo.class);
+    }
+
+    @Test
+    void testDownload(@TempDir final Path dir) throws IOException {
+        final FileInfo file1 = fileInfo("/files/100RICOH/R0010001.JPG", "2019:01:01 00:00:01+09:00");
+        final FileInfo file2 = fileInfo("/files/100RICOH/R0010002.JPG", "2019:01:01 00:00:02+09:00");
+        final FileInfo file3 = fileInfo("/files/100RICOH/R0010003.JPG", "2019:01:01 00:00:03+09:00");
+        final FileInfo missing = fileInfo("/missing/100RICOH/R0010004.JPG", "2019:01:01 00:00:04+09:00");
+
+        // already downloaded
+        Files.createDirectories(dir.resolve("100RICOH"));
+        Files.write(dir.resolve("100RICOH/R0010002.JPG"), "100RICOH/R0010002.JPG".getBytes(StandardCharsets.US_ASCII));
+
+        final List<FileInfo> completed = Collections.synchronizedList(new ArrayList<>());
+        final DownloadManager manager = new DownloadManager.Builder(Theta.create(endpoint), dir)
+                .concurrency(2)
+                .order(DownloadManager.Order.NEWEST_FIRST)
+                .listener(new DownloadManager.Listener() {
+                    @Override
+                    public void onComplete(final FileInfo file, final Path path, final DownloadResult result) {
+                        completed.add(file);
+                    }
+                })
+                .build();
+
+        final DownloadManager.Result result = manager.download(Arrays.asList(file1, file2, file3, missing));
+
+        assertEquals(2, result.getDownloadedCount());
+        assertEquals(1, result.getSkippedCount());
+        assertEquals(Collections.singleton(missing), result.getFailures().keySet());
+        assertEquals(2 * "100RICOH/R0010001.JPG".length(), result.getBytes());
+        assertEquals(new HashSet<>(Arrays.asList(file1, file3)), new HashSet<>(completed));
+        assertEquals("100RICOH/R0010001.JPG", new String(Files.readAllBytes(dir.resolve("100RICOH/R0010001.JPG")), StandardCharsets.US_ASCII));
+        assertEquals("100RICOH/R0010003.JPG", new String(Files.readAllBytes(dir.resolve("100RICOH/R0010003.JPG")), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testSameNameInOtherFolders(@TempDir final Path dir) throws IOException {
+        final FileInfo file1 = fileInfo("/files/100RICOH/R0010001.JPG", "2019:01:01 00:00:01+09:00");
+        final FileInfo file2 = fileInfo("/files/101RICOH/R0010001.JPG", "2019:01:01 00:00:02+09:00");
+
+        final DownloadManager.Result result = new DownloadManager.Builder(Theta.create(endpoint), dir)
+                .concurrency(2)
+                .build()
+                .download(Arrays.asList(file1, file2));
+
+        assertEquals(2, result.getDownloadedCount());
+        assertEquals("100RICOH/R0010001.JPG", new String(Files.readAllBytes(dir.resolve("100RICOH/R0010001.JPG")), StandardCharsets.US_ASCII));
+        assertEquals("101RICOH/R0010001.JPG", new String(Files.readAllBytes(dir.resolve("101RICOH/R0010001.JPG")), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testPathOutsideDirectoryIsRejected(@TempDir final Path dir) throws IOException {
+        final Path directory = dir.resolve("photos");
+        final FileInfo traversal = GSON.fromJson("{\"name\":\"../../evil.JPG\",\"fileUrl\":\"" + endpoint + "/files/100RICOH/evil.JPG\","
+                + "\"size\":16,\"dateTime\":\"2019:01:01 00:00:01+09:00\"}", FileInfo.class);
+        final FileInfo parentFolder = fileInfo("/files/../R0010001.JPG", "2019:01:01 00:00:02+09:00");
+
+        final DownloadManager.Result result = new DownloadManager.Builder(Theta.create(endpoint), directory)
+                .build()
+                .download(Arrays.asList(traversal, parentFolder));
+
+        assertEquals(0, result.getDownloadedCount());
+        assertEquals(new HashSet<>(Arrays.asList(traversal, parentFolder)), result.getFailures().keySet());
+        try (final Stream<Path> files = Files.walk(dir)) {
+            assertEquals(Arrays.asList(dir, directory), files.collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Fake THETA serving a file list and the files on a local port.
+ * The files are kept in the newest first order.
+ */
+final class FakeThetaServer implements Closeable {
+    private static final Gson GSON = new Gson();
+
+    private final HttpServer server;
+
+    private final List<JsonObject> files = new ArrayList<>();
+
+    // number of the files ever added, so the deleted file numbers are not reused.
+    private int fileCount = 0;
+
+    private String folder = "100RICOH";
+
+    // the file names are numbered in the folder.
+    private int folderFileCount = 0;
+
+    // incremented on each change of the files or the state.
+    private int stateVersion = 0;
+
+    // state properties overriding the defaults.
+    private final JsonObject extraState = new JsonObject();
+
+    final AtomicInteger stateCount = new AtomicInteger();
+
+    final AtomicInteger statusCount = new AtomicInteger();
+
+    final AtomicInteger checkForUpdatesCount = new AtomicInteger();
+
+    final AtomicInteger listFilesCount = new AtomicInteger();
+
+    final AtomicInteger fileRequestCount = new AtomicInteger();
+
+    final AtomicLong servedBytes = new AtomicLong();
+
+    final AtomicInteger deleteCount = new AtomicInteger();
+
+    final AtomicInteger deleteCommandCount = new AtomicInteger();
+
+    final AtomicInteger maxDeletesInProgress = new AtomicInteger();
+
+    // camera.delete is in progress for this duration if positive.
+    volatile long deleteMillis = 0;
+
+    // camera.takePicture is in progress for this duration.
+    volatile long takePictureMillis = 0;
+
+    // the Range header of the file requests is ignored unless this is set.
+    volatile boolean rangeSupported = false;
+
+    // command name to the error code responded instead of executing the command.
+    final Map<String, String> errorCodes = new ConcurrentHashMap<>();
+
+    // the responses of /osc/commands/execute are held until this is cleared or the server is closed.
+    volatile boolean executeHeld = false;
+
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private final Map<String, PendingCommand> commands = new HashMap<>();
+
+    private int commandCount = 0;
+
+    private int deletesInProgress = 0;
+
+    private static final class PendingCommand {
+        final String name;
+
+        final long deadline;
+
+        final JsonObject results;
+
+        PendingCommand(final String name, final long deadline, final JsonObject results) {
+            this.name = name;
+            this.deadline = deadline;
+            this.results = results;
+        }
+    }
+
+    // called after each camera.listFiles, with the number of the calls.
+    volatile IntConsumer listFilesHook = count -> {
+    };
+
+    FakeThetaServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/osc/commands/execute", this::execute);
+        server.createContext("/osc/commands/status", this::status);
+        server.createContext("/osc/state", this::state);
+        server.createContext("/osc/checkForUpdates", this::checkForUpdates);
+        server.createContext("/files/", this::file);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Add files R0010001.JPG, R0010002.JPG, ... as the newest files.
+     */
+    synchronized void addFiles(final int count) {
+        addFiles(count, null);
+    }
+
+    /**
+     * Add files shot by the interval shooting of the group as the newest files.
+     */
+    synchronized void addFiles(final int count, final String intervalCaptureGroupId) {
+        for (int i = 0; i < count; i++) {
+            final int number = ++fileCount;
+            final String name = String.format("R%07d.JPG", ++folderFileCount);
+            final JsonObject file = new JsonObject();
+            file.addProperty("name", name);
+            file.addProperty("fileUrl", getEndpoint() + "/files/" + folder + "/" + name);
+            file.addProperty("size", 1000 + number);
+            file.addProperty("dateTime", String.format("2019:01:01 %02d:%02d:%02d", number / 3600 % 24, number / 60 % 60, number % 60));
+            if (intervalCaptureGroupId != null) {
+                file.addProperty("_intervalCaptureGroupId", intervalCaptureGroupId);
+            }
+            files.add(0, file);
+        }
+        stateVersion++;
+    }
+
+    /**
+     * Start the folder, and name the following files from R0000001.JPG again, like the folder rollover of THETA.
+     * The sizes of the files keep increasing, so the files of the same name are distinguished by the size.
+     */
+    synchronized void rollOverFolder(final String folder) {
+        this.folder = folder;
+        folderFileCount = 0;
+    }
+
+    /**
+     * Delete the oldest files.
+     */
+    synchronized void deleteOldestFiles(final int count) {
+        for (int i = 0; i < count; i++) {
+            files.remove(files.size() - 1);
+        }
+        stateVersion++;
+    }
+
+    /**
+     * Delete the newest files.
+     */
+    synchronized void deleteNewestFiles(final int count) {
+        for (int i = 0; i < count; i++) {
+            files.remove(0);
+        }
+        stateVersion++;
+    }
+
+    /**
+     * Set the state property, e.g. "batteryLevel" or "_captureStatus".
+     */
+    synchronized void putState(final String name, final Object value) {
+        extraState.add(name, GSON.toJsonTree(value));
+        stateVersion++;
+    }
+
+    synchronized int getFileCount() {
+        return files.size();
+    }
+
+    @Override
+    public void close() {
+        if (closed.getCount() == 0) {
+            return;
+        }
+        closed.countDown();
+        server.stop(0);
+    }
+
+    private void execute(final HttpExchange exchange) throws IOException {
+        final JsonObject request = GSON.fromJson(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), JsonObject.class);
+        final String name = request.get("name").getAsString();
+        final JsonObject parameters = request.has("parameters") ? request.getAsJsonObject("parameters") : new JsonObject();
+
+        while (executeHeld) {
+            try {
+                if (closed.await(10, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        final JsonObject response = new JsonObject();
+        response.addProperty("name", name);
+        final String errorCode = errorCodes.get(name);
+        if (errorCode != null) {
+            final JsonObject error = new JsonObject();
+            error.addProperty("code", errorCode);
+            error.addProperty("message", name + " failed.");
+            response.addProperty("state", "error");
+            response.add("error", error);
+            respond(exchange, 400, response);
+            return;
+        }
+        response.addProperty("state", "done");
+        if (name.equals("camera.listFiles")) {
+            response.add("results", listFiles(parameters));
+        } else if (name.equals("camera.delete")) {
+            delete(parameters.getAsJsonArray("fileUrls"));
+            if (deleteMillis > 0) {
+                response.addProperty("state", "inProgress");
+                response.addProperty("id", startCommand(name, deleteMillis, null));
+            }
+        } else if (name.equals("camera.takePicture")) {
+            final JsonObject results = new JsonObject();
+            results.addProperty("fileUrl", takePicture());
+            response.addProperty("state", "inProgress");
+            response.addProperty("id", startCommand(name, takePictureMillis, results));
+        }
+        respond(exchange, response);
+    }
+
+    private void status(final HttpExchange exchange) throws IOException {
+        statusCount.incrementAndGet();
+        final JsonObject request = GSON.fromJson(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), JsonObject.class);
+        final String id = request.get("id").getAsString();
+
+        final JsonObject response = finishCommand(id);
+        respond(exchange, response);
+    }
+
+    private synchronized String startCommand(final String name, final long millis, final JsonObject results) {
+        final String id = String.valueOf(++commandCount);
+        commands.put(id, new PendingCommand(name, System.currentTimeMillis() + millis, results));
+        if (name.equals("camera.delete")) {
+            deletesInProgress++;
+            maxDeletesInProgress.accumulateAndGet(deletesInProgress, Math::max);
+        }
+        return id;
+    }
+
+    private synchronized JsonObject finishCommand(final String id) {
+        final PendingCommand command = commands.get(id);
+        final JsonObject response = new JsonObject();
+        response.addProperty("name", command.name);
+        if (System.currentTimeMillis() < command.deadline) {
+            response.addProperty("state", "inProgress");
+            response.addProperty("id", id);
+            return response;
+        }
+        if (commands.remove(id) != null && command.name.equals("camera.delete")) {
+            deletesInProgress--;
+        }
+        response.addProperty("state", "done");
+        if (command.results != null) {
+            response.add("results", command.results);
+        }
+        return response;
+    }
+
+    private synchronized String takePicture() {
+        addFiles(1);
+        return files.get(0).get("fileUrl").getAsString();
+    }
+
+    private void state(final HttpExchange exchange) throws IOException {
+        stateCount.incrementAndGet();
+        final JsonObject state = new JsonObject();
+        final JsonObject response = new JsonObject();
+        synchronized (this) {
+            state.addProperty("_latestFileUrl", files.isEmpty() ? "" : files.get(0).get("fileUrl").getAsString());
+            response.addProperty("fingerprint", "FIG_" + stateVersion);
+        }
+        state.addProperty("batteryLevel", 0.5);
+        state.addProperty("_captureStatus", "idle");
+        synchronized (this) {
+            for (final Map.Entry<String, JsonElement> entry : extraState.entrySet()) {
+                state.add(entry.getKey(), entry.getValue());
+            }
+        }
+        response.add("state", state);
+        respond(exchange, response);
+    }
+
+    private void checkForUpdates(final HttpExchange exchange) throws IOException {
+        checkForUpdatesCount.incrementAndGet();
+        final JsonObject response = new JsonObject();
+        synchronized (this) {
+            response.addProperty("stateFingerprint", "FIG_" + stateVersion);
+        }
+        response.addProperty("throttleTimeout", 0);
+        respond(exchange, response);
+    }
+
+    private static void respond(final HttpExchange exchange, final JsonObject response) throws IOException {
+        respond(exchange, 200, response);
+    }
+
+    private static void respond(final HttpExchange exchange, final int code, final JsonObject response) throws IOException {
+        final byte[] body = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length);
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Serve the file content. Each byte of the file is the lower bits of the file number.
+     */
+    private void file(final HttpExchange exchange) throws IOException {
+        fileRequestCount.incrementAndGet();
+        final String url = getEndpoint() + exchange.getRequestURI().getPath();
+        final JsonObject file = findFile(url);
+        if (file == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        final byte[] content = content(file.get("name").getAsString(), file.get("size").getAsInt());
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        final byte[] body;
+        if (rangeSupported && range != null) {
+            // only "bytes=start-" and "bytes=start-end" are supported.
+            final String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            final int start = Integer.parseInt(bounds[0]);
+            final int end = bounds[1].isEmpty() ? content.length - 1 : Integer.parseInt(bounds[1]);
+            body = Arrays.copyOfRange(content, start, end + 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            exchange.sendResponseHeaders(206, body.length);
+        } else {
+            body = content;
+            exchange.sendResponseHeaders(200, body.length);
+        }
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+        servedBytes.addAndGet(body.length);
+    }
+
+    static byte[] content(final String name, final int size) {
+        final byte[] content = new byte[size];
+        Arrays.fill(content, (byte) Integer.parseInt(name.substring(1, 8)));
+        return content;
+    }
+
+    private synchronized JsonObject findFile(final String url) {
+        for (final JsonObject file : files) {
+            if (file.get("fileUrl").getAsString().equals(url)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void delete(final JsonArray fileUrls) {
+        for (final JsonElement fileUrl : fileUrls) {
+            if (files.removeIf(file -> file.get("fileUrl").getAsString().equals(fileUrl.getAsString()))) {
+                deleteCount.incrementAndGet();
+                stateVersion++;
+            }
+        }
+        deleteCommandCount.incrementAndGet();
+    }
+
+    private synchronized JsonObject listFiles(final JsonObject parameters) {
+        listFilesCount.incrementAndGet();
+
+        final List<JsonObject> sorted = new ArrayList<>(files);
+        final JsonElement sort = parameters.get("_sort");
+        if (sort != null && sort.getAsString().equals("oldest")) {
+            Collections.reverse(sorted);
+        }
+
+        final int startPosition = parameters.has("startPosition") ? parameters.get("startPosition").getAsInt() : 0;
+        final int entryCount = parameters.get("entryCount").getAsInt();
+
+        final JsonArray entries = new JsonArray();
+        for (int i = startPosition; i < Math.min(sorted.size(), startPosition + entryCount); i++) {
+            if (parameters.has("maxThumbSize")) {
+                final JsonObject entry = sorted.get(i).deepCopy();
+                entry.addProperty("thumbnail", "AAEC");
+                entry.addProperty("_thumbSize", 3);
+                entries.add(entry);
+            } else {
+                entries.add(sorted.get(i));
+            }
+        }
+
+        final JsonObject results = new JsonObject();
+        results.add("entries", entries);
+        results.addProperty("totalEntries", sorted.size());
+        listFilesHook.accept(listFilesCount.get());
+        return results;
+    }
+}
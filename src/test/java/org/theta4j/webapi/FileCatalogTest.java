@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCatalogTest {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    void testRoundTrip() {
+        final List<FileInfo> files = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            files.add(GSON.fromJson("{"
+                    + "\"name\":\"R00" + (10000 + i) + ".JPG\","
+                    + "\"fileUrl\":\"http://192.168.1.1/files/150100525831424d42075b53ce68c300/100RICOH/R00" + (10000 + i) + ".JPG\","
+                    + "\"size\":" + (4000000 + i) + ","
+                    + "\"dateTimeZone\":\"2015:07:10 11:05:18+09:00\","
+                    + "\"dateTime\":\"2015:07:10 11:05:" + (10 + i % 50) + "+09:00\","
+                    + "\"lat\":35,\"lng\":139,\"width\":5376,\"height\":2688,"
+                    + "\"_thumbSize\":3000,"
+                    + "\"_intervalCaptureGroupId\":\"group" + (i / 10) + "\","
+                    + "\"_recordTime\":" + i + ","
+                    + "\"isProcessed\":" + (i % 2 == 0) + ","
+                    + "\"previewUrl\":\"\","
+                    + "\"_codec\":\"H.264/MPEG-4 AVC\","
+                    + "\"_projectionType\":\"Equirectangular\""
+                    + "}", FileInfo.class));
+        }
+        // irregular entries
+        files.add(GSON.fromJson("{\"name\":\"renamed.JPG\",\"fileUrl\":\"http://127.0.0.1:8080/files/R0010001.JPG\",\"dateTime\":\"2015:07:10 11:05:18\"}", FileInfo.class));
+        files.add(GSON.fromJson("{\"name\":\"R0010002.JPG\",\"dateTime\":\"unknown\",\"previewUrl\":\"http://192.168.1.1/preview/R0010002.JPG\"}", FileInfo.class));
+        files.add(GSON.fromJson("{}", FileInfo.class));
+
+        final FileCatalog catalog = new FileCatalog.Builder().addAll(files).build();
+
+        assertEquals(files.size(), catalog.size());
+        assertEquals(files, catalog.asList());
+    }
+
+    @Test
+    void testWithoutThumbnail() {
+        final FileInfo file = GSON.fromJson("{\"name\":\"R0010001.JPG\",\"fileUrl\":\"http://192.168.1.1/files/R0010001.JPG\",\"thumbnail\":\"AAEC\"}", FileInfo.class);
+
+        final FileInfo restored = new FileCatalog.Builder().addAll(Arrays.asList(file)).build().get(0);
+
+        assertFalse(restored.hasThumbnail());
+        assertEquals(file.getFileUrl(), restored.getFileUrl());
+        assertEquals(file.getName(), restored.getName());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileIndexTest {
+    private FakeThetaServer server;
+
+    private FileIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        index = FileIndex.create(Theta.create(server.getEndpoint()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testRefresh() throws IOException {
+        server.addFiles(500);
+        assertEquals(500, index.refresh().getAdded().size());
+
+        // no change costs a single small page.
+        server.listFilesCount.set(0);
+        assertTrue(index.refresh().isEmpty());
+        assertEquals(1, server.listFilesCount.get());
+
+        // new files are listed incrementally.
+        server.listFilesCount.set(0);
+        server.addFiles(3, "group1");
+        final FileIndex.Changes added = index.refresh();
+        assertEquals(3, added.getAdded().size());
+        assertEquals("R0000503.JPG", added.getAdded().get(0).getName());
+        assertEquals(1, server.listFilesCount.get());
+        assertEquals(503, index.getFiles().size());
+        assertEquals(3, index.findByIntervalCaptureGroupId("group1").size());
+
+        // deletion is detected by the total entries.
+        server.deleteOldestFiles(2);
+        final FileIndex.Changes removed = index.refresh();
+        assertTrue(removed.getAdded().isEmpty());
+        assertEquals(2, removed.getRemoved().size());
+        assertEquals(501, index.getFiles().size());
+    }
+
+    @Test
+    void testFindByDateTime() throws IOException {
+        server.addFiles(100);
+        index.refresh();
+
+        // R0000001.JPG is shot at 00:00:01, and so on.
+        final LocalDateTime from = LocalDateTime.of(2019, 1, 1, 0, 0, 10);
+        assertEquals(10, index.findByDateTime(from, from.plusSeconds(10)).size());
+        assertEquals(100, index.findByType(ListFiles.FileType.IMAGE).size());
+        assertTrue(index.findByType(ListFiles.FileType.VIDEO).isEmpty());
+    }
+}
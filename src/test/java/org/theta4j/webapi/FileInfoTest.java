@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileInfoTest {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    void testDecodeThumbnail() {
+        final Random random = new Random(0);
+        for (int length = 0; length < 10; length++) {
+            final byte[] image = new byte[1000 + length];
+            random.nextBytes(image);
+            final String base64 = Base64.getEncoder().encodeToString(image);
+
+            final FileInfo fileInfo = GSON.fromJson("{\"name\":\"R0010001.JPG\",\"thumbnail\":\"" + base64 + "\"}", FileInfo.class);
+
+            assertTrue(fileInfo.hasThumbnail());
+            assertEquals(base64, fileInfo.getThumbnail());
+
+            final ByteBuffer reusable = ByteBuffer.allocate(2000);
+            final ByteBuffer decoded = fileInfo.decodeThumbnail(reusable);
+            assertSame(reusable, decoded);
+            final byte[] actual = new byte[decoded.remaining()];
+            decoded.get(actual);
+            assertArrayEquals(image, actual);
+        }
+    }
+
+    @Test
+    void testWithoutThumbnail() {
+        final FileInfo fileInfo = GSON.fromJson("{\"name\":\"R0010001.JPG\"}", FileInfo.class);
+
+        assertFalse(fileInfo.hasThumbnail());
+        assertNull(fileInfo.getThumbnail());
+        assertNull(fileInfo.decodeThumbnail(null));
+    }
+
+    @Test
+    void testEquals() {
+        final String json = "{\"name\":\"R0010001.JPG\",\"thumbnail\":\"AAEC\"}";
+
+        assertEquals(GSON.fromJson(json, FileInfo.class), GSON.fromJson(json, FileInfo.class));
+        assertEquals(GSON.fromJson(json, FileInfo.class).hashCode(), GSON.fromJson(json, FileInfo.class).hashCode());
+    }
+
+    @Test
+    void testSkipThumbnail() throws IOException {
+        final String json = "{\"entries\":[" +
+                "{\"name\":\"R0010001.JPG\",\"thumbnail\":\"AAEC\",\"_thumbSize\":3,\"size\":100}," +
+                "{\"thumbnail\":null,\"name\":\"R0010002.JPG\",\"size\":200}" +
+                "],\"totalEntries\":10}";
+
+        final ListFiles.Result result = ListFiles.THUMBNAIL_SKIPPING_ADAPTER.fromJson(json);
+
+        assertEquals(10, result.getTotalEntries());
+        assertEquals(2, result.getEntries().size());
+        assertEquals("R0010001.JPG", result.getEntries().get(0).getName());
+        assertEquals(100, result.getEntries().get(0).getSize());
+        assertEquals(3, result.getEntries().get(0).getThumbSize());
+        assertFalse(result.getEntries().get(0).hasThumbnail());
+        assertEquals("R0010002.JPG", result.getEntries().get(1).getName());
+        assertFalse(result.getEntries().get(1).hasThumbnail());
+    }
+
+    @Test
+    void testSkipThumbnailOfPages() {
+        final ListFiles.Parameter parameter = new ListFiles.Parameter.Builder(10)
+                .maxThumbSize(640)
+                .skipThumbnail(true)
+                .build();
+
+        assertTrue(parameter.isThumbnailSkipped());
+        assertTrue(parameter.page(10, 20).isThumbnailSkipped());
+        assertEquals(Integer.valueOf(640), parameter.page(10, 20).getMaxThumbSize());
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalCaptureWatcherTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    private final List<String> names = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<byte[]> contents = Collections.synchronizedList(new ArrayList<>());
+
+    private final IntervalCaptureWatcher.Sink sink = fileUrl -> new ByteArrayOutputStream() {
+        @Override
+        public void close() {
+            final String path = fileUrl.getPath();
+            names.add(path.substring(path.lastIndexOf('/') + 1));
+            contents.add(toByteArray());
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static void waitFor(final IntervalCaptureWatcher watcher, final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (watcher.getIngestedCount() < count) {
+            assertTrue(System.nanoTime() < deadline, "timeout");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testIngest() throws IOException, InterruptedException {
+        server.addFiles(2);
+
+        try (final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, sink)
+                .pollingInterval(50, TimeUnit.MILLISECONDS)
+                .build()
+                .start()) {
+            server.addFiles(1);
+            waitFor(watcher, 1);
+            assertEquals(Collections.singletonList("R0000003.JPG"), names);
+
+            // the files written between the polls.
+            server.addFiles(4);
+            waitFor(watcher, 5);
+        }
+
+        assertEquals(5, names.size());
+        for (int i = 0; i < 5; i++) {
+            final String name = String.format("R%07d.JPG", i + 3);
+            assertEquals(name, names.get(i));
+            assertArrayEquals(FakeThetaServer.content(name, 1003 + i), contents.get(i));
+        }
+    }
+
+    @Test
+    void testStateIsFetchedOnlyOnUpdate() throws IOException, InterruptedException {
+        try (final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, sink)
+                .pollingInterval(20, TimeUnit.MILLISECONDS)
+                .build()
+                .start()) {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (watcher.getCheckCount() < 3) {
+                assertTrue(System.nanoTime() < deadline, "timeout");
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, watcher.getIngestedCount());
+            assertEquals(1, watcher.getFetchCount()); // the initial state only
+            assertEquals(1, server.stateCount.get());
+        }
+    }
+
+    @Test
+    void testCloseIngestsLastFiles() throws IOException {
+        final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, sink)
+                .pollingInterval(1, TimeUnit.HOURS)
+                .build()
+                .start();
+        server.addFiles(3);
+
+        watcher.close();
+
+        assertEquals(3, watcher.getIngestedCount());
+        assertEquals(3, names.size());
+    }
+
+    @Test
+    void testPollingContinuesAfterBrokenState() throws IOException, InterruptedException {
+        final List<IOException> pollErrors = Collections.synchronizedList(new ArrayList<>());
+        try (final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, new IntervalCaptureWatcher.Sink() {
+            @Override
+            public OutputStream open(final URL fileUrl) {
+                return new ByteArrayOutputStream();
+            }
+
+            @Override
+            public void onPollError(final IOException e) {
+                pollErrors.add(e);
+            }
+        }).pollingInterval(20, TimeUnit.MILLISECONDS).build().start()) {
+            server.putState("_recordedTime", "broken");
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pollErrors.isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "timeout");
+                Thread.sleep(10);
+            }
+
+            server.putState("_recordedTime", 0);
+            server.addFiles(1);
+            waitFor(watcher, 1);
+        }
+    }
+
+    @Test
+    void testLatestFileDeleted() throws IOException {
+        server.addFiles(100);
+        final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, sink)
+                .pollingInterval(1, TimeUnit.HOURS)
+                .build()
+                .start();
+        server.deleteNewestFiles(1);
+        server.addFiles(1);
+
+        watcher.close();
+
+        assertEquals(Collections.singletonList("R0000101.JPG"), names);
+        // the search stops at the file older than the deleted one, without listing the whole storage.
+        // the start lists 1 file, and the search lists the first page and may prefetch the second one.
+        assertTrue(server.listFilesCount.get() <= 3);
+    }
+
+    @Test
+    void testSinkError() throws IOException {
+        final List<URL> failures = Collections.synchronizedList(new ArrayList<>());
+        final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, new IntervalCaptureWatcher.Sink() {
+            @Override
+            public OutputStream open(final URL fileUrl) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void onError(final URL fileUrl, final IOException e) {
+                failures.add(fileUrl);
+            }
+        }).pollingInterval(1, TimeUnit.HOURS).build().start();
+        server.addFiles(2);
+
+        watcher.close();
+
+        assertEquals(0, watcher.getIngestedCount());
+        assertEquals(2, watcher.getFailedCount());
+        assertEquals(2, failures.size());
+    }
+
+    @Test
+    void testDirectorySink(@TempDir final Path directory) throws IOException {
+        final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, IntervalCaptureWatcher.Sink.directory(directory))
+                .pollingInterval(1, TimeUnit.HOURS)
+                .build()
+                .start();
+        server.addFiles(1);
+        server.rollOverFolder("101RICOH");
+        server.addFiles(1);
+
+        watcher.close();
+
+        assertArrayEquals(FakeThetaServer.content("R0000001.JPG", 1001), Files.readAllBytes(directory.resolve("100RICOH/R0000001.JPG")));
+        assertArrayEquals(FakeThetaServer.content("R0000001.JPG", 1002), Files.readAllBytes(directory.resolve("101RICOH/R0000001.JPG")));
+    }
+
+    @Test
+    void testStartTwice() throws IOException {
+        try (final IntervalCaptureWatcher watcher = new IntervalCaptureWatcher.Builder(theta, sink).build().start()) {
+            assertThrows(IllegalStateException.class, watcher::start);
+        }
+    }
+}
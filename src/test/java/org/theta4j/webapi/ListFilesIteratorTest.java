@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListFilesIteratorTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testStreamFiles() {
+        server.addFiles(1234);
+
+        final ListFiles.Parameter parameter = new ListFiles.Parameter.Builder(10).sortType(ListFiles.SortOrder.OLDEST).build();
+        final List<String> names;
+        try (final Stream<FileInfo> stream = theta.streamFiles(parameter)) {
+            names = stream.map(FileInfo::getName).collect(Collectors.toList());
+        }
+
+        assertEquals(1234, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(String.format("R%07d.JPG", i + 1), names.get(i));
+        }
+        // the entry count grows on the fast responses.
+        assertTrue(server.listFilesCount.get() < 1234 / 10);
+    }
+
+    @Test
+    void testEmpty() {
+        final ListFiles.Parameter parameter = new ListFiles.Parameter.Builder(10).build();
+        try (final ListFilesIterator iterator = theta.iterateFiles(parameter)) {
+            assertFalse(iterator.hasNext());
+        }
+        assertEquals(1, server.listFilesCount.get());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelListFilesTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static void assertNewestFirst(final int count, final List<FileInfo> files) {
+        assertEquals(count, files.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(String.format("R%07d.JPG", count - i), files.get(i).getName());
+        }
+    }
+
+    @Test
+    void testListAllFiles() throws IOException {
+        server.addFiles(1234);
+
+        final List<FileInfo> files = theta.listAllFiles(new ListFiles.Parameter.Builder(100).build(), 4);
+
+        assertNewestFirst(1234, files);
+        assertEquals(13, server.listFilesCount.get());
+    }
+
+    @Test
+    void testFileAddedDuringScan() throws IOException {
+        server.addFiles(1234);
+        // a file is shot after the first page.
+        server.listFilesHook = count -> {
+            if (count == 1) {
+                server.addFiles(1);
+            }
+        };
+
+        final List<FileInfo> files = theta.listAllFiles(new ListFiles.Parameter.Builder(100).build(), 4);
+
+        assertNewestFirst(1235, files);
+    }
+}
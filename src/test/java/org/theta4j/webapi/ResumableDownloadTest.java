@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.theta4j.osc.DownloadResult;
+import org.theta4j.osc.OSCClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumableDownloadTest {
+    private static final byte[] FILE = new byte[12 * 1024 * 1024 + 123];
+
+    private static final byte[] LARGE_FILE = new byte[24 * 1024 * 1024];
+
+    static {
+        new Random(0).nextBytes(FILE);
+        new Random(1).nextBytes(LARGE_FILE);
+    }
+
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+
+    private final Object throttle = new Object();
+
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    private final AtomicLong servedBytes = new AtomicLong();
+
+    private HttpServer server;
+
+    private String endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/", exchange -> serve(exchange, FILE, false));
+        // Serves one request at a time at a fixed rate, so more connections do not improve the throughput.
+        server.createContext("/throttled/", exchange -> {
+            maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+            try {
+                synchronized (throttle) {
+                    serve(exchange, LARGE_FILE, true);
+                }
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+        });
+        // Fails the ranges not starting at 0, and serves the first range slowly.
+        server.createContext("/failing/", exchange -> {
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            if (!range.startsWith("bytes=0-")) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            final int end = Integer.parseInt(range.substring("bytes=0-".length()));
+            exchange.getResponseHeaders().add("Content-Range", "bytes 0-" + end + "/" + LARGE_FILE.length);
+            exchange.sendResponseHeaders(206, end + 1);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                for (int position = 0; position <= end; position += 64 * 1024) {
+                    os.write(LARGE_FILE, position, Math.min(64 * 1024, end - position + 1));
+                    servedBytes.addAndGet(Math.min(64 * 1024, end - position + 1));
+                    Thread.sleep(20);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // Ignores the Range header, and sends the whole file.
+        server.createContext("/norange/", exchange -> {
+            ranges.add(exchange.getRequestHeaders().getFirst("Range"));
+            exchange.sendResponseHeaders(200, FILE.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                for (int position = 0; position < FILE.length; position += 64 * 1024) {
+                    os.write(FILE, position, Math.min(64 * 1024, FILE.length - position));
+                    servedBytes.addAndGet(Math.min(64 * 1024, FILE.length - position));
+                }
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void serve(final HttpExchange exchange, final byte[] file, final boolean throttled) throws IOException {
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range);
+        int start = 0;
+        int end = file.length - 1;
+        if (range != null) {
+            final String[] tokens = range.substring("bytes=".length()).split("-");
+            start = Integer.parseInt(tokens[0]);
+            if (tokens.length == 2) {
+                end = Integer.parseInt(tokens[1]);
+            }
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + file.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+        } else {
+            exchange.sendResponseHeaders(200, file.length);
+        }
+        try (final OutputStream os = exchange.getResponseBody()) {
+            if (!throttled) {
+                os.write(file, start, end - start + 1);
+                return;
+            }
+            for (int position = start; position <= end; position += 64 * 1024) {
+                os.write(file, position, Math.min(64 * 1024, end - position + 1));
+                try {
+                    Thread.sleep(2);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+    @Test
+    void testResume(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/files/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        // The previous download was interrupted after the first 1000 bytes.
+        Files.write(dir.resolve("R0010001.MP4.part"), Arrays.copyOf(FILE, 1500));
+        Files.write(dir.resolve("R0010001.MP4.journal"), Arrays.asList(fileUrl.toString(), Integer.toString(FILE.length), "0 1000"));
+
+        final DownloadResult result = ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, null);
+
+        assertEquals(FILE.length - 1000, result.getBytes());
+        assertEquals(Collections.singletonList("bytes=1000-" + (FILE.length - 1)), ranges);
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.part")));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.journal")));
+    }
+
+    @Test
+    void testParallel(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/files/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        // The previous download was interrupted after the first 1000 bytes.
+        Files.write(dir.resolve("R0010001.MP4.journal"), Arrays.asList(fileUrl.toString(), Integer.toString(FILE.length), "0 1000"));
+        Files.write(dir.resolve("R0010001.MP4.part"), Arrays.copyOf(FILE, 1000));
+
+        final long[] progress = {0};
+        final DownloadResult result = ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, 4, (bytes, total) -> {
+            assertTrue(bytes > progress[0]);
+            assertEquals(FILE.length, total);
+            progress[0] = bytes;
+        });
+
+        assertEquals(FILE.length - 1000, result.getBytes());
+        assertEquals(FILE.length, progress[0]);
+        assertTrue(ranges.size() >= 2);
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.journal")));
+    }
+
+    @Test
+    void testJournalOfAnotherFileIsDiscarded(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/files/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        Files.write(dir.resolve("R0010001.MP4.part"), new byte[1000]);
+        Files.write(dir.resolve("R0010001.MP4.journal"), Arrays.asList(endpoint + "/files/R0010002.MP4", Integer.toString(FILE.length), "0 1000"));
+
+        ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, null);
+
+        assertEquals(Collections.singletonList("bytes=0-" + (FILE.length - 1)), ranges);
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+    }
+
+    @Test
+    void testTruncatedPartFileIsDownloadedAgain(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/files/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        // The journal says completed, but the part file is truncated.
+        Files.write(dir.resolve("R0010001.MP4.part"), new byte[1000]);
+        Files.write(dir.resolve("R0010001.MP4.journal"), Arrays.asList(fileUrl.toString(), Integer.toString(FILE.length), "0 " + FILE.length));
+
+        final DownloadResult result = ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, null);
+
+        assertEquals(FILE.length, result.getBytes());
+        assertEquals(Collections.singletonList("bytes=0-" + (FILE.length - 1)), ranges);
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.part")));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.journal")));
+    }
+
+    @Test
+    void testMissingPartFileIsDownloadedAgain(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/files/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        // The journal survived, but the part file is lost.
+        Files.write(dir.resolve("R0010001.MP4.journal"), Arrays.asList(fileUrl.toString(), Integer.toString(FILE.length), "0 1000"));
+
+        final DownloadResult result = ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, 4, null);
+
+        assertEquals(FILE.length, result.getBytes());
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.journal")));
+    }
+
+    @Test
+    void testStepDownFromProbing(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/throttled/R0010001.MP4");
+        final Path partPath = dir.resolve("R0010001.MP4.part");
+
+        try (final DownloadJournal journal = DownloadJournal.open(dir.resolve("R0010001.MP4.journal"), fileUrl, LARGE_FILE.length, 0);
+             final FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), LARGE_FILE.length - 1);
+
+            // Short chunks to have many probing windows.
+            final long bytes = ChunkedDownload.download(OSCClient.create(endpoint), fileUrl, channel, journal, 8, null,
+                    LARGE_FILE.length, TimeUnit.MILLISECONDS.toNanos(20));
+
+            assertEquals(LARGE_FILE.length, bytes);
+            assertTrue(journal.getMissingRanges().isEmpty());
+        }
+
+        assertArrayEquals(LARGE_FILE, Files.readAllBytes(partPath));
+        // The third connection did not improve the throughput, and the probing stepped down before the max.
+        assertTrue(maxConcurrentRequests.get() >= 3, "max concurrent requests: " + maxConcurrentRequests.get());
+        assertTrue(maxConcurrentRequests.get() < 8, "max concurrent requests: " + maxConcurrentRequests.get());
+    }
+
+    @Test
+    void testFailureAbortsOtherConnections(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/failing/R0010001.MP4");
+        final Path partPath = dir.resolve("R0010001.MP4.part");
+
+        try (final DownloadJournal journal = DownloadJournal.open(dir.resolve("R0010001.MP4.journal"), fileUrl, LARGE_FILE.length, 0);
+             final FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), LARGE_FILE.length - 1);
+
+            final IOException e = assertThrows(IOException.class, () -> ChunkedDownload.download(OSCClient.create(endpoint), fileUrl, channel, journal, 2, null, LARGE_FILE.length));
+
+            assertTrue(e.getMessage().contains("500"), e.getMessage());
+            // The connections are joined before returning, so nothing writes into the channel closed below.
+            for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+                assertNotEquals("theta4j-download-chunk", thread.getName());
+            }
+        }
+
+        // The first chunk is aborted instead of being downloaded to the end.
+        assertTrue(servedBytes.get() < 4 * 1024 * 1024, "served bytes: " + servedBytes.get());
+    }
+
+    @Test
+    void testResumeWithoutRangeSupport(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/norange/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        Files.write(dir.resolve("R0010001.MP4.part"), Arrays.copyOf(FILE, 1000));
+        Files.write(dir.resolve("R0010001.MP4.journal"), Arrays.asList(fileUrl.toString(), Integer.toString(FILE.length), "0 1000"));
+
+        final DownloadResult result = ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, null);
+
+        assertEquals(FILE.length, result.getBytes());
+        assertEquals(Arrays.asList("bytes=1000-" + (FILE.length - 1), "bytes=0-" + (FILE.length - 1)), ranges);
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+        assertFalse(Files.exists(dir.resolve("R0010001.MP4.journal")));
+    }
+
+    @Test
+    void testParallelWithoutRangeSupport(@TempDir final Path dir) throws IOException {
+        final URL fileUrl = new URL(endpoint + "/norange/R0010001.MP4");
+        final Path path = dir.resolve("R0010001.MP4");
+
+        final DownloadResult result = ResumableDownload.download(OSCClient.create(endpoint), fileUrl, FILE.length, path, 4, null);
+
+        assertEquals(FILE.length, result.getBytes());
+        assertArrayEquals(FILE, Files.readAllBytes(path));
+        // The chunks do not transfer the whole file each, only the first chunk and the single stream do.
+        assertTrue(servedBytes.get() <= 3L * FILE.length, "served bytes: " + servedBytes.get());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateWatcherTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private final StateWatcher.Listener listener = new StateWatcher.Listener() {
+        @Override
+        public void onBatteryLevelChanged(final BigDecimal oldLevel, final BigDecimal newLevel) {
+            events.add("battery " + oldLevel + " -> " + newLevel);
+        }
+
+        @Override
+        public void onCaptureStateChanged(final ThetaState.CaptureState oldState, final ThetaState.CaptureState newState) {
+            events.add("capture " + oldState + " -> " + newState);
+        }
+
+        @Override
+        public void onLatestFileUrlChanged(final URL oldUrl, final URL newUrl) {
+            final String path = newUrl.getPath();
+            events.add("latest " + (oldUrl == null ? null : "old") + " -> " + path.substring(path.lastIndexOf('/') + 1));
+        }
+
+        @Override
+        public void onRecordedTimeChanged(final int oldTime, final int newTime) {
+            events.add("recorded " + oldTime + " -> " + newTime);
+        }
+
+        @Override
+        public void onCameraErrorChanged(final List<String> oldErrors, final List<String> newErrors) {
+            events.add("error " + newErrors);
+        }
+
+        @Override
+        public void onPluginStateChanged(final boolean pluginRunning, final boolean pluginWebServer) {
+            events.add("plugin " + pluginRunning + " " + pluginWebServer);
+        }
+
+        @Override
+        public void onStateChanged(final ThetaState oldState, final ThetaState newState) {
+            events.add("state");
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private void waitFor(final String event) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!events.contains(event)) {
+            assertTrue(System.nanoTime() < deadline, "timeout: " + event);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void waitForChecks(final StateWatcher watcher, final long count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (watcher.getCheckCount() < count) {
+            assertTrue(System.nanoTime() < deadline, "timeout: " + count + " checks");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testNoFetchWithoutChange() throws IOException, InterruptedException {
+        try (final StateWatcher watcher = new StateWatcher.Builder(theta, listener)
+                .pollingInterval(20, TimeUnit.MILLISECONDS)
+                .build()
+                .start()) {
+            waitForChecks(watcher, 3);
+
+            assertEquals(1, watcher.getFetchCount());
+            assertEquals(1, server.stateCount.get());
+            assertTrue(events.isEmpty());
+            assertEquals(0, new BigDecimal("0.5").compareTo(watcher.getState().getBatteryLevel()));
+        }
+    }
+
+    @Test
+    void testEvents() throws IOException, InterruptedException {
+        try (final StateWatcher watcher = new StateWatcher.Builder(theta, listener)
+                .pollingInterval(20, TimeUnit.MILLISECONDS)
+                .build()
+                .start()) {
+            server.putState("batteryLevel", 0.3);
+            waitFor("battery 0.5 -> 0.3");
+
+            server.putState("_captureStatus", "shooting");
+            waitFor("capture IDLE -> SHOOTING");
+
+            server.addFiles(1);
+            waitFor("latest null -> R0000001.JPG");
+
+            server.putState("_recordedTime", 12);
+            waitFor("recorded 0 -> 12");
+
+            server.putState("_cameraError", Arrays.asList("COMPASS_CALIBRATION"));
+            waitFor("error [COMPASS_CALIBRATION]");
+
+            server.putState("_pluginRunning", true);
+            waitFor("plugin true false");
+
+            assertEquals(6, Collections.frequency(events, "state"));
+            assertEquals(ThetaState.CaptureState.SHOOTING, watcher.getState().getCaptureState());
+            assertEquals(7, watcher.getFetchCount());
+        }
+    }
+
+    @Test
+    void testSameValueIsNotNotified() throws IOException, InterruptedException {
+        try (final StateWatcher watcher = new StateWatcher.Builder(theta, listener)
+                .pollingInterval(20, TimeUnit.MILLISECONDS)
+                .build()
+                .start()) {
+            server.putState("batteryLevel", new BigDecimal("0.50"));
+            waitFor("state");
+
+            assertEquals(Collections.singletonList("state"), events);
+            assertEquals(2, watcher.getFetchCount());
+        }
+    }
+
+    @Test
+    void testListenerExceptionDoesNotStopPolling() throws IOException, InterruptedException {
+        final List<IOException> errors = Collections.synchronizedList(new ArrayList<>());
+        final StateWatcher.Listener throwing = new StateWatcher.Listener() {
+            @Override
+            public void onBatteryLevelChanged(final BigDecimal oldLevel, final BigDecimal newLevel) {
+                events.add("battery " + oldLevel + " -> " + newLevel);
+                throw new IllegalStateException("listener bug");
+            }
+
+            @Override
+            public void onError(final IOException e) {
+                errors.add(e);
+                events.add("error " + errors.size());
+            }
+        };
+        try (final StateWatcher watcher = new StateWatcher.Builder(theta, throwing)
+                .pollingInterval(20, TimeUnit.MILLISECONDS)
+                .build()
+                .start()) {
+            server.putState("batteryLevel", 0.3);
+            waitFor("battery 0.5 -> 0.3");
+            server.putState("batteryLevel", 0.2);
+            waitFor("battery 0.3 -> 0.2");
+            waitFor("error 2");
+
+            assertEquals(2, errors.size());
+            assertTrue(errors.get(0).getCause() instanceof IllegalStateException);
+            assertEquals(3, watcher.getFetchCount());
+        }
+    }
+
+    @Test
+    void testStopOnClose() throws IOException, InterruptedException {
+        final StateWatcher watcher = new StateWatcher.Builder(theta, listener)
+                .pollingInterval(20, TimeUnit.MILLISECONDS)
+                .build()
+                .start();
+        watcher.close();
+        final long checks = watcher.getCheckCount();
+
+        server.putState("batteryLevel", 0.3);
+        // the closed watcher would have polled as many times as another watcher of the same interval.
+        try (final StateWatcher clock = new StateWatcher.Builder(theta, new StateWatcher.Listener() {
+        }).pollingInterval(20, TimeUnit.MILLISECONDS).build().start()) {
+            waitForChecks(clock, 3);
+        }
+
+        assertEquals(checks, watcher.getCheckCount());
+        assertTrue(events.isEmpty());
+        assertThrows(IllegalStateException.class, watcher::start);
+    }
+
+    @Test
+    void testIllegalArguments() {
+        assertThrows(NullPointerException.class, () -> new StateWatcher.Builder(null, listener));
+        assertThrows(NullPointerException.class, () -> new StateWatcher.Builder(theta, null));
+        assertThrows(IllegalArgumentException.class, () -> new StateWatcher.Builder(theta, listener).pollingInterval(0, TimeUnit.SECONDS));
+    }
+}
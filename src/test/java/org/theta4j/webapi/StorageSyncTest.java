@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageSyncTest {
+    @TempDir
+    Path directory;
+
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private void assertCopied(final int count) throws IOException {
+        for (int i = 1; i <= count; i++) {
+            final String name = String.format("R%07d.JPG", i);
+            assertArrayEquals(FakeThetaServer.content(name, 1000 + i), Files.readAllBytes(directory.resolve("100RICOH").resolve(name)));
+        }
+    }
+
+    @Test
+    void testSync() throws IOException {
+        server.addFiles(5);
+
+        final StorageSync.Result result = theta.sync(directory);
+
+        assertEquals(5, result.getCopiedCount());
+        assertEquals(0, result.getUpToDateCount());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(1001 + 1002 + 1003 + 1004 + 1005, result.getBytes());
+        assertCopied(5);
+        assertEquals(5, server.fileRequestCount.get());
+    }
+
+    @Test
+    void testSyncOnlyNewFiles() throws IOException {
+        server.addFiles(5);
+        theta.sync(directory);
+        server.addFiles(2);
+
+        final StorageSync.Result result = theta.sync(directory);
+
+        assertEquals(2, result.getCopiedCount());
+        assertEquals(5, result.getUpToDateCount());
+        assertCopied(7);
+        assertEquals(7, server.fileRequestCount.get());
+    }
+
+    @Test
+    void testSyncIncompleteFile() throws IOException {
+        server.addFiles(5);
+        theta.sync(directory);
+        try (final FileChannel channel = FileChannel.open(directory.resolve("100RICOH").resolve("R0000003.JPG"), StandardOpenOption.WRITE)) {
+            channel.truncate(10);
+        }
+
+        final StorageSync.Result result = theta.sync(directory);
+
+        assertEquals(1, result.getCopiedCount());
+        assertEquals(4, result.getUpToDateCount());
+        assertCopied(5);
+    }
+
+    @Test
+    void testRestartWithoutManifestRecord() throws IOException {
+        server.addFiles(5);
+        theta.sync(directory);
+        // crashed before the manifest is written
+        Files.delete(directory.resolve(StorageSync.MANIFEST_NAME));
+
+        final StorageSync.Result result = theta.sync(directory);
+
+        // the copies not recorded are not trusted.
+        assertEquals(5, result.getCopiedCount());
+        assertEquals(10, server.fileRequestCount.get());
+        assertEquals(5, theta.sync(directory).getUpToDateCount());
+        assertCopied(5);
+    }
+
+    @Test
+    void testDeleteAfterCopyReplacesUnrecordedFile() throws IOException {
+        server.addFiles(1);
+        // same name and size, but different content.
+        final Path path = directory.resolve("100RICOH").resolve("R0000001.JPG");
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[1001]);
+
+        final StorageSync.Result result = new StorageSync.Builder(theta, directory)
+                .deleteAfterCopy(true)
+                .build()
+                .sync();
+
+        assertEquals(1, result.getCopiedCount());
+        assertEquals(1, result.getDeletedCount());
+        assertEquals(1, server.fileRequestCount.get());
+        assertCopied(1);
+    }
+
+    @Test
+    void testResumePartFile() throws IOException, NoSuchAlgorithmException {
+        server.rangeSupported = true;
+        server.addFiles(1);
+        final byte[] content = FakeThetaServer.content("R0000001.JPG", 1001);
+        writePart("R0000001.JPG", Arrays.copyOf(content, 600));
+
+        final StorageSync.Result result = theta.sync(directory);
+
+        assertEquals(1, result.getCopiedCount());
+        assertEquals(401, server.servedBytes.get());
+        assertCopied(1);
+        assertFalse(Files.exists(directory.resolve("100RICOH").resolve("R0000001.JPG.part")));
+        assertEquals(sha256(content), manifestSha256());
+    }
+
+    @Test
+    void testResumePartFileWithoutRangeSupport() throws IOException, NoSuchAlgorithmException {
+        server.addFiles(1);
+        final byte[] content = FakeThetaServer.content("R0000001.JPG", 1001);
+        writePart("R0000001.JPG", Arrays.copyOf(content, 600));
+
+        theta.sync(directory);
+
+        // the ignored range is followed by the download of the whole file.
+        assertEquals(2, server.fileRequestCount.get());
+        assertCopied(1);
+        assertEquals(sha256(content), manifestSha256());
+    }
+
+    @Test
+    void testPartFileWithJournal() throws IOException, NoSuchAlgorithmException {
+        server.rangeSupported = true;
+        server.addFiles(1);
+        // left by ResumableDownload, the bytes are not a prefix of the file.
+        writePart("R0000001.JPG", new byte[600]);
+        Files.createFile(directory.resolve("100RICOH").resolve("R0000001.JPG.journal"));
+
+        theta.sync(directory);
+
+        assertEquals(1001, server.servedBytes.get());
+        assertCopied(1);
+        assertFalse(Files.exists(directory.resolve("100RICOH").resolve("R0000001.JPG.journal")));
+        assertEquals(sha256(FakeThetaServer.content("R0000001.JPG", 1001)), manifestSha256());
+    }
+
+    private void writePart(final String name, final byte[] bytes) throws IOException {
+        Files.createDirectories(directory.resolve("100RICOH"));
+        Files.write(directory.resolve("100RICOH").resolve(name + ".part"), bytes);
+    }
+
+    private String manifestSha256() throws IOException {
+        final List<String> lines = Files.readAllLines(directory.resolve(StorageSync.MANIFEST_NAME), StandardCharsets.UTF_8);
+        return lines.get(0).split("\t")[1];
+    }
+
+    private static String sha256(final byte[] bytes) throws NoSuchAlgorithmException {
+        return StorageSync.hex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    void testTornManifestLine() throws IOException {
+        server.addFiles(2);
+        theta.sync(directory);
+        Files.write(directory.resolve(StorageSync.MANIFEST_NAME), "C\tabc\t10".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        final StorageSync.Result result = theta.sync(directory);
+
+        assertEquals(2, result.getUpToDateCount());
+        final List<String> lines = Files.readAllLines(directory.resolve(StorageSync.MANIFEST_NAME), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    void testDeleteAfterCopy() throws IOException {
+        server.addFiles(5);
+
+        final StorageSync.Result result = new StorageSync.Builder(theta, directory)
+                .deleteAfterCopy(true)
+                .build()
+                .sync();
+
+        assertEquals(5, result.getCopiedCount());
+        assertEquals(5, result.getDeletedCount());
+        assertEquals(0, server.getFileCount());
+        assertCopied(5);
+    }
+
+    @Test
+    void testDeleteAfterCopyWithFileIndex() throws IOException {
+        server.addFiles(5);
+        final FileIndex index = FileIndex.create(theta);
+        final StorageSync sync = new StorageSync.Builder(theta, directory)
+                .fileIndex(index)
+                .build();
+        sync.sync();
+        server.addFiles(1);
+
+        final StorageSync.Result result = new StorageSync.Builder(theta, directory)
+                .fileIndex(index)
+                .deleteAfterCopy(true)
+                .build()
+                .sync();
+
+        assertEquals(1, result.getCopiedCount());
+        assertEquals(5, result.getUpToDateCount());
+        assertEquals(6, result.getDeletedCount());
+        assertEquals(0, server.getFileCount());
+        assertCopied(6);
+    }
+
+    @Test
+    void testSha256() throws IOException, NoSuchAlgorithmException {
+        server.addFiles(1);
+        theta.sync(directory);
+
+        final byte[] content = FakeThetaServer.content("R0000001.JPG", 1001);
+        final String expected = StorageSync.hex(MessageDigest.getInstance("SHA-256").digest(content));
+        final List<String> lines = Files.readAllLines(directory.resolve(StorageSync.MANIFEST_NAME), StandardCharsets.UTF_8);
+        assertEquals(expected, lines.get(0).split("\t")[1]);
+    }
+
+    @Test
+    void testHex() {
+        assertEquals("00017f80ff", StorageSync.hex(new byte[]{0, 1, 127, -128, -1}));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.theta4j.osc.CommandResponse;
+import org.theta4j.osc.CommandState;
+import org.theta4j.osc.OSCException;
+import org.theta4j.osc.OSCState;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThetaAsyncTest {
+    private FakeThetaServer server;
+
+    private Theta theta;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeThetaServer();
+        theta = Theta.create(server.getEndpoint());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private URL fileUrl() throws IOException {
+        return new URL(server.getEndpoint() + "/files/100RICOH/R0000001.JPG");
+    }
+
+    private static Throwable cause(final CompletableFuture<?> future) {
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    void testState() throws Exception {
+        server.addFiles(1);
+
+        final OSCState<ThetaState> state = theta.stateAsync().get(5, TimeUnit.SECONDS);
+
+        assertEquals(fileUrl().toString(), state.getState().getLatestFileUrl().toString());
+        assertEquals(1, server.stateCount.get());
+    }
+
+    @Test
+    void testListFiles() throws Exception {
+        server.addFiles(3);
+
+        final CommandResponse<ListFiles.Result> response = theta.listFilesAsync(new ListFiles.Parameter.Builder(10).build()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(CommandState.DONE, response.getState());
+        assertEquals(3, response.getResult().getTotalEntries());
+        assertEquals("R0000003.JPG", response.getResult().getEntries().get(0).getName());
+    }
+
+    @Test
+    void testListFilesSkippingThumbnail() throws Exception {
+        server.addFiles(3);
+        final ListFiles.Parameter.Builder builder = new ListFiles.Parameter.Builder(10).maxThumbSize(640);
+
+        final ListFiles.Result withThumbnail = theta.listFiles(builder.build()).getResult();
+        final ListFiles.Result skipped = theta.listFilesAsync(builder.skipThumbnail(true).build()).get(5, TimeUnit.SECONDS).getResult();
+
+        assertTrue(withThumbnail.getEntries().get(0).hasThumbnail());
+        assertEquals(3, skipped.getTotalEntries());
+        for (final FileInfo file : skipped.getEntries()) {
+            assertFalse(file.hasThumbnail());
+            assertEquals(3, file.getThumbSize());
+        }
+    }
+
+    @Test
+    void testTakePictureAndAwaitDone() throws Exception {
+        server.takePictureMillis = 100;
+
+        final CommandResponse<TakePicture.Result> response = theta.takePictureAsync()
+                .thenCompose(theta::awaitDoneAsync)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(CommandState.DONE, response.getState());
+        assertEquals(fileUrl().toString(), response.getResult().getFileUrl().toString());
+    }
+
+    @Test
+    void testErrorResponse() throws IOException {
+        server.addFiles(1);
+        server.errorCodes.put("camera.delete", "invalidParameterValue");
+
+        final Throwable cause = cause(theta.deleteAsync(fileUrl()));
+
+        assertTrue(cause instanceof OSCException, cause.toString());
+        assertEquals("invalidParameterValue", ((OSCException) cause).getCode());
+    }
+
+    @Test
+    void testErrorResponseOfSynchronousCall() throws IOException {
+        server.addFiles(1);
+        server.errorCodes.put("camera.delete", "invalidParameterValue");
+
+        final URL fileUrl = fileUrl();
+        final OSCException e = assertThrows(OSCException.class, () -> theta.delete(fileUrl));
+
+        assertEquals("invalidParameterValue", e.getCode());
+        assertEquals(1, server.getFileCount());
+    }
+
+    @Test
+    void testTransportFailure() {
+        server.close();
+
+        final Throwable cause = cause(theta.stateAsync());
+
+        assertTrue(cause instanceof IOException, cause.toString());
+    }
+
+    @Test
+    void testCancel() throws Exception {
+        server.executeHeld = true;
+        // OkHttp runs up to 5 calls per host, and queues the others until the running calls finish.
+        final List<CompletableFuture<CommandResponse<ListFiles.Result>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(theta.listFilesAsync(new ListFiles.Parameter.Builder(10).build()));
+        }
+
+        for (final CompletableFuture<CommandResponse<ListFiles.Result>> future : futures) {
+            assertTrue(future.cancel(true));
+            assertThrows(CancellationException.class, future::get);
+        }
+
+        // runs only if the held calls are cancelled.
+        assertNotNull(theta.stateAsync().get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2019 theta4j project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.theta4j.webapi;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+    private static final Gson GSON = new Gson();
+
+    private static FileInfo fileInfo(final String name, final String dateTime, final String image) {
+        final String thumbnail = image == null ? "" : ",\"thumbnail\":\"" + Base64.getEncoder().encodeToString(image.getBytes(StandardCharsets.US_ASCII)) + "\"";
+        return GSON.fromJson("{\"name\":\"" + name + "\",\"fileUrl\":\"http://192.168.1.1/files/100RICOH/" + name + "\","
+                + "\"size\":1000,\"dateTime\":\"" + dateTime + "\"" + thumbnail + "}", FileInfo.class);
+    }
+
+    private static String string(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testPutAndGet(@TempDir final Path dir) throws IOException {
+        final FileInfo file1 = fileInfo("R0010001.JPG", "2019:01:01 00:00:01", "image1");
+        final FileInfo file2 = fileInfo("R0010002.JPG", "2019:01:01 00:00:02", "image2");
+
+        // only 1 thumbnail fits in the memory tier.
+        final ThumbnailCache cache = ThumbnailCache.create(dir, 6);
+        cache.put(file1);
+        cache.put(file2);
+        assertEquals(6, cache.getMemoryBytes());
+
+        assertEquals("image1", string(cache.get(file1)));
+        assertEquals("image2", string(cache.get(file2)));
+        assertTrue(cache.get(file1).isReadOnly());
+
+        // the disk tier survives the restart.
+        final ThumbnailCache restarted = ThumbnailCache.create(dir, 1024);
+        assertEquals("image1", string(restarted.get(fileInfo("R0010001.JPG", "2019:01:01 00:00:01", null))));
+
+        // another file with the same name.
+        assertNull(restarted.get(fileInfo("R0010001.JPG", "2019:12:31 00:00:01", null)));
+    }
+
+    @Test
+    void testRetainAll(@TempDir final Path dir) throws IOException {
+        final FileInfo file1 = fileInfo("R0010001.JPG", "2019:01:01 00:00:01", "image1");
+        final FileInfo file2 = fileInfo("R0010002.JPG", "2019:01:01 00:00:02", "image2");
+
+        final ThumbnailCache cache = ThumbnailCache.create(dir, 1024);
+        cache.put(file1);
+        cache.put(file2);
+
+        cache.retainAll(Collections.singletonList(fileInfo("R0010002.JPG", "2019:01:01 00:00:02", null)));
+
+        assertNull(cache.get(file1));
+        assertEquals("image2", string(cache.get(file2)));
+        assertNull(ThumbnailCache.create(dir, 1024).get(file1));
+    }
+
+    @Test
+    void testDiskThumbnailOnHeap(@TempDir final Path dir) throws IOException {
+        final FileInfo file1 = fileInfo("R0010001.JPG", "2019:01:01 00:00:01", "image1");
+        ThumbnailCache.create(dir, 0).put(file1);
+
+        final ThumbnailCache restarted = ThumbnailCache.create(dir, 1024);
+        final ByteBuffer thumbnail = restarted.get(file1);
+        assertFalse(thumbnail.isDirect());
+        assertEquals(6, restarted.getMemoryBytes());
+
+        // the file is not mapped, so it can be deleted while the thumbnail is in use.
+        restarted.retainAll(Collections.emptyList());
+        try (final Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals("image1", string(thumbnail));
+    }
+}